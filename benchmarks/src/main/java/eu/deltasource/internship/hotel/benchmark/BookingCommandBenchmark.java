@@ -0,0 +1,107 @@
+package eu.deltasource.internship.hotel.benchmark;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.persistence.WriteAheadBookingLog;
+import eu.deltasource.internship.hotel.repository.BookingLog;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.repository.HeapBookingStore;
+import eu.deltasource.internship.hotel.repository.SnapshotStore;
+import eu.deltasource.internship.hotel.service.BookingService;
+import eu.deltasource.internship.hotel.utility.SequentialIdAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Booking commands of many threads, applied under the room locks
+ * or by the single writer of the pipeline, to one or more shards.
+ * <p>
+ * Every thread books its own night, so no command fails, but with few
+ * rooms the threads keep writing to the same rooms. With the log, the
+ * commands also wait until their records are durable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class BookingCommandBenchmark {
+
+	private static final AtomicInteger THREADS = new AtomicInteger();
+
+	@Param({BookingService.LOCKED, BookingService.PIPELINE})
+	public String commands;
+
+	@Param({"1", "64"})
+	public int rooms;
+
+	@Param({"none", "wal"})
+	public String log;
+
+	@Param({"1", "8"})
+	public int shards;
+
+	private Path directory;
+	private WriteAheadBookingLog writeAheadLog;
+	private BookingService bookingService;
+
+	@State(Scope.Thread)
+	public static class Writer {
+		private final LocalDate night = HotelFixture.FIRST_DAY.plusDays(THREADS.getAndIncrement());
+		private int next;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		BookingLog bookingLog = BookingLog.NONE;
+		if (log.equals("wal")) {
+			directory = Files.createTempDirectory("booking-commands");
+			writeAheadLog = new WriteAheadBookingLog(directory.resolve("bookings.wal"));
+			bookingLog = writeAheadLog;
+		}
+		HotelFixture hotel = new HotelFixture(rooms, 1, 0, new BookingRepository(new SequentialIdAllocator(),
+			bookingLog, SnapshotStore.NONE, shard -> new HeapBookingStore(), shards));
+		bookingService = new BookingService(hotel.bookingRepository, hotel.roomService, hotel.guestService, commands);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		bookingService.close();
+		if (writeAheadLog != null) {
+			writeAheadLog.close();
+			Files.deleteIfExists(directory.resolve("bookings.wal"));
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	/**
+	 * Books the night of the thread in the next room and cancels it again.
+	 */
+	@Benchmark
+	public boolean saveAndDelete(Writer writer) {
+		int roomId = writer.next++ % rooms + 1;
+		Booking saved = bookingService.saveAsync(new Booking(0, 1, roomId, 1, writer.night, writer.night.plusDays(1)))
+			.join();
+		return bookingService.deleteById(saved.getBookingId());
+	}
+}
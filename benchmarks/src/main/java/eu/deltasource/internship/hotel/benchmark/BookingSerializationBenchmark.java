@@ -0,0 +1,53 @@
+package eu.deltasource.internship.hotel.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /bookings without the HTTP layer: reading all bookings
+ * and writing them with an object mapper configured like the
+ * one of the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class BookingSerializationBenchmark {
+
+	@Param({"1000", "100000", "1000000"})
+	public int bookings;
+
+	@Param({"heap", "columnar", "offheap"})
+	public String storage;
+
+	private HotelFixture hotel;
+	private ObjectMapper objectMapper;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		hotel = new HotelFixture(1000, 1000, bookings, storage);
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	}
+
+	@Benchmark
+	public byte[] findAllAsJson() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(hotel.bookingService.findAll());
+	}
+}
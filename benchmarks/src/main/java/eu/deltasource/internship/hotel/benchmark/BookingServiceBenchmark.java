@@ -0,0 +1,101 @@
+package eu.deltasource.internship.hotel.benchmark;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write paths of the booking service at different data sizes.
+ * <p>
+ * Every created booking is deleted again within the same operation,
+ * so the repository keeps its size during the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class BookingServiceBenchmark {
+
+	private static final LocalDate FAR_FUTURE = LocalDate.of(2100, 1, 1);
+
+	@Param({"1000", "100000", "10000000"})
+	public int bookings;
+
+	@Param({"10", "1000", "10000"})
+	public int rooms;
+
+	@Param({"heap", "columnar", "offheap"})
+	public String storage;
+
+	private HotelFixture hotel;
+	private SplittableRandom random;
+	private int nextBookingId;
+	private int nextRoomId;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		hotel = new HotelFixture(rooms, 1000, bookings, storage);
+		random = new SplittableRandom(42);
+		nextBookingId = bookings + 1;
+	}
+
+	@Benchmark
+	public void save() {
+		int roomId = nextRoomId++ % rooms + 1;
+		hotel.bookingService.save(new Booking(0, 1, roomId, 1, FAR_FUTURE, FAR_FUTURE.plusDays(2)));
+		hotel.bookingRepository.deleteById(nextBookingId++);
+	}
+
+	/**
+	 * Asks for a night within the booked period, when
+	 * two thirds of the booked rooms are occupied.
+	 */
+	@Benchmark
+	public void findAndBookFirstAvailableRoom() {
+		int stay = random.nextInt(Math.max(1, bookings / rooms));
+		LocalDate from = HotelFixture.stayStart(0, stay).plusDays(1);
+		hotel.bookingService.findAndBookFirstAvailableRoom(new Booking(0, 1, 0, 2, from, from.plusDays(1)));
+		hotel.bookingRepository.deleteById(nextBookingId++);
+	}
+
+	/**
+	 * Extends a random booking into its free night and shrinks it back,
+	 * through the path of PUT /bookings/room.
+	 */
+	@Benchmark
+	public void updateBooking(Blackhole blackhole) {
+		Booking booking = hotel.bookingAt(random.nextInt(bookings));
+		blackhole.consume(hotel.bookingService.updateBooking(new Booking(booking.getBookingId(), booking.getGuestId(),
+			booking.getRoomId(), booking.getNumberOfPeople(), booking.getFrom(), booking.getTo().plusDays(1))));
+		blackhole.consume(hotel.bookingService.updateBooking(booking));
+	}
+
+	/**
+	 * Extends a random booking into its free night and shrinks it back.
+	 */
+	@Benchmark
+	public void updateBookingByDates(Blackhole blackhole) {
+		Booking booking = hotel.bookingAt(random.nextInt(bookings));
+		blackhole.consume(hotel.bookingService.updateBookingByDates(booking.getBookingId(),
+			booking.getFrom(), booking.getTo().plusDays(1)));
+		blackhole.consume(hotel.bookingService.updateBookingByDates(booking.getBookingId(),
+			booking.getFrom(), booking.getTo()));
+	}
+}
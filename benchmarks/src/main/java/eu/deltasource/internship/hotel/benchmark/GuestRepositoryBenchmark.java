@@ -0,0 +1,48 @@
+package eu.deltasource.internship.hotel.benchmark;
+
+import eu.deltasource.internship.hotel.domain.Guest;
+import eu.deltasource.internship.hotel.repository.GuestRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random lookups by id in the guest repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class GuestRepositoryBenchmark {
+
+	@Param({"1000", "100000", "10000000"})
+	public int guests;
+
+	private GuestRepository guestRepository;
+	private SplittableRandom random;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		guestRepository = new HotelFixture(1, guests, 0).guestRepository;
+		random = new SplittableRandom(42);
+	}
+
+	@Benchmark
+	public Guest findById() {
+		return guestRepository.findById(random.nextInt(guests) + 1);
+	}
+}
@@ -0,0 +1,111 @@
+package eu.deltasource.internship.hotel.benchmark;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.domain.Gender;
+import eu.deltasource.internship.hotel.domain.Guest;
+import eu.deltasource.internship.hotel.domain.Room;
+import eu.deltasource.internship.hotel.domain.commodity.AbstractCommodity;
+import eu.deltasource.internship.hotel.domain.commodity.Bed;
+import eu.deltasource.internship.hotel.domain.commodity.BedType;
+import eu.deltasource.internship.hotel.domain.commodity.Shower;
+import eu.deltasource.internship.hotel.domain.commodity.Toilet;
+import eu.deltasource.internship.hotel.persistence.PersistenceConfiguration;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.repository.GuestRepository;
+import eu.deltasource.internship.hotel.repository.RoomRepository;
+import eu.deltasource.internship.hotel.service.BookingService;
+import eu.deltasource.internship.hotel.service.GuestService;
+import eu.deltasource.internship.hotel.service.RoomService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * In-memory hotel with a deterministic layout, shared by the benchmarks.
+ * <p>
+ * Room r has capacity 1, 2 or 3 by r % 3. Booking i goes to room
+ * i % rooms + 1 as its k = i / rooms stay, which lasts two nights from
+ * FIRST_DAY + 3k + r % 3. Every room thus has a free night after each
+ * stay, and on any night two thirds of the booked rooms are occupied.
+ */
+final class HotelFixture {
+
+	static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+	static final int STAY_NIGHTS = 2;
+	static final int STAY_PERIOD = 3;
+
+	final int rooms;
+	final int guests;
+	final int bookings;
+	final BookingRepository bookingRepository;
+	final GuestRepository guestRepository = new GuestRepository();
+	final RoomRepository roomRepository = new RoomRepository();
+	final RoomService roomService = new RoomService(roomRepository);
+	final GuestService guestService;
+	final BookingService bookingService;
+
+	HotelFixture(int rooms, int guests, int bookings) {
+		this(rooms, guests, bookings, "heap");
+	}
+
+	/**
+	 * @param storage booking storage engine, as for the hotel.booking.storage property
+	 */
+	HotelFixture(int rooms, int guests, int bookings, String storage) {
+		this(rooms, guests, bookings, new BookingRepository(new PersistenceConfiguration().bookingStore(storage, "")));
+	}
+
+	HotelFixture(int rooms, int guests, int bookings, BookingRepository bookingRepository) {
+		this.rooms = rooms;
+		this.guests = guests;
+		this.bookings = bookings;
+		this.bookingRepository = bookingRepository;
+		guestService = new GuestService(guestRepository, bookingRepository);
+		bookingService = new BookingService(bookingRepository, roomService, guestService);
+		List<Room> roomList = new ArrayList<>(rooms);
+		for (int roomId = 1; roomId <= rooms; roomId++) {
+			roomList.add(new Room(roomId, commoditiesOf(roomId)));
+		}
+		roomRepository.saveAll(roomList);
+		List<Guest> guestList = new ArrayList<>(guests);
+		for (int guestId = 1; guestId <= guests; guestId++) {
+			guestList.add(new Guest(guestId, "First" + guestId, "Last" + guestId,
+				guestId % 2 == 0 ? Gender.FEMALE : Gender.MALE));
+		}
+		guestRepository.saveAll(guestList);
+		List<Booking> bookingList = new ArrayList<>(bookings);
+		for (int i = 0; i < bookings; i++) {
+			bookingList.add(bookingAt(i));
+		}
+		// the layout is conflict free by construction, so the service validation is skipped
+		bookingRepository.saveAll(bookingList);
+	}
+
+	/**
+	 * The booking with the given index, which is saved under id index + 1.
+	 */
+	Booking bookingAt(int index) {
+		int roomId = index % rooms + 1;
+		LocalDate from = stayStart(roomId, index / rooms);
+		return new Booking(index + 1, index % guests + 1, roomId, 1, from, from.plusDays(STAY_NIGHTS));
+	}
+
+	static LocalDate stayStart(int roomId, int stay) {
+		return FIRST_DAY.plusDays((long) STAY_PERIOD * stay + roomId % STAY_PERIOD);
+	}
+
+	private static Set<AbstractCommodity> commoditiesOf(int roomId) {
+		switch (roomId % 3) {
+			case 0:
+				return new HashSet<>(Arrays.asList(new Bed(BedType.SINGLE), new Toilet(), new Shower()));
+			case 1:
+				return new HashSet<>(Arrays.asList(new Bed(BedType.DOUBLE), new Toilet(), new Shower()));
+			default:
+				return new HashSet<>(Arrays.asList(new Bed(BedType.DOUBLE), new Bed(BedType.SINGLE), new Toilet()));
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package eu.deltasource.internship.hotel.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps a fixed number of requests in flight against a running
+ * application, each over its own connection, and reports the
+ * throughput and latency percentiles.
+ * <p>
+ * Unlike the JMH benchmarks this measures the whole HTTP stack, so it is
+ * the one to compare the request execution modes of the controllers with:
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar eu.deltasource.internship.hotel.benchmark.HttpLoadGenerator \
+ *     [url] [connections] [seconds]
+ * </pre>
+ */
+public final class HttpLoadGenerator {
+
+	private static final String DEFAULT_URL = "http://localhost:8080/rooms/available?from=2030-01-01&to=2030-01-03";
+	private static final int RAMP_UP_BATCH = 500;
+	private static final int MAX_LATENCY_MILLIS = 60_000;
+
+	private final HttpClient client = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_1_1)
+		.connectTimeout(Duration.ofSeconds(30))
+		.build();
+	private final HttpRequest request;
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final AtomicLongArray latencies = new AtomicLongArray(MAX_LATENCY_MILLIS + 1);
+	private final CountDownLatch drained;
+	private volatile boolean measuring;
+	private volatile boolean running = true;
+
+	private HttpLoadGenerator(String url, int connections) {
+		request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(60)).build();
+		drained = new CountDownLatch(connections);
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		String url = args.length > 0 ? args[0] : DEFAULT_URL;
+		int connections = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+		new HttpLoadGenerator(url, connections).run(connections, seconds);
+	}
+
+	private void run(int connections, int seconds) throws InterruptedException {
+		// the connections are opened in batches, so the accept queue of the server does not overflow
+		for (int i = 0; i < connections; i++) {
+			send();
+			if ((i + 1) % RAMP_UP_BATCH == 0) {
+				Thread.sleep(100);
+			}
+		}
+		measuring = true;
+		long start = System.nanoTime();
+		Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+		measuring = false;
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		running = false;
+		drained.await(1, TimeUnit.MINUTES);
+		System.out.printf("connections: %d, duration: %.1f s%n", connections, elapsed);
+		System.out.printf("requests: %d (%.0f/s), failed: %d%n", completed.sum(), completed.sum() / elapsed, failed.sum());
+		System.out.printf("latency ms p50: %d, p90: %d, p99: %d, max: %d%n",
+			percentile(0.5), percentile(0.9), percentile(0.99), percentile(1));
+	}
+
+	private void send() {
+		long start = System.nanoTime();
+		client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+			if (measuring) {
+				if (error != null || response.statusCode() >= 300) {
+					failed.increment();
+				} else {
+					completed.increment();
+					long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					latencies.incrementAndGet((int) Math.min(millis, MAX_LATENCY_MILLIS));
+				}
+			}
+			if (running) {
+				send();
+			} else {
+				drained.countDown();
+			}
+		});
+	}
+
+	private long percentile(double fraction) {
+		long total = 0;
+		for (int i = 0; i < latencies.length(); i++) {
+			total += latencies.get(i);
+		}
+		long rank = (long) Math.ceil(fraction * total);
+		long seen = 0;
+		for (int i = 0; i < latencies.length(); i++) {
+			seen += latencies.get(i);
+			if (seen >= rank && seen > 0) {
+				return i;
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,55 @@
+package eu.deltasource.internship.hotel.benchmark;
+
+import eu.deltasource.internship.hotel.domain.OccupancyReport;
+import eu.deltasource.internship.hotel.service.ReportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Occupancy reports over the whole booking history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ReportServiceBenchmark {
+
+	@Param({"100000", "10000000"})
+	public int bookings;
+
+	@Param({"1000"})
+	public int rooms;
+
+	@Param({"day", "capacity", "bedType"})
+	public String groupBy;
+
+	private HotelFixture hotel;
+	private ReportService reportService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		hotel = new HotelFixture(rooms, 1000, bookings);
+		reportService = new ReportService(hotel.roomService, hotel.bookingRepository);
+	}
+
+	@Benchmark
+	public OccupancyReport findOccupancy() {
+		int stays = (bookings + rooms - 1) / rooms;
+		return reportService.findOccupancy(HotelFixture.FIRST_DAY,
+			HotelFixture.stayStart(0, stays + 1), groupBy);
+	}
+}
@@ -0,0 +1,57 @@
+package eu.deltasource.internship.hotel.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.deltasource.internship.hotel.domain.Room;
+import eu.deltasource.internship.hotel.dto.AbstractCommodityDTO;
+import eu.deltasource.internship.hotel.dto.RoomDTO;
+import eu.deltasource.internship.hotel.repository.RoomRepository;
+import eu.deltasource.internship.hotel.service.RoomService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of a room transfer object, as posted to /rooms, into the model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoomConversionBenchmark {
+
+	private RoomService roomService;
+	private RoomDTO roomDTO;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		roomService = new RoomService(new RoomRepository());
+		// the commodity transfer objects have no setters, so they are read the way the controller reads them
+		ObjectMapper objectMapper = new ObjectMapper();
+		Set<AbstractCommodityDTO> commodities = new HashSet<>();
+		commodities.add(objectMapper.readValue("{\"@type\":\"Bed\",\"bedType\":\"DOUBLE\"}", AbstractCommodityDTO.class));
+		commodities.add(objectMapper.readValue("{\"@type\":\"Bed\",\"bedType\":\"SINGLE\"}", AbstractCommodityDTO.class));
+		commodities.add(objectMapper.readValue("{\"@type\":\"Toilet\"}", AbstractCommodityDTO.class));
+		commodities.add(objectMapper.readValue("{\"@type\":\"Shower\"}", AbstractCommodityDTO.class));
+		roomDTO = new RoomDTO(1, commodities);
+	}
+
+	@Benchmark
+	public Room convertDTORoomToModel() {
+		return roomService.convertDTORoomToModel(roomDTO);
+	}
+}
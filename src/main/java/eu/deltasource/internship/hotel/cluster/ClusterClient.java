@@ -0,0 +1,55 @@
+package eu.deltasource.internship.hotel.cluster;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends requests of the REST API to the nodes of the cluster.
+ * <p>
+ * The requests are marked as forwarded, so the receiving node handles
+ * them itself instead of routing them on.
+ */
+final class ClusterClient {
+
+	static final String FORWARDED_HEADER = "X-Hotel-Forwarded";
+
+	/**
+	 * Headers of the client, which are passed on with its requests
+	 */
+	static final List<String> END_TO_END_HEADERS = List.of("Content-Type", "If-Match", "If-None-Match");
+
+	private final ClusterTopology topology;
+	private final Duration timeout;
+	private final HttpClient client;
+
+	ClusterClient(ClusterTopology topology, Duration timeout) {
+		this.topology = topology;
+		this.timeout = timeout;
+		client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(timeout)
+			.build();
+	}
+
+	/**
+	 * @param pathAndQuery path of the request, followed by its query if any
+	 * @param headers      the {@link #END_TO_END_HEADERS} the client sent
+	 */
+	CompletableFuture<HttpResponse<byte[]>> send(int node, String method, String pathAndQuery,
+												 Map<String, String> headers, byte[] body) {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(topology.uriOf(node) + pathAndQuery))
+			.timeout(timeout)
+			.header(FORWARDED_HEADER, String.valueOf(topology.self()))
+			.method(method, body.length == 0
+				? HttpRequest.BodyPublishers.noBody()
+				: HttpRequest.BodyPublishers.ofByteArray(body));
+		headers.forEach(request::header);
+		return client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+	}
+}
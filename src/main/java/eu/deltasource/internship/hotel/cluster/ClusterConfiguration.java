@@ -0,0 +1,90 @@
+package eu.deltasource.internship.hotel.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.deltasource.internship.hotel.service.RemoteGuests;
+import eu.deltasource.internship.hotel.utility.BlockIdAllocator;
+import eu.deltasource.internship.hotel.utility.IdAllocatorFactory;
+import eu.deltasource.internship.hotel.utility.RangeIdAllocator;
+import eu.deltasource.internship.hotel.utility.SequentialIdAllocator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Wires the node into its cluster, or runs it standalone
+ * if no other nodes are configured
+ */
+@Configuration
+public class ClusterConfiguration {
+
+	/**
+	 * @param nodes base URLs of all nodes, comma separated, this one included
+	 * @param self  index of this node among them
+	 */
+	@Bean
+	public ClusterTopology clusterTopology(@Value("${hotel.cluster.nodes:}") String nodes,
+										   @Value("${hotel.cluster.self:0}") int self) {
+		if (nodes.trim().isEmpty()) {
+			return ClusterTopology.standalone();
+		}
+		List<URI> uris = Arrays.stream(nodes.split(","))
+			.map(String::trim)
+			.map(node -> URI.create(node.replaceAll("/+$", "")))
+			.collect(Collectors.toList());
+		return new ClusterTopology(uris, self);
+	}
+
+	/**
+	 * Ids from the range of this node, so they are unique in the cluster
+	 *
+	 * @param allocator how a standalone node hands out ids, sequential or block
+	 */
+	@Bean
+	public IdAllocatorFactory idAllocators(ClusterTopology topology,
+										   @Value("${hotel.ids.allocator:sequential}") String allocator) {
+		if (topology.isClustered()) {
+			return () -> new RangeIdAllocator(topology.firstId(), topology.lastId());
+		}
+		switch (allocator) {
+			case "sequential":
+				return SequentialIdAllocator::new;
+			case "block":
+				return BlockIdAllocator::new;
+			default:
+				throw new IllegalArgumentException("Unknown id allocator " + allocator + "!");
+		}
+	}
+
+	@Bean
+	ClusterClient clusterClient(ClusterTopology topology,
+								@Value("${hotel.cluster.timeout-millis:10000}") long timeout) {
+		return new ClusterClient(topology, Duration.ofMillis(timeout));
+	}
+
+	/**
+	 * The guests of the other nodes, which new bookings of the rooms
+	 * of this node are checked against
+	 */
+	@Bean
+	public RemoteGuests remoteGuests(ClusterTopology topology, ClusterClient client, ObjectMapper objectMapper) {
+		return topology.isClustered() ? new ClusterGuests(topology, client, objectMapper) : RemoteGuests.NONE;
+	}
+
+	@Bean
+	public FilterRegistrationBean<ClusterForwardingFilter> clusterForwarding(ClusterTopology topology,
+																			 ClusterClient client,
+																			 ObjectMapper objectMapper) {
+		FilterRegistrationBean<ClusterForwardingFilter> registration =
+			new FilterRegistrationBean<>(new ClusterForwardingFilter(topology, client, objectMapper));
+		registration.setEnabled(topology.isClustered());
+		registration.setAsyncSupported(true);
+		return registration;
+	}
+}
@@ -0,0 +1,270 @@
+package eu.deltasource.internship.hotel.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Routes the requests of the REST API through the cluster.
+ * <p>
+ * Requests which this node owns pass on to its controllers. All others
+ * are sent to their nodes without holding the request thread, and the
+ * replies are relayed or, for gathered lists, merged in id order.
+ */
+final class ClusterForwardingFilter extends OncePerRequestFilter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ClusterForwardingFilter.class);
+
+	private final ClusterTopology topology;
+	private final ClusterRouter router;
+	private final ClusterClient client;
+	private final ObjectMapper objectMapper;
+
+	ClusterForwardingFilter(ClusterTopology topology, ClusterClient client, ObjectMapper objectMapper) {
+		this.topology = topology;
+		this.router = new ClusterRouter(topology);
+		this.client = client;
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+		throws ServletException, IOException {
+		if (request.getHeader(ClusterClient.FORWARDED_HEADER) != null) {
+			chain.doFilter(request, response);
+			return;
+		}
+		byte[] body = request.getMethod().equals("GET")
+			? new byte[0]
+			: StreamUtils.copyToByteArray(request.getInputStream());
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		ClusterRouter.Route route = router.route(request.getMethod(), path, () -> parse(body));
+		CompletableFuture<Reply> reply;
+		switch (route.getKind()) {
+			case LOCAL:
+				chain.doFilter(body.length == 0 ? request : new BufferedRequest(request, body), response);
+				return;
+			case REJECT:
+				response.sendError(HttpStatus.BAD_REQUEST.value(), route.getDetail());
+				return;
+			case FORWARD:
+				reply = send(route.getNode(), request, body);
+				break;
+			case SCATTER:
+				reply = gather(request, route.getDetail());
+				break;
+			default:
+				reply = broadcast(request, body);
+				break;
+		}
+		AsyncContext async = request.startAsync();
+		async.setTimeout(0);
+		reply.whenComplete((result, error) -> {
+			try {
+				write(error == null ? result : unavailable(error), (HttpServletResponse) async.getResponse());
+			} catch (IOException e) {
+				LOGGER.debug("Cannot relay the reply of {}", path, e);
+			} finally {
+				async.complete();
+			}
+		});
+	}
+
+	private CompletableFuture<Reply> send(int node, HttpServletRequest request, byte[] body) {
+		String query = request.getQueryString();
+		Map<String, String> headers = new HashMap<>();
+		for (String header : ClusterClient.END_TO_END_HEADERS) {
+			if (request.getHeader(header) != null) {
+				headers.put(header, request.getHeader(header));
+			}
+		}
+		return client.send(node, request.getMethod(), request.getRequestURI() + (query == null ? "" : "?" + query),
+			headers, body).thenApply(Reply::of);
+	}
+
+	/**
+	 * Concatenates the lists of all nodes, ordered by id
+	 * and cut to the page size if there is one
+	 */
+	private CompletableFuture<Reply> gather(HttpServletRequest request, String idField) {
+		String limit = request.getParameter("limit");
+		List<CompletableFuture<Reply>> replies = sendToAll(request, new byte[0]);
+		return CompletableFuture.allOf(replies.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+			List<JsonNode> items = new ArrayList<>();
+			for (CompletableFuture<Reply> future : replies) {
+				Reply reply = future.join();
+				if (!reply.isSuccessful()) {
+					return reply;
+				}
+				JsonNode list = parse(reply.body);
+				if (list != null && list.isArray()) {
+					list.forEach(items::add);
+				}
+			}
+			items.sort(Comparator.comparingInt(item -> item.path(idField).asInt()));
+			if (limit != null && limit.matches("\\d+") && Integer.parseInt(limit) < items.size()) {
+				items = items.subList(0, Integer.parseInt(limit));
+			}
+			ArrayNode merged = objectMapper.createArrayNode().addAll(items);
+			try {
+				return new Reply(HttpStatus.OK.value(), MediaType.APPLICATION_JSON_VALUE, null,
+					objectMapper.writeValueAsBytes(merged));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	/**
+	 * Runs the request on all nodes, replying like this node
+	 * unless another one failed
+	 */
+	private CompletableFuture<Reply> broadcast(HttpServletRequest request, byte[] body) {
+		List<CompletableFuture<Reply>> replies = sendToAll(request, body);
+		return CompletableFuture.allOf(replies.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+			for (CompletableFuture<Reply> future : replies) {
+				if (!future.join().isSuccessful()) {
+					return future.join();
+				}
+			}
+			return replies.get(topology.self()).join();
+		});
+	}
+
+	/**
+	 * This node included, so its part is handled just like the others
+	 */
+	private List<CompletableFuture<Reply>> sendToAll(HttpServletRequest request, byte[] body) {
+		List<CompletableFuture<Reply>> replies = new ArrayList<>(topology.size());
+		for (int node = 0; node < topology.size(); node++) {
+			replies.add(send(node, request, body));
+		}
+		return replies;
+	}
+
+	private JsonNode parse(byte[] json) {
+		try {
+			return json.length == 0 ? null : objectMapper.readTree(json);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static Reply unavailable(Throwable error) {
+		LOGGER.warn("A cluster node did not reply", error);
+		return new Reply(HttpStatus.BAD_GATEWAY.value(), MediaType.TEXT_PLAIN_VALUE, null,
+			"A cluster node is unavailable".getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void write(Reply reply, HttpServletResponse response) throws IOException {
+		response.setStatus(reply.status);
+		if (reply.contentType != null) {
+			response.setContentType(reply.contentType);
+		}
+		if (reply.entityTag != null) {
+			response.setHeader(HttpHeaders.ETAG, reply.entityTag);
+		}
+		response.setContentLength(reply.body.length);
+		response.getOutputStream().write(reply.body);
+	}
+
+	private static final class Reply {
+		private final int status;
+		private final String contentType;
+		private final String entityTag;
+		private final byte[] body;
+
+		Reply(int status, String contentType, String entityTag, byte[] body) {
+			this.status = status;
+			this.contentType = contentType;
+			this.entityTag = entityTag;
+			this.body = body;
+		}
+
+		static Reply of(HttpResponse<byte[]> response) {
+			return new Reply(response.statusCode(), response.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElse(null),
+				response.headers().firstValue(HttpHeaders.ETAG).orElse(null), response.body());
+		}
+
+		boolean isSuccessful() {
+			return status < 300;
+		}
+	}
+
+	/**
+	 * Serves the body, which was read for routing, once more
+	 */
+	private static final class BufferedRequest extends HttpServletRequestWrapper {
+		private final byte[] body;
+
+		BufferedRequest(HttpServletRequest request, byte[] body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			ByteArrayInputStream input = new ByteArrayInputStream(body);
+			return new ServletInputStream() {
+				@Override
+				public boolean isFinished() {
+					return input.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setReadListener(ReadListener readListener) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public int read() {
+					return input.read();
+				}
+
+				@Override
+				public int read(byte[] buffer, int offset, int length) {
+					return input.read(buffer, offset, length);
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() {
+			return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package eu.deltasource.internship.hotel.cluster;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.domain.Guest;
+import eu.deltasource.internship.hotel.service.RemoteGuests;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reaches the guests of the other nodes through their REST API.
+ * <p>
+ * The requests are marked as forwarded, so a node answers them from
+ * its own repositories: the owner of a guest with the guest, every
+ * other node with the bookings of its rooms.
+ */
+final class ClusterGuests implements RemoteGuests {
+
+	private final ClusterTopology topology;
+	private final ClusterClient client;
+	private final ObjectMapper objectMapper;
+	private final JavaType guestType;
+	private final JavaType bookingsType;
+
+	ClusterGuests(ClusterTopology topology, ClusterClient client, ObjectMapper objectMapper) {
+		this.topology = topology;
+		this.client = client;
+		this.objectMapper = objectMapper;
+		guestType = objectMapper.constructType(Guest.class);
+		bookingsType = objectMapper.getTypeFactory().constructCollectionType(List.class, Booking.class);
+	}
+
+	@Override
+	public boolean isRemote(int guestId) {
+		return topology.ownerOf(guestId) != topology.self();
+	}
+
+	@Override
+	public Guest findById(int guestId) {
+		int owner = topology.ownerOf(guestId);
+		HttpResponse<byte[]> response = send(owner, "GET", "/guests/" + guestId).join();
+		if (response.statusCode() == HttpStatus.NOT_FOUND.value()) {
+			return null;
+		}
+		return read(owner, response, guestType);
+	}
+
+	@Override
+	public List<Booking> findBookings(int guestId, LocalDate from, LocalDate to) {
+		List<String> period = new ArrayList<>();
+		if (from != null) {
+			period.add("from=" + from);
+		}
+		if (to != null) {
+			period.add("to=" + to);
+		}
+		String query = period.isEmpty() ? "" : "?" + String.join("&", period);
+		List<CompletableFuture<HttpResponse<byte[]>>> replies = sendToOthers("GET", "/guests/" + guestId + "/bookings" + query);
+		List<Booking> bookings = new ArrayList<>();
+		for (int node = 0; node < replies.size(); node++) {
+			if (node != topology.self()) {
+				bookings.addAll(read(node, replies.get(node).join(), bookingsType));
+			}
+		}
+		return bookings;
+	}
+
+	@Override
+	public void deleteBookings(int guestId) {
+		List<CompletableFuture<HttpResponse<byte[]>>> replies = sendToOthers("DELETE", "/guests/" + guestId + "/bookings");
+		for (int node = 0; node < replies.size(); node++) {
+			if (node != topology.self()) {
+				requireSuccess(node, replies.get(node).join());
+			}
+		}
+	}
+
+	private CompletableFuture<HttpResponse<byte[]>> send(int node, String method, String path) {
+		return client.send(node, method, path, Collections.emptyMap(), new byte[0]);
+	}
+
+	/**
+	 * Sends the requests at once, the reply of this node is null
+	 */
+	private List<CompletableFuture<HttpResponse<byte[]>>> sendToOthers(String method, String path) {
+		List<CompletableFuture<HttpResponse<byte[]>>> replies = new ArrayList<>(topology.size());
+		for (int node = 0; node < topology.size(); node++) {
+			replies.add(node == topology.self() ? null : send(node, method, path));
+		}
+		return replies;
+	}
+
+	private <T> T read(int node, HttpResponse<byte[]> response, JavaType type) {
+		requireSuccess(node, response);
+		try {
+			return objectMapper.readValue(response.body(), type);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void requireSuccess(int node, HttpResponse<byte[]> response) {
+		if (response.statusCode() >= 300) {
+			throw new IllegalStateException("Cluster node " + node + " replied " + response.statusCode() + ": "
+				+ new String(response.body(), StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package eu.deltasource.internship.hotel.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.function.Supplier;
+
+/**
+ * Decides which nodes a request of the REST API goes to.
+ * <p>
+ * Requests for a single room, guest or booking go to the owner of its
+ * id, new bookings to the owner of their room. Rooms and guests are
+ * created on the node receiving them. Lists and the availability search
+ * are gathered from all nodes, and deleting everything is broadcast.
+ * Everything else, including the streams and the reports, is local.
+ */
+final class ClusterRouter {
+
+	private final ClusterTopology topology;
+
+	ClusterRouter(ClusterTopology topology) {
+		this.topology = topology;
+	}
+
+	/**
+	 * @param method HTTP method of the request
+	 * @param path   path of the request, without the query
+	 * @param body   the parsed request body, or null if it is missing or malformed
+	 */
+	Route route(String method, String path, Supplier<JsonNode> body) {
+		String[] segments = path.replaceAll("^/+|/+$", "").split("/+");
+		String resource = segments[0];
+		String idField;
+		switch (resource) {
+			case "bookings":
+				idField = "bookingId";
+				break;
+			case "rooms":
+				idField = "roomId";
+				break;
+			case "guests":
+				idField = "guestId";
+				break;
+			default:
+				return Route.LOCAL;
+		}
+		String action = segments.length > 1 ? segments[1] : "";
+		switch (method + " " + action) {
+			case "GET ":
+			case "GET available":
+				return Route.scatter(idField);
+			case "DELETE all":
+				return Route.BROADCAST;
+			case "POST ":
+				return resource.equals("bookings") ? ownerOfField(body.get(), "roomId") : Route.LOCAL;
+			case "POST multiple":
+				return resource.equals("bookings") ? ownerOfAll(body.get(), "roomId") : Route.LOCAL;
+			case "PUT ":
+			case "DELETE ":
+			case "PUT room":
+			case "DELETE guest":
+				return ownerOfField(body.get(), idField);
+			default:
+				return action.matches("\\d+") ? ownerOf(Integer.parseInt(action)) : Route.LOCAL;
+		}
+	}
+
+	private Route ownerOf(int id) {
+		int owner = topology.ownerOf(id);
+		return owner == topology.self() ? Route.LOCAL : Route.forward(owner);
+	}
+
+	private Route ownerOfField(JsonNode item, String field) {
+		if (item == null || !item.path(field).canConvertToInt()) {
+			return Route.LOCAL;
+		}
+		return ownerOf(item.get(field).asInt());
+	}
+
+	/**
+	 * A batch can only be saved at once by a single node
+	 */
+	private Route ownerOfAll(JsonNode items, String field) {
+		if (items == null || !items.isArray() || items.size() == 0) {
+			return Route.LOCAL;
+		}
+		Route first = ownerOfField(items.get(0), field);
+		for (JsonNode item : items) {
+			if (!ownerOfField(item, field).equals(first)) {
+				return Route.reject("All bookings of a batch must be for rooms of the same node!");
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Where a request goes
+	 */
+	static final class Route {
+
+		enum Kind {
+			LOCAL, FORWARD, SCATTER, BROADCAST, REJECT
+		}
+
+		static final Route LOCAL = new Route(Kind.LOCAL, -1, null);
+		static final Route BROADCAST = new Route(Kind.BROADCAST, -1, null);
+
+		private final Kind kind;
+		private final int node;
+		private final String detail;
+
+		private Route(Kind kind, int node, String detail) {
+			this.kind = kind;
+			this.node = node;
+			this.detail = detail;
+		}
+
+		static Route forward(int node) {
+			return new Route(Kind.FORWARD, node, null);
+		}
+
+		/**
+		 * @param idField field the gathered items are ordered by
+		 */
+		static Route scatter(String idField) {
+			return new Route(Kind.SCATTER, -1, idField);
+		}
+
+		static Route reject(String message) {
+			return new Route(Kind.REJECT, -1, message);
+		}
+
+		Kind getKind() {
+			return kind;
+		}
+
+		int getNode() {
+			return node;
+		}
+
+		/**
+		 * The id field of a scatter, or the message of a rejection
+		 */
+		String getDetail() {
+			return detail;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Route)) {
+				return false;
+			}
+			Route route = (Route) o;
+			return kind == route.kind && node == route.node;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * kind.hashCode() + node;
+		}
+
+		@Override
+		public String toString() {
+			return kind + (node >= 0 ? " " + node : "");
+		}
+	}
+}
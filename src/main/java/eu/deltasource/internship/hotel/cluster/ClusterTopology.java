@@ -0,0 +1,81 @@
+package eu.deltasource.internship.hotel.cluster;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The nodes of the cluster and the ids each of them owns.
+ * <p>
+ * The positive ids are split into one range per node. A node hands out
+ * the ids of the rooms, guests and bookings created on it from its own
+ * range only, so the owner of an item is known from its id alone. The
+ * bookings of a room are created on the owner of the room.
+ */
+public final class ClusterTopology {
+
+	private final List<URI> nodes;
+	private final int self;
+	private final int rangeSize;
+
+	/**
+	 * @param nodes base URLs of all nodes, in the same order on every node
+	 * @param self  index of this node
+	 */
+	public ClusterTopology(List<URI> nodes, int self) {
+		if (nodes.isEmpty() || self < 0 || self >= nodes.size()) {
+			throw new IllegalArgumentException("Invalid cluster node " + self + " of " + nodes.size() + "!");
+		}
+		this.nodes = Collections.unmodifiableList(nodes);
+		this.self = self;
+		rangeSize = Integer.MAX_VALUE / nodes.size();
+	}
+
+	/**
+	 * A single node without peers, owning all ids.
+	 */
+	public static ClusterTopology standalone() {
+		return new ClusterTopology(Collections.singletonList(URI.create("http://localhost")), 0);
+	}
+
+	public boolean isClustered() {
+		return nodes.size() > 1;
+	}
+
+	public int size() {
+		return nodes.size();
+	}
+
+	public int self() {
+		return self;
+	}
+
+	public URI uriOf(int node) {
+		return nodes.get(node);
+	}
+
+	/**
+	 * Returns the node owning the room, guest or booking with the given id.
+	 * Ids outside all ranges belong to this node, which then rejects them.
+	 */
+	public int ownerOf(int id) {
+		if (id <= 0) {
+			return self;
+		}
+		return Math.min((id - 1) / rangeSize, nodes.size() - 1);
+	}
+
+	/**
+	 * Lowest id owned by this node
+	 */
+	public int firstId() {
+		return self * rangeSize + 1;
+	}
+
+	/**
+	 * Highest id owned by this node
+	 */
+	public int lastId() {
+		return self == nodes.size() - 1 ? Integer.MAX_VALUE : (self + 1) * rangeSize;
+	}
+}
@@ -1,14 +1,19 @@
 package eu.deltasource.internship.hotel.controller;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.deltasource.internship.hotel.domain.Booking;
 import eu.deltasource.internship.hotel.service.BookingService;
 import eu.deltasource.internship.hotel.utility.Date;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/bookings")
@@ -17,48 +22,74 @@ public class BookingController {
 	@Autowired
 	private BookingService bookingService;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	@Qualifier("bookingRequests")
+	private RequestExecutor bookingRequests;
+
 	@PostMapping
-	public void save(@RequestBody Booking newBooking) {
-		bookingService.save(newBooking);
+	public CompletableFuture<Void> save(@RequestBody Booking newBooking) {
+		return bookingRequests.run(() -> bookingService.save(newBooking));
 	}
 
 	@PostMapping(value = "/multiple")
-	public void saveAll(@RequestBody List<Booking> bookings) {
-		bookingService.saveAll(bookings);
+	public CompletableFuture<Void> saveAll(@RequestBody List<Booking> bookings) {
+		return bookingRequests.run(() -> bookingService.saveAll(bookings));
 	}
 
 	@GetMapping
-	public List<Booking> findAll() {
-		return bookingService.findAll();
+	public CompletableFuture<List<Booking>> findAll() {
+		return bookingRequests.call(bookingService::findAll);
+	}
+
+	@GetMapping(params = "limit")
+	public CompletableFuture<List<Booking>> findPage(@RequestParam(value = "after", defaultValue = "0") int after,
+													 @RequestParam("limit") int limit) {
+		return bookingRequests.call(() -> bookingService.findPage(after, limit));
+	}
+
+	@GetMapping(value = "/stream", produces = NdjsonStream.MEDIA_TYPE)
+	public ResponseEntity<StreamingResponseBody> stream() {
+		return NdjsonStream.of(objectMapper, bookingService::findPage, Booking::getBookingId);
 	}
 
 	@GetMapping(value = "/{id}")
-	public Booking findById(@PathVariable("id") int id) {
-		return bookingService.findById(id);
+	public CompletableFuture<ResponseEntity<Booking>> findById(@PathVariable("id") int id) {
+		return bookingRequests.call(() -> {
+			Booking booking = bookingService.findById(id);
+			return EntityTags.tagged(booking, booking.getVersion());
+		});
 	}
 
 	@PutMapping(value = "/{id}/dates")
-	public void updateBookingByDates(@PathVariable("id") int bookingId, @RequestBody Date dates) {
-		bookingService.updateBookingByDates(bookingId, dates.getFrom(), dates.getTo());
+	public CompletableFuture<ResponseEntity<Void>> updateBookingByDates(@PathVariable("id") int bookingId,
+																		@RequestBody Date dates,
+																		@RequestHeader(value = EntityTags.IF_MATCH, required = false) String ifMatch) {
+		return bookingRequests.call(() -> EntityTags.tagged(bookingService.updateBookingByDates(bookingId,
+			dates.getFrom(), dates.getTo(), EntityTags.expectedVersion(ifMatch)).getVersion()));
 	}
 
 	@PutMapping(value = "/room")
-	public void updateBooking(@RequestBody Booking updatedBooking) {
-		bookingService.updateBooking(updatedBooking);
+	public CompletableFuture<ResponseEntity<Void>> updateBooking(@RequestBody Booking updatedBooking,
+																 @RequestHeader(value = EntityTags.IF_MATCH, required = false) String ifMatch) {
+		return bookingRequests.call(() -> EntityTags.tagged(bookingService.updateBooking(updatedBooking,
+			EntityTags.expectedVersion(ifMatch)).getVersion()));
 	}
 
 	@DeleteMapping(value = "/{id}")
-	public boolean deleteById(@PathVariable("id") int id) {
-		return bookingService.deleteById(id);
+	public CompletableFuture<Boolean> deleteById(@PathVariable("id") int id) {
+		return bookingRequests.call(() -> bookingService.deleteById(id));
 	}
 
 	@DeleteMapping
-	public boolean delete(@RequestBody Booking booking) {
-		return bookingService.delete(booking);
+	public CompletableFuture<Boolean> delete(@RequestBody Booking booking) {
+		return bookingRequests.call(() -> bookingService.delete(booking));
 	}
 
 	@DeleteMapping(value = "/all")
-	public void deleteAll() {
-		bookingService.deleteAll();
+	public CompletableFuture<Void> deleteAll() {
+		return bookingRequests.run(bookingService::deleteAll);
 	}
 }
@@ -0,0 +1,52 @@
+package eu.deltasource.internship.hotel.controller;
+
+import eu.deltasource.internship.hotel.repository.Versions;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Maps the versions of the items to HTTP entity tags.
+ * <p>
+ * Items are returned with their version as a strong ETag, and
+ * updates can send it back as If-Match, to fail with 412 if the
+ * item was changed in the meantime.
+ */
+final class EntityTags {
+
+	static final String IF_MATCH = "If-Match";
+
+	/**
+	 * Expected version of an If-Match which no version matches
+	 */
+	private static final int NONE = -1;
+
+	private EntityTags() {
+	}
+
+	static <T> ResponseEntity<T> tagged(T body, int version) {
+		return ResponseEntity.ok().eTag(String.valueOf(version)).body(body);
+	}
+
+	static ResponseEntity<Void> tagged(int version) {
+		return ResponseEntity.ok().eTag(String.valueOf(version)).build();
+	}
+
+	/**
+	 * Returns the version the If-Match header expects, {@link Versions#ANY}
+	 * if there is none or it is "*". Weak and several tags never match.
+	 */
+	static int expectedVersion(String ifMatch) {
+		if (ifMatch == null || ifMatch.trim().equals("*")) {
+			return Versions.ANY;
+		}
+		String tag = ifMatch.trim();
+		if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+			return NONE;
+		}
+		try {
+			int version = Integer.parseInt(tag.substring(1, tag.length() - 1));
+			return version > 0 ? version : NONE;
+		} catch (NumberFormatException e) {
+			return NONE;
+		}
+	}
+}
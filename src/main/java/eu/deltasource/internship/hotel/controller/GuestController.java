@@ -1,11 +1,19 @@
 package eu.deltasource.internship.hotel.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.deltasource.internship.hotel.domain.Booking;
 import eu.deltasource.internship.hotel.domain.Guest;
 import eu.deltasource.internship.hotel.service.GuestService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/guests")
@@ -14,43 +22,82 @@ public class GuestController {
 	@Autowired
 	private GuestService guestService;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	@Qualifier("guestRequests")
+	private RequestExecutor guestRequests;
+
 	@PostMapping(value = "/multiple")
-	public void saveAll(@RequestBody List<Guest> items) {
-		guestService.saveAll(items);
+	public CompletableFuture<Void> saveAll(@RequestBody List<Guest> items) {
+		return guestRequests.run(() -> guestService.saveAll(items));
 	}
 
 	@PostMapping
-	public void save(@RequestBody Guest guest) {
-		guestService.save(guest);
+	public CompletableFuture<Void> save(@RequestBody Guest guest) {
+		return guestRequests.run(() -> guestService.save(guest));
 	}
 
 	@GetMapping(value = "/{id}")
-	public Guest findById(@PathVariable("id") int id) {
-		return guestService.findById(id);
+	public CompletableFuture<ResponseEntity<Guest>> findById(@PathVariable("id") int id) {
+		return guestRequests.call(() -> {
+			Guest guest = guestService.findById(id);
+			return EntityTags.tagged(guest, guest.getVersion());
+		});
+	}
+
+	@GetMapping(value = "/{id}/bookings")
+	public CompletableFuture<List<Booking>> findBookings(@PathVariable("id") int id,
+														 @RequestParam(value = "from", required = false)
+														 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+														 @RequestParam(value = "to", required = false)
+														 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+		return guestRequests.call(() -> guestService.findBookings(id, from, to));
 	}
 
 	@GetMapping
-	public List<Guest> findAll() {
-		return guestService.findAll();
+	public CompletableFuture<List<Guest>> findAll() {
+		return guestRequests.call(guestService::findAll);
+	}
+
+	@GetMapping(params = "limit")
+	public CompletableFuture<List<Guest>> findPage(@RequestParam(value = "after", defaultValue = "0") int after,
+												   @RequestParam("limit") int limit) {
+		return guestRequests.call(() -> guestService.findPage(after, limit));
+	}
+
+	@GetMapping(value = "/stream", produces = NdjsonStream.MEDIA_TYPE)
+	public ResponseEntity<StreamingResponseBody> stream() {
+		return NdjsonStream.of(objectMapper, guestService::findPage, Guest::getGuestId);
 	}
 
 	@PutMapping
-	public Guest updateGuest(@RequestBody Guest guest) {
-		return guestService.updateGuest(guest);
+	public CompletableFuture<ResponseEntity<Guest>> updateGuest(@RequestBody Guest guest,
+																@RequestHeader(value = EntityTags.IF_MATCH, required = false) String ifMatch) {
+		return guestRequests.call(() -> {
+			Guest updated = guestService.updateGuest(guest, EntityTags.expectedVersion(ifMatch));
+			return EntityTags.tagged(updated, updated.getVersion());
+		});
 	}
 
 	@DeleteMapping(value = "/{id}")
-	public boolean deleteById(@PathVariable("id") int id) {
-		return guestService.deleteById(id);
+	public CompletableFuture<Boolean> deleteById(@PathVariable("id") int id) {
+		return guestRequests.call(() -> guestService.deleteById(id));
+	}
+
+	@DeleteMapping(value = "/{id}/bookings")
+	public CompletableFuture<Void> deleteBookings(@PathVariable("id") int id) {
+		return guestRequests.run(() -> guestService.deleteBookings(id));
 	}
 
 	@DeleteMapping(value = "/all")
-	public void deleteAll() {
-		guestService.deleteAll();
+	public CompletableFuture<Void> deleteAll() {
+		return guestRequests.run(guestService::deleteAll);
 	}
 
 	@DeleteMapping(value = "/guest")
-	public boolean deleteGuest(@RequestBody Guest guest) {
-		return guestService.deleteGuest(guest);
+	public CompletableFuture<Boolean> deleteGuest(@RequestBody Guest guest) {
+		return guestRequests.call(() -> guestService.deleteGuest(guest));
 	}
 }
@@ -0,0 +1,60 @@
+package eu.deltasource.internship.hotel.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Writes a whole table as newline delimited JSON, one item per line.
+ * <p>
+ * The table is read page by page through its id cursor and each page
+ * is flushed once, before the next one is read, so the memory used does
+ * not depend on the size of the table.
+ */
+final class NdjsonStream {
+
+	static final String MEDIA_TYPE = "application/x-ndjson";
+	private static final MediaType CONTENT_TYPE = MediaType.parseMediaType(MEDIA_TYPE);
+	private static final int PAGE_SIZE = 1000;
+
+	private NdjsonStream() {
+	}
+
+	static <T> ResponseEntity<StreamingResponseBody> of(ObjectMapper objectMapper, PageReader<T> pageReader,
+														ToIntFunction<T> idOf) {
+		// the mapper would flush after every item
+		ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		StreamingResponseBody body = outputStream -> {
+			JsonGenerator generator = writer.createGenerator(outputStream)
+				.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+				.setRootValueSeparator(null);
+			int afterId = 0;
+			List<T> page;
+			do {
+				page = pageReader.read(afterId, PAGE_SIZE);
+				for (T item : page) {
+					writer.writeValue(generator, item);
+					generator.writeRaw('\n');
+				}
+				generator.flush();
+				if (!page.isEmpty()) {
+					afterId = idOf.applyAsInt(page.get(page.size() - 1));
+				}
+			} while (page.size() == PAGE_SIZE);
+			generator.close();
+		};
+		return ResponseEntity.ok().contentType(CONTENT_TYPE).body(body);
+	}
+
+	@FunctionalInterface
+	interface PageReader<T> {
+		List<T> read(int afterId, int limit);
+	}
+}
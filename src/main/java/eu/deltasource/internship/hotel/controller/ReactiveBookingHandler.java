@@ -0,0 +1,100 @@
+package eu.deltasource.internship.hotel.controller;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.exception.ArgumentNotValidException;
+import eu.deltasource.internship.hotel.exception.BookingOverlappingException;
+import eu.deltasource.internship.hotel.exception.FailedInitializationException;
+import eu.deltasource.internship.hotel.exception.ItemNotFoundException;
+import eu.deltasource.internship.hotel.exception.VersionConflictException;
+import eu.deltasource.internship.hotel.service.BookingService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Non-blocking variant of the booking API.
+ * <p>
+ * All bookings are streamed as NDJSON, read page by page only as fast
+ * as the client takes them, so a slow client neither holds a thread
+ * nor makes the server buffer the whole result. New bookings are saved
+ * on the single-writer lane of their room, and the response is sent once
+ * they are durable. Invalid bookings are answered with a 4xx status.
+ */
+final class ReactiveBookingHandler {
+
+	static final int PAGE_SIZE = 256;
+
+	private final BookingService bookingService;
+	private final RoomWriteLanes lanes;
+
+	ReactiveBookingHandler(BookingService bookingService, RoomWriteLanes lanes) {
+		this.bookingService = bookingService;
+		this.lanes = lanes;
+	}
+
+	RouterFunction<ServerResponse> routes() {
+		return RouterFunctions.route()
+			.GET("/bookings", this::findAll)
+			.POST("/bookings", this::save)
+			.build();
+	}
+
+	Mono<ServerResponse> findAll(ServerRequest request) {
+		return ServerResponse.ok()
+			.contentType(MediaType.APPLICATION_NDJSON)
+			.body(findAll(), Booking.class);
+	}
+
+	Mono<ServerResponse> save(ServerRequest request) {
+		return request.bodyToMono(Booking.class)
+			.flatMap(booking -> lanes.call(booking.getRoomId(), () -> bookingService.saveAsync(booking)))
+			.then(ServerResponse.ok().build())
+			.onErrorResume(ReactiveBookingHandler::isRejected,
+				error -> ServerResponse.status(statusOf(error))
+					.contentType(MediaType.TEXT_PLAIN)
+					.bodyValue(String.valueOf(error.getMessage())));
+	}
+
+	private static boolean isRejected(Throwable error) {
+		return statusOf(error) != null;
+	}
+
+	/**
+	 * Status of the domain exceptions, null for the ones which are server errors
+	 */
+	private static HttpStatus statusOf(Throwable error) {
+		if (error instanceof ItemNotFoundException) {
+			return HttpStatus.NOT_FOUND;
+		} else if (error instanceof BookingOverlappingException) {
+			return HttpStatus.CONFLICT;
+		} else if (error instanceof VersionConflictException) {
+			return HttpStatus.PRECONDITION_FAILED;
+		} else if (error instanceof FailedInitializationException || error instanceof ArgumentNotValidException) {
+			return HttpStatus.BAD_REQUEST;
+		}
+		return null;
+	}
+
+	/**
+	 * Pulls the next keyset page only when the subscriber asks for more
+	 */
+	private Flux<Booking> findAll() {
+		return Flux.<List<Booking>, Integer>generate(() -> 0, (afterId, sink) -> {
+			List<Booking> page = bookingService.findPage(afterId, PAGE_SIZE);
+			if (page.isEmpty()) {
+				sink.complete();
+				return afterId;
+			}
+			sink.next(page);
+			return page.get(page.size() - 1).getBookingId();
+		}).concatMapIterable(Function.identity(), 1);
+	}
+}
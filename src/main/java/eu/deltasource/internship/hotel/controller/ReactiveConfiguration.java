@@ -0,0 +1,51 @@
+package eu.deltasource.internship.hotel.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.deltasource.internship.hotel.service.BookingService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ServletHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+/**
+ * Serves the WebFlux routes under /reactive, next to the MVC controllers.
+ * <p>
+ * The routes run in the same servlet container, through a servlet
+ * adapter, which reads and writes with non-blocking servlet I/O.
+ */
+@Configuration
+public class ReactiveConfiguration {
+
+	/**
+	 * @param count number of lanes, one per core if not positive
+	 */
+	@Bean
+	RoomWriteLanes roomWriteLanes(@Value("${hotel.reactive.write-lanes:0}") int count) {
+		return new RoomWriteLanes(count > 0 ? count : Runtime.getRuntime().availableProcessors());
+	}
+
+	@Bean
+	public ServletRegistrationBean<ServletHttpHandlerAdapter> reactiveServlet(BookingService bookingService,
+																			  RoomWriteLanes roomWriteLanes,
+																			  ObjectMapper objectMapper) {
+		HandlerStrategies strategies = HandlerStrategies.builder()
+			.codecs(codecs -> {
+				codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+				codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+			})
+			.build();
+		ReactiveBookingHandler bookings = new ReactiveBookingHandler(bookingService, roomWriteLanes);
+		ServletHttpHandlerAdapter adapter = new ServletHttpHandlerAdapter(
+			RouterFunctions.toHttpHandler(bookings.routes(), strategies));
+		ServletRegistrationBean<ServletHttpHandlerAdapter> registration =
+			new ServletRegistrationBean<>(adapter, "/reactive/*");
+		registration.setAsyncSupported(true);
+		registration.setLoadOnStartup(1);
+		return registration;
+	}
+}
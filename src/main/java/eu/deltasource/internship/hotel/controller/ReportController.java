@@ -0,0 +1,35 @@
+package eu.deltasource.internship.hotel.controller;
+
+import eu.deltasource.internship.hotel.domain.LiveOccupancy;
+import eu.deltasource.internship.hotel.domain.OccupancyReport;
+import eu.deltasource.internship.hotel.service.OccupancyCounters;
+import eu.deltasource.internship.hotel.service.ReportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/reports")
+public class ReportController {
+
+	@Autowired
+	private ReportService reportService;
+
+	@Autowired
+	private OccupancyCounters occupancyCounters;
+
+	@GetMapping(value = "/occupancy")
+	public OccupancyReport findOccupancy(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+										 @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+										 @RequestParam(value = "groupBy", defaultValue = ReportService.BY_DAY) String groupBy) {
+		return reportService.findOccupancy(from, to, groupBy);
+	}
+
+	@GetMapping(value = "/occupancy/live")
+	public LiveOccupancy findLiveOccupancy(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+										   @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+		return occupancyCounters.findOccupancy(from, to);
+	}
+}
@@ -0,0 +1,34 @@
+package eu.deltasource.internship.hotel.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wires how the handler methods of each controller are run -
+ * on the request thread or on a bounded pool
+ */
+@Configuration
+public class RequestExecutionConfiguration {
+
+	@Value("${hotel.web.execution.threads:64}")
+	private int threads;
+
+	@Value("${hotel.web.execution.queue-size:10000}")
+	private int queueSize;
+
+	@Bean
+	RequestExecutor bookingRequests(@Value("${hotel.web.execution.bookings:blocking}") String mode) {
+		return RequestExecutor.of("bookings", mode, threads, queueSize);
+	}
+
+	@Bean
+	RequestExecutor guestRequests(@Value("${hotel.web.execution.guests:blocking}") String mode) {
+		return RequestExecutor.of("guests", mode, threads, queueSize);
+	}
+
+	@Bean
+	RequestExecutor roomRequests(@Value("${hotel.web.execution.rooms:blocking}") String mode) {
+		return RequestExecutor.of("rooms", mode, threads, queueSize);
+	}
+}
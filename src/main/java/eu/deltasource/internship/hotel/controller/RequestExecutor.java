@@ -0,0 +1,79 @@
+package eu.deltasource.internship.hotel.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the handler methods of a controller.
+ * <p>
+ * In the blocking mode the work is done on the request thread. In the
+ * bounded mode it is handed to a fixed pool with a bounded queue, so the
+ * request thread goes back to the container while the work waits for
+ * locks, and the response is written once the future completes. Requests
+ * which find the queue full are answered with 503 Service Unavailable.
+ */
+final class RequestExecutor implements AutoCloseable {
+
+	static final String BLOCKING = "blocking";
+	static final String BOUNDED = "bounded";
+
+	private final ExecutorService executor;
+
+	private RequestExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * @param name      prefix of the names of the pool threads
+	 * @param mode      blocking or bounded
+	 * @param threads   size of the bounded pool
+	 * @param queueSize number of requests the bounded pool may hold back
+	 */
+	static RequestExecutor of(String name, String mode, int threads, int queueSize) {
+		switch (mode) {
+			case BLOCKING:
+				return new RequestExecutor(null);
+			case BOUNDED:
+				AtomicInteger threadCount = new AtomicInteger();
+				return new RequestExecutor(new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(queueSize),
+					runnable -> new Thread(runnable, name + "-" + threadCount.incrementAndGet())));
+			default:
+				throw new IllegalArgumentException("Unknown request execution " + mode + "!");
+		}
+	}
+
+	<T> CompletableFuture<T> call(Supplier<T> action) {
+		if (executor == null) {
+			return CompletableFuture.completedFuture(action.get());
+		}
+		try {
+			return CompletableFuture.supplyAsync(action, executor);
+		} catch (RejectedExecutionException e) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many requests!", e);
+		}
+	}
+
+	CompletableFuture<Void> run(Runnable action) {
+		return call(() -> {
+			action.run();
+			return null;
+		});
+	}
+
+	@Override
+	public void close() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+}
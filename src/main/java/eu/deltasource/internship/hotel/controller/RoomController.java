@@ -1,12 +1,20 @@
 package eu.deltasource.internship.hotel.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.deltasource.internship.hotel.domain.Room;
+import eu.deltasource.internship.hotel.service.AvailabilityService;
 import eu.deltasource.internship.hotel.service.RoomService;
 import eu.deltasource.internship.hotel.dto.RoomDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/rooms")
@@ -15,43 +23,79 @@ public class RoomController {
 	@Autowired
 	private RoomService roomService;
 
+	@Autowired
+	private AvailabilityService availabilityService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	@Qualifier("roomRequests")
+	private RequestExecutor roomRequests;
+
 	@PostMapping
-	public Room saveRoom(@RequestBody RoomDTO room) {
-		return roomService.saveRoom(roomService.convertDTORoomToModel(room));
+	public CompletableFuture<Room> saveRoom(@RequestBody RoomDTO room) {
+		return roomRequests.call(() -> roomService.saveRoom(roomService.convertDTORoomToModel(room)));
 	}
 
 	@PostMapping(value = "/list")
-	public List<Room> saveRooms(@RequestBody List<RoomDTO> rooms) {
-		return roomService.saveRooms(roomService.convertDTORoomsToModel(rooms));
+	public CompletableFuture<List<Room>> saveRooms(@RequestBody List<RoomDTO> rooms) {
+		return roomRequests.call(() -> roomService.saveRooms(roomService.convertDTORoomsToModel(rooms)));
 	}
 
 	@GetMapping(value = "/{id}")
-	public Room getRoomById(@PathVariable("id") int id) {
-		return roomService.getRoomById(id);
+	public CompletableFuture<ResponseEntity<Room>> getRoomById(@PathVariable("id") int id) {
+		return roomRequests.call(() -> {
+			Room room = roomService.getRoomById(id);
+			return EntityTags.tagged(room, room.getVersion());
+		});
 	}
 
 	@GetMapping
-	public List<Room> findRooms() {
-		return roomService.findRooms();
+	public CompletableFuture<List<Room>> findRooms() {
+		return roomRequests.call(roomService::findRooms);
+	}
+
+	@GetMapping(params = "limit")
+	public CompletableFuture<List<Room>> findRooms(@RequestParam(value = "after", defaultValue = "0") int after,
+												   @RequestParam("limit") int limit) {
+		return roomRequests.call(() -> roomService.findPage(after, limit));
+	}
+
+	@GetMapping(value = "/stream", produces = NdjsonStream.MEDIA_TYPE)
+	public ResponseEntity<StreamingResponseBody> stream() {
+		return NdjsonStream.of(objectMapper, roomService::findPage, Room::getRoomId);
+	}
+
+	@GetMapping(value = "/available")
+	public CompletableFuture<List<Room>> findAvailableRooms(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+															@RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+															@RequestParam(value = "people", defaultValue = "1") int people) {
+		return roomRequests.call(() -> availabilityService.findAvailableRooms(from, to, people));
 	}
 
 	@PutMapping
-	public Room updateRoom(@RequestBody RoomDTO room) {
-		return roomService.updateRoom(roomService.convertDTORoomToModel(room));
+	public CompletableFuture<ResponseEntity<Room>> updateRoom(@RequestBody RoomDTO room,
+															  @RequestHeader(value = EntityTags.IF_MATCH, required = false) String ifMatch) {
+		return roomRequests.call(() -> {
+			Room updated = roomService.updateRoom(roomService.convertDTORoomToModel(room),
+				EntityTags.expectedVersion(ifMatch));
+			return EntityTags.tagged(updated, updated.getVersion());
+		});
 	}
 
 	@DeleteMapping
-	public boolean deleteRoom(@RequestBody RoomDTO room) {
-		return roomService.deleteRoom(roomService.convertDTORoomToModel(room));
+	public CompletableFuture<Boolean> deleteRoom(@RequestBody RoomDTO room) {
+		return roomRequests.call(() -> roomService.deleteRoom(roomService.convertDTORoomToModel(room)));
 	}
 
 	@DeleteMapping(value = "/{id}")
-	public boolean deleteRoomById(@PathVariable("id") int id) {
-		return roomService.deleteRoomById(id);
+	public CompletableFuture<Boolean> deleteRoomById(@PathVariable("id") int id) {
+		return roomRequests.call(() -> roomService.deleteRoomById(id));
 	}
 
 	@DeleteMapping(value = "/all")
-	public void deleteAll() {
-		roomService.deleteAll();
+	public CompletableFuture<Void> deleteAll() {
+		return roomRequests.run(roomService::deleteAll);
 	}
 }
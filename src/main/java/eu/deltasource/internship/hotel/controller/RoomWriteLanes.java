@@ -0,0 +1,44 @@
+package eu.deltasource.internship.hotel.controller;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer lanes for the bookings of the rooms.
+ * <p>
+ * Every room belongs to one lane, which runs the writes for its rooms
+ * one after the other on its own thread. Writes for the same room thus
+ * never wait for each other's locks, while rooms of other lanes are
+ * written in parallel, and no request thread is held while they wait.
+ * A lane only starts the writes, it does not wait for them to be durable.
+ */
+final class RoomWriteLanes implements AutoCloseable {
+
+	private final Scheduler[] lanes;
+
+	RoomWriteLanes(int count) {
+		lanes = new Scheduler[count];
+		for (int i = 0; i < count; i++) {
+			lanes[i] = Schedulers.newSingle("booking-lane-" + i);
+		}
+	}
+
+	/**
+	 * Starts the write on the lane of the room, once subscribed to,
+	 * and emits its result when the returned future completes
+	 */
+	<T> Mono<T> call(int roomId, Supplier<CompletableFuture<T>> write) {
+		return Mono.fromFuture(write).subscribeOn(lanes[Math.floorMod(roomId, lanes.length)]);
+	}
+
+	@Override
+	public void close() {
+		for (Scheduler lane : lanes) {
+			lane.dispose();
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package eu.deltasource.internship.hotel.domain;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import eu.deltasource.internship.hotel.exception.FailedInitializationException;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.time.LocalDate;
@@ -17,12 +19,29 @@ public class Booking {
 	private int numberOfPeople;
 	private LocalDate from;
 	private LocalDate to;
+	private final int version;
+	@Getter(AccessLevel.NONE)
+	private boolean readOnly;
 
+	/**
+	 * Creates a booking without a version. Requests
+	 * bind to this one, their version comes as If-Match.
+	 */
+	@JsonCreator
 	public Booking(int bookingId, int guestId, int roomId, int numberOfPeople, LocalDate from, LocalDate to) {
+		this(bookingId, guestId, roomId, numberOfPeople, from, to, 0);
+	}
+
+	/**
+	 * @param version version of the stored booking, 0 if it is not stored
+	 */
+	public Booking(int bookingId, int guestId, int roomId, int numberOfPeople, LocalDate from, LocalDate to,
+				   int version) {
 		this.bookingId = bookingId;
 		this.guestId = guestId;
 		this.roomId = roomId;
 		this.numberOfPeople = numberOfPeople;
+		this.version = version;
 		setBookingDates(from, to);
 	}
 
@@ -35,10 +54,19 @@ public class Booking {
 		this.guestId = booking.guestId;
 		this.roomId = booking.roomId;
 		this.numberOfPeople = booking.numberOfPeople;
+		this.version = booking.version;
 		setBookingDates(booking.from, booking.to);
 	}
 
+	/**
+	 * Returns a new booking, which differs from this one only in its dates.
+	 */
+	public Booking withDates(LocalDate from, LocalDate to) {
+		return new Booking(bookingId, guestId, roomId, numberOfPeople, from, to, version);
+	}
+
 	public void setBookingDates(LocalDate from, LocalDate to) {
+		checkWritable();
 		try {
 			if (from.isAfter(to) || to.equals(from)) {
 				throw new FailedInitializationException("Invalid dates given!");
@@ -50,6 +78,23 @@ public class Booking {
 		}
 	}
 
+	/**
+	 * Makes this booking read-only, so that it can be shared without
+	 * copies. A changed booking is then a new instance.
+	 *
+	 * @return this booking
+	 */
+	public Booking makeReadOnly() {
+		readOnly = true;
+		return this;
+	}
+
+	private void checkWritable() {
+		if (readOnly) {
+			throw new IllegalStateException("A read-only booking can not be changed!");
+		}
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj) {
@@ -1,5 +1,6 @@
 package eu.deltasource.internship.hotel.domain;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import eu.deltasource.internship.hotel.exception.FailedInitializationException;
 import lombok.*;
 
@@ -14,10 +15,26 @@ public class Guest {
 	private Gender gender;
 	private String firstName;
 	private String lastName;
+	private final int version;
+	@Getter(AccessLevel.NONE)
+	private boolean readOnly;
 
+	/**
+	 * Creates a guest without a version. Requests
+	 * bind to this one, their version comes as If-Match.
+	 */
+	@JsonCreator
 	public Guest(int guestId, String firstName, String lastName, Gender gender) {
+		this(guestId, firstName, lastName, gender, 0);
+	}
+
+	/**
+	 * @param version version of the stored guest, 0 if it is not stored
+	 */
+	public Guest(int guestId, String firstName, String lastName, Gender gender, int version) {
 		this.guestId = guestId;
 		this.gender = gender;
+		this.version = version;
 		initializeNamesAndNullChecks(firstName, lastName);
 	}
 
@@ -28,6 +45,7 @@ public class Guest {
 	public Guest(Guest guest) {
 		guestId = guest.guestId;
 		gender = guest.gender;
+		version = guest.version;
 		initializeNamesAndNullChecks(guest.firstName, guest.lastName);
 	}
 
@@ -58,10 +76,29 @@ public class Guest {
 	}
 
 	public void changeFirstAndLastNames(String firstName, String lastName) {
+		checkWritable();
 		initializeNamesAndNullChecks(firstName, lastName);
 	}
 
 	public void changeGender(Gender gender) {
+		checkWritable();
 		this.gender = gender;
 	}
+
+	/**
+	 * Makes this guest read-only, so that it can be shared without
+	 * copies. A changed guest is then a new instance.
+	 *
+	 * @return this guest
+	 */
+	public Guest makeReadOnly() {
+		readOnly = true;
+		return this;
+	}
+
+	private void checkWritable() {
+		if (readOnly) {
+			throw new IllegalStateException("A read-only guest can not be changed!");
+		}
+	}
 }
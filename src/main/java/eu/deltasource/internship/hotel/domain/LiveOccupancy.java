@@ -0,0 +1,28 @@
+package eu.deltasource.internship.hotel.domain;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Represents the booked room-nights and bed-nights
+ * over the period [from, to)
+ */
+@Getter
+public class LiveOccupancy {
+
+	private final LocalDate from;
+
+	private final LocalDate to;
+
+	private final long roomNights;
+
+	private final long bedNights;
+
+	public LiveOccupancy(LocalDate from, LocalDate to, long roomNights, long bedNights) {
+		this.from = from;
+		this.to = to;
+		this.roomNights = roomNights;
+		this.bedNights = bedNights;
+	}
+}
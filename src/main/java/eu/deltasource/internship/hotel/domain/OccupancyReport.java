@@ -0,0 +1,55 @@
+package eu.deltasource.internship.hotel.domain;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Represents the occupancy of the rooms over the period [from, to),
+ * grouped by day, by room capacity or by bed type
+ */
+@Getter
+public class OccupancyReport {
+
+	private final LocalDate from;
+
+	private final LocalDate to;
+
+	private final String groupBy;
+
+	private final List<Row> rows;
+
+	public OccupancyReport(LocalDate from, LocalDate to, String groupBy, List<Row> rows) {
+		this.from = from;
+		this.to = to;
+		this.groupBy = groupBy;
+		this.rows = rows;
+	}
+
+	/**
+	 * Occupancy of one group - the booked room-nights
+	 * out of all room-nights of its rooms
+	 */
+	@Getter
+	public static class Row {
+
+		private final String key;
+
+		private final int rooms;
+
+		private final long roomNights;
+
+		private final long bookedNights;
+
+		private final double occupancyRate;
+
+		public Row(String key, int rooms, long roomNights, long bookedNights) {
+			this.key = key;
+			this.rooms = rooms;
+			this.roomNights = roomNights;
+			this.bookedNights = bookedNights;
+			this.occupancyRate = roomNights == 0 ? 0 : (double) bookedNights / roomNights;
+		}
+	}
+}
@@ -6,6 +6,7 @@ import eu.deltasource.internship.hotel.domain.commodity.Bed;
 
 import eu.deltasource.internship.hotel.exception.FailedInitializationException;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.util.Collections;
@@ -23,16 +24,27 @@ public class Room {
 	private int roomId;
 	private int roomCapacity;
 	private final Set<AbstractCommodity> commodities;
+	private final int version;
+	@Getter(AccessLevel.NONE)
+	private boolean readOnly;
 
 
 	public Room(int roomId, Set<AbstractCommodity> commodities) {
+		this(roomId, commodities, 0);
+	}
+
+	/**
+	 * @param version version of the stored room, 0 if it is not stored
+	 */
+	public Room(int roomId, Set<AbstractCommodity> commodities, int version) {
 		this.roomId = roomId;
+		this.version = version;
 		this.commodities = new HashSet<>();
 		updateCommodities(commodities);
 	}
 
 	public Room(Room room) {
-		this(room.roomId, room.getCommodities());
+		this(room.roomId, room.getCommodities(), room.version);
 	}
 
 	public Set<AbstractCommodity> getCommodities() {
@@ -52,6 +64,7 @@ public class Room {
 	}
 
 	public void updateCommodities(Set<AbstractCommodity> commodities) {
+		checkWritable();
 		if (commodities == null || commodities.isEmpty()) {
 			throw new FailedInitializationException("Room has no commodities!");
 		}
@@ -60,6 +73,23 @@ public class Room {
 		roomCapacitySetter();
 	}
 
+	/**
+	 * Makes this room read-only, so that it can be shared without
+	 * copies. A changed room is then a new instance.
+	 *
+	 * @return this room
+	 */
+	public Room makeReadOnly() {
+		readOnly = true;
+		return this;
+	}
+
+	private void checkWritable() {
+		if (readOnly) {
+			throw new IllegalStateException("A read-only room can not be changed!");
+		}
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj) {
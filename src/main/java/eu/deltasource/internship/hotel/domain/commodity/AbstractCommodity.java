@@ -1,5 +1,7 @@
 package eu.deltasource.internship.hotel.domain.commodity;
 
+import eu.deltasource.internship.hotel.utility.IdAllocator;
+import eu.deltasource.internship.hotel.utility.SequentialIdAllocator;
 import lombok.Getter;
 import org.springframework.stereotype.Component;
 
@@ -9,10 +11,10 @@ public abstract class AbstractCommodity {
 	@Getter
 	protected final int inventoryId;
 
-	private static int inventoryCount;
+	private static final IdAllocator INVENTORY_IDS = new SequentialIdAllocator();
 
 	public AbstractCommodity() {
-		this.inventoryId = ++inventoryCount;
+		this.inventoryId = INVENTORY_IDS.nextId();
 	}
 
 	public abstract void prepare();
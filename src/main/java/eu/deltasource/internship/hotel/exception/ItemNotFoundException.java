@@ -1,8 +1,12 @@
 package eu.deltasource.internship.hotel.exception;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
 /**
  * Represents exception for missing arguments
  */
+@ResponseStatus(HttpStatus.NOT_FOUND)
 public class ItemNotFoundException extends RuntimeException {
 
     public ItemNotFoundException() {
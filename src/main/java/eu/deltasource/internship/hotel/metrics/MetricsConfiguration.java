@@ -0,0 +1,47 @@
+package eu.deltasource.internship.hotel.metrics;
+
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.repository.GuestRepository;
+import eu.deltasource.internship.hotel.repository.RoomRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wires the metrics of the services and repositories,
+ * which are scraped from /actuator/prometheus
+ */
+@Configuration
+public class MetricsConfiguration {
+
+	@Bean
+	public OperationMetricsAspect operationMetricsAspect(MeterRegistry registry) {
+		return new OperationMetricsAspect(registry);
+	}
+
+	/**
+	 * Sizes of the repositories and the work done by the overlap checks
+	 */
+	@Bean
+	public MeterBinder repositoryMetrics(GuestRepository guestRepository, RoomRepository roomRepository,
+										 BookingRepository bookingRepository) {
+		return registry -> {
+			Gauge.builder("hotel.repository.size", guestRepository, GuestRepository::count)
+				.tag("repository", "guests")
+				.register(registry);
+			Gauge.builder("hotel.repository.size", roomRepository, RoomRepository::count)
+				.tag("repository", "rooms")
+				.register(registry);
+			Gauge.builder("hotel.repository.size", bookingRepository, BookingRepository::count)
+				.tag("repository", "bookings")
+				.register(registry);
+			DistributionSummary visitedIntervals = DistributionSummary.builder("hotel.booking.overlap.visited")
+				.description("booking intervals looked at by an overlap check")
+				.register(registry);
+			bookingRepository.onOverlapChecks(visitedIntervals::record);
+		};
+	}
+}
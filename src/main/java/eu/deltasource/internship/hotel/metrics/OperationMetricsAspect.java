@@ -0,0 +1,74 @@
+package eu.deltasource.internship.hotel.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public method of the services and repositories.
+ * <p>
+ * The latencies are recorded as percentile histograms, tagged with the
+ * class, the method and the exception thrown, if any. Exceptions are
+ * counted once per call from outside, where they leave the outermost
+ * advised method, however many layers they passed on their way.
+ */
+@Aspect
+public class OperationMetricsAspect {
+
+	static final String OPERATION_TIMER = "hotel.operation";
+	static final String EXCEPTION_COUNTER = "hotel.exceptions";
+	private static final String NONE = "none";
+
+	private final MeterRegistry registry;
+	private final ConcurrentMap<Method, Timer> timers = new ConcurrentHashMap<>();
+	private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+	public OperationMetricsAspect(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Around("execution(public * eu.deltasource.internship.hotel.service.*Service.*(..))"
+		+ " || execution(public * eu.deltasource.internship.hotel.repository.*Repository.*(..))")
+	public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+		Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+		int[] calls = depth.get();
+		calls[0]++;
+		long start = System.nanoTime();
+		try {
+			Object result = joinPoint.proceed();
+			successTimerOf(method).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			return result;
+		} catch (Throwable e) {
+			String exception = e.getClass().getSimpleName();
+			timerOf(method, exception).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			if (calls[0] == 1) {
+				registry.counter(EXCEPTION_COUNTER, "exception", exception).increment();
+			}
+			throw e;
+		} finally {
+			calls[0]--;
+		}
+	}
+
+	private Timer successTimerOf(Method method) {
+		Timer timer = timers.get(method);
+		return timer != null ? timer : timers.computeIfAbsent(method, key -> timerOf(key, NONE));
+	}
+
+	private Timer timerOf(Method method, String exception) {
+		return Timer.builder(OPERATION_TIMER)
+			.tag("class", method.getDeclaringClass().getSimpleName())
+			.tag("method", method.getName())
+			.tag("exception", exception)
+			.publishPercentileHistogram()
+			.register(registry);
+	}
+}
@@ -0,0 +1,250 @@
+package eu.deltasource.internship.hotel.persistence;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.domain.Gender;
+import eu.deltasource.internship.hotel.domain.Guest;
+import eu.deltasource.internship.hotel.domain.Room;
+import eu.deltasource.internship.hotel.domain.commodity.AbstractCommodity;
+import eu.deltasource.internship.hotel.domain.commodity.Bed;
+import eu.deltasource.internship.hotel.domain.commodity.BedType;
+import eu.deltasource.internship.hotel.domain.commodity.Shower;
+import eu.deltasource.internship.hotel.domain.commodity.Toilet;
+import eu.deltasource.internship.hotel.repository.RepositorySnapshot;
+import eu.deltasource.internship.hotel.repository.SnapshotStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keeps one compact binary snapshot file per repository.
+ * <p>
+ * Snapshots are written through a {@link FileChannel} into a temporary
+ * file, which atomically replaces the previous snapshot once it is on
+ * disk. They are read back through a memory mapping, so loading does
+ * not copy the file through the heap.
+ * <p>
+ * Every file starts with [magic][kind][count][highest issued id][log sequence].
+ * Every item ends with its version.
+ */
+public class FileSnapshotStore implements SnapshotStore {
+
+	private static final int MAGIC = 0x48534E56;
+	private static final int BOOKING_SIZE = 7 * Integer.BYTES;
+	private static final int BUFFER_SIZE = 1 << 20;
+	private static final byte GUESTS = 1;
+	private static final byte ROOMS = 2;
+	private static final byte BOOKINGS = 3;
+	private static final byte BED = 1;
+	private static final byte TOILET = 2;
+	private static final byte SHOWER = 3;
+
+	private final Path directory;
+
+	public FileSnapshotStore(Path directory) {
+		this.directory = directory;
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot create snapshot directory " + directory, e);
+		}
+	}
+
+	@Override
+	public Optional<RepositorySnapshot<Guest>> loadGuests() {
+		return load(GUESTS, FileSnapshotStore::readGuest);
+	}
+
+	@Override
+	public Optional<RepositorySnapshot<Room>> loadRooms() {
+		return load(ROOMS, FileSnapshotStore::readRoom);
+	}
+
+	@Override
+	public Optional<RepositorySnapshot<Booking>> loadBookings() {
+		return load(BOOKINGS, FileSnapshotStore::readBooking);
+	}
+
+	@Override
+	public void saveGuests(RepositorySnapshot<Guest> snapshot) {
+		save(GUESTS, snapshot, FileSnapshotStore::writeGuest,
+			guest -> 2 * Integer.BYTES + Byte.BYTES + maxStringSize(guest.getFirstName())
+				+ maxStringSize(guest.getLastName()));
+	}
+
+	@Override
+	public void saveRooms(RepositorySnapshot<Room> snapshot) {
+		save(ROOMS, snapshot, FileSnapshotStore::writeRoom,
+			room -> 3 * Integer.BYTES + 2 * room.getCommodities().size());
+	}
+
+	@Override
+	public void saveBookings(RepositorySnapshot<Booking> snapshot) {
+		save(BOOKINGS, snapshot, FileSnapshotStore::writeBooking, booking -> BOOKING_SIZE);
+	}
+
+	private <T> Optional<RepositorySnapshot<T>> load(byte kind, Reader<T> reader) {
+		Path file = fileOf(kind);
+		if (!Files.exists(file)) {
+			return Optional.empty();
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			int magic = buffer.getInt();
+			if (magic != MAGIC || buffer.get() != kind) {
+				throw new IOException(file + " is not a snapshot of the expected kind!");
+			}
+			int count = buffer.getInt();
+			int highestIssuedId = buffer.getInt();
+			long logSequence = buffer.getLong();
+			List<T> items = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				items.add(reader.read(buffer));
+			}
+			return Optional.of(new RepositorySnapshot<>(items, highestIssuedId, logSequence));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot load snapshot " + file, e);
+		}
+	}
+
+	private <T> void save(byte kind, RepositorySnapshot<T> snapshot, BiConsumer<T, ByteBuffer> writer,
+						  ToIntFunction<T> maxSize) {
+		Path file = fileOf(kind);
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+			StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			buffer.putInt(MAGIC).put(kind).putInt(snapshot.getItems().size())
+				.putInt(snapshot.getHighestIssuedId()).putLong(snapshot.getLogSequence());
+			for (T item : snapshot.getItems()) {
+				if (buffer.remaining() < maxSize.applyAsInt(item)) {
+					drain(buffer, channel);
+				}
+				writer.accept(item, buffer);
+			}
+			drain(buffer, channel);
+			channel.force(true);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot write snapshot " + file, e);
+		}
+		try {
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot replace snapshot " + file, e);
+		}
+	}
+
+	private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private Path fileOf(byte kind) {
+		switch (kind) {
+			case GUESTS:
+				return directory.resolve("guests.snapshot");
+			case ROOMS:
+				return directory.resolve("rooms.snapshot");
+			default:
+				return directory.resolve("bookings.snapshot");
+		}
+	}
+
+	private static void writeBooking(Booking booking, ByteBuffer buffer) {
+		buffer.putInt(booking.getBookingId())
+			.putInt(booking.getGuestId())
+			.putInt(booking.getRoomId())
+			.putInt(booking.getNumberOfPeople())
+			.putInt(Math.toIntExact(booking.getFrom().toEpochDay()))
+			.putInt(Math.toIntExact(booking.getTo().toEpochDay()))
+			.putInt(booking.getVersion());
+	}
+
+	private static Booking readBooking(ByteBuffer buffer) {
+		return new Booking(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(),
+			LocalDate.ofEpochDay(buffer.getInt()), LocalDate.ofEpochDay(buffer.getInt()), buffer.getInt());
+	}
+
+	private static void writeGuest(Guest guest, ByteBuffer buffer) {
+		buffer.putInt(guest.getGuestId()).put((byte) guest.getGender().ordinal());
+		writeString(guest.getFirstName(), buffer);
+		writeString(guest.getLastName(), buffer);
+		buffer.putInt(guest.getVersion());
+	}
+
+	private static Guest readGuest(ByteBuffer buffer) {
+		int guestId = buffer.getInt();
+		Gender gender = Gender.values()[buffer.get()];
+		return new Guest(guestId, readString(buffer), readString(buffer), gender, buffer.getInt());
+	}
+
+	private static void writeRoom(Room room, ByteBuffer buffer) {
+		buffer.putInt(room.getRoomId()).putInt(room.getCommodities().size());
+		for (AbstractCommodity commodity : room.getCommodities()) {
+			if (commodity instanceof Bed) {
+				buffer.put(BED).put((byte) ((Bed) commodity).getBedType().ordinal());
+			} else if (commodity instanceof Toilet) {
+				buffer.put(TOILET).put((byte) 0);
+			} else {
+				buffer.put(SHOWER).put((byte) 0);
+			}
+		}
+		buffer.putInt(room.getVersion());
+	}
+
+	private static Room readRoom(ByteBuffer buffer) {
+		int roomId = buffer.getInt();
+		int count = buffer.getInt();
+		Set<AbstractCommodity> commodities = new HashSet<>();
+		for (int i = 0; i < count; i++) {
+			byte type = buffer.get();
+			byte detail = buffer.get();
+			if (type == BED) {
+				commodities.add(new Bed(BedType.values()[detail]));
+			} else if (type == TOILET) {
+				commodities.add(new Toilet());
+			} else {
+				commodities.add(new Shower());
+			}
+		}
+		return new Room(roomId, commodities, buffer.getInt());
+	}
+
+	private static void writeString(String value, ByteBuffer buffer) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		buffer.putInt(bytes.length).put(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int maxStringSize(String value) {
+		return Integer.BYTES + value.length() * 3;
+	}
+
+	@FunctionalInterface
+	private interface Reader<T> {
+		T read(ByteBuffer buffer);
+	}
+}
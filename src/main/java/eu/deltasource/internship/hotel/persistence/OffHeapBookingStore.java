@@ -0,0 +1,314 @@
+package eu.deltasource.internship.hotel.persistence;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.repository.BookingStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the bookings outside of the Java heap, as fixed-width records
+ * [id][guest id][room id][people][from][to][version] in chunks of direct memory,
+ * or of a memory-mapped scratch file. The table mapping ids to records
+ * is kept in direct memory as well, so the heap does not grow with the
+ * number of bookings.
+ * <p>
+ * The store holds no durable state: like the other storage engines it is
+ * filled from the snapshot and the write-ahead log on startup, and a
+ * mapped file is truncated when the store is opened.
+ * <p>
+ * Records are appended in insertion order. A removed record is marked
+ * by the id 0 and stays as a hole, until the holes are compacted away
+ * instead of adding a chunk.
+ */
+public final class OffHeapBookingStore implements BookingStore, AutoCloseable {
+
+	private static final int RECORD_SIZE = 7 * Integer.BYTES;
+	private static final int ID = 0;
+	private static final int GUEST_ID = 4;
+	private static final int ROOM_ID = 8;
+	private static final int PEOPLE = 12;
+	private static final int FROM = 16;
+	private static final int TO = 20;
+	private static final int VERSION = 24;
+	private static final int DEFAULT_CHUNK_SHIFT = 18;
+	private static final int EMPTY = 0;
+	private static final int REMOVED = 0;
+	private static final int INITIAL_TABLE_SIZE = 1 << 10;
+
+	private final FileChannel channel;
+	private final int chunkShift;
+	private final int chunkRecords;
+	private final int chunkMask;
+	private ByteBuffer[] chunks = new ByteBuffer[0];
+	private int recordCount;
+	private int size;
+	private IntBuffer table;
+
+	/**
+	 * Creates a store in direct memory.
+	 */
+	public OffHeapBookingStore() {
+		this(null, DEFAULT_CHUNK_SHIFT);
+	}
+
+	/**
+	 * Creates a store mapped to the given scratch file,
+	 * which is created or truncated.
+	 */
+	public OffHeapBookingStore(Path file) {
+		this(file, DEFAULT_CHUNK_SHIFT);
+	}
+
+	/**
+	 * @param file       scratch file, or null for direct memory
+	 * @param chunkShift log2 of the number of records per chunk
+	 */
+	OffHeapBookingStore(Path file, int chunkShift) {
+		if (file == null) {
+			channel = null;
+		} else {
+			try {
+				channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot open booking store " + file, e);
+			}
+		}
+		this.chunkShift = chunkShift;
+		chunkRecords = 1 << chunkShift;
+		chunkMask = chunkRecords - 1;
+		table = allocateTable(INITIAL_TABLE_SIZE);
+	}
+
+	@Override
+	public Booking get(int id) {
+		int record = recordOf(id);
+		return record < 0 ? null : read(record);
+	}
+
+	@Override
+	public boolean contains(int id) {
+		return recordOf(id) >= 0;
+	}
+
+	@Override
+	public void put(Booking booking) {
+		int id = booking.getBookingId();
+		int slot = slotOf(id);
+		int record;
+		if (table.get(slot) != EMPTY) {
+			record = table.get(slot) - 1;
+		} else {
+			if (recordCount == chunks.length * chunkRecords) {
+				ensureRecordCapacity();
+			}
+			if ((size + 1) * 4L > table.capacity() * 3L) {
+				rebuildTable(table.capacity() << 1);
+			}
+			slot = slotOf(id);
+			record = recordCount;
+			size++;
+		}
+		ByteBuffer chunk = chunks[record >>> chunkShift];
+		int offset = (record & chunkMask) * RECORD_SIZE;
+		chunk.putInt(offset + GUEST_ID, booking.getGuestId())
+			.putInt(offset + ROOM_ID, booking.getRoomId())
+			.putInt(offset + PEOPLE, booking.getNumberOfPeople())
+			.putInt(offset + FROM, Math.toIntExact(booking.getFrom().toEpochDay()))
+			.putInt(offset + TO, Math.toIntExact(booking.getTo().toEpochDay()))
+			.putInt(offset + VERSION, booking.getVersion());
+		if (record == recordCount) {
+			chunk.putInt(offset + ID, id);
+			table.put(slot, ++recordCount);
+		}
+	}
+
+	@Override
+	public Booking remove(int id) {
+		int slot = slotOf(id);
+		if (table.get(slot) == EMPTY) {
+			return null;
+		}
+		int record = table.get(slot) - 1;
+		Booking removed = read(record);
+		chunks[record >>> chunkShift].putInt((record & chunkMask) * RECORD_SIZE + ID, REMOVED);
+		size--;
+		deleteSlot(slot);
+		return removed;
+	}
+
+	@Override
+	public void clear() {
+		table = allocateTable(INITIAL_TABLE_SIZE);
+		recordCount = 0;
+		size = 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public List<Booking> values() {
+		List<Booking> result = new ArrayList<>(size);
+		for (int record = 0; record < recordCount; record++) {
+			if (idOf(record) != REMOVED) {
+				result.add(read(record));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Closes the mapped file. The memory itself is
+	 * released once the buffers are collected.
+	 */
+	@Override
+	public void close() {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot close booking store", e);
+			}
+		}
+	}
+
+	private Booking read(int record) {
+		ByteBuffer chunk = chunks[record >>> chunkShift];
+		int offset = (record & chunkMask) * RECORD_SIZE;
+		return new Booking(chunk.getInt(offset + ID), chunk.getInt(offset + GUEST_ID), chunk.getInt(offset + ROOM_ID),
+			chunk.getInt(offset + PEOPLE), LocalDate.ofEpochDay(chunk.getInt(offset + FROM)),
+			LocalDate.ofEpochDay(chunk.getInt(offset + TO)), chunk.getInt(offset + VERSION)).makeReadOnly();
+	}
+
+	private int idOf(int record) {
+		return chunks[record >>> chunkShift].getInt((record & chunkMask) * RECORD_SIZE + ID);
+	}
+
+	private int recordOf(int id) {
+		int entry = table.get(slotOf(id));
+		return entry == EMPTY ? -1 : entry - 1;
+	}
+
+	/**
+	 * Returns the slot holding the id, or the empty slot
+	 * where the id would be inserted.
+	 */
+	private int slotOf(int id) {
+		IntBuffer currentTable = table;
+		int mask = currentTable.capacity() - 1;
+		int slot = hash(id) & mask;
+		while (currentTable.get(slot) != EMPTY && idOf(currentTable.get(slot) - 1) != id) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Backward shift deletion, which keeps the probe
+	 * sequences intact without tombstones in the table.
+	 */
+	private void deleteSlot(int slot) {
+		int mask = table.capacity() - 1;
+		int hole = slot;
+		int next = (hole + 1) & mask;
+		while (table.get(next) != EMPTY) {
+			int home = hash(idOf(table.get(next) - 1)) & mask;
+			boolean canMove = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+			if (canMove) {
+				table.put(hole, table.get(next));
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		table.put(hole, EMPTY);
+	}
+
+	/**
+	 * Adds a chunk if most records are live, otherwise
+	 * moves the live records over the holes.
+	 */
+	private void ensureRecordCapacity() {
+		if (recordCount == 0 || size * 2L > recordCount) {
+			ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+			grown[chunks.length] = allocateChunk(chunks.length);
+			chunks = grown;
+			return;
+		}
+		int live = 0;
+		for (int record = 0; record < recordCount; record++) {
+			if (idOf(record) != REMOVED) {
+				if (live != record) {
+					copyRecord(record, live);
+				}
+				live++;
+			}
+		}
+		recordCount = live;
+		rebuildTable(table.capacity());
+	}
+
+	private void copyRecord(int source, int target) {
+		ByteBuffer from = chunks[source >>> chunkShift];
+		ByteBuffer to = chunks[target >>> chunkShift];
+		int sourceOffset = (source & chunkMask) * RECORD_SIZE;
+		int targetOffset = (target & chunkMask) * RECORD_SIZE;
+		for (int field = 0; field < RECORD_SIZE; field += Integer.BYTES) {
+			to.putInt(targetOffset + field, from.getInt(sourceOffset + field));
+		}
+	}
+
+	/**
+	 * Fills a new table before it is published.
+	 */
+	private void rebuildTable(int tableSize) {
+		IntBuffer newTable = allocateTable(tableSize);
+		int mask = tableSize - 1;
+		for (int record = 0; record < recordCount; record++) {
+			int id = idOf(record);
+			if (id != REMOVED) {
+				int slot = hash(id) & mask;
+				while (newTable.get(slot) != EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				newTable.put(slot, record + 1);
+			}
+		}
+		table = newTable;
+	}
+
+	private ByteBuffer allocateChunk(int index) {
+		long chunkBytes = (long) chunkRecords * RECORD_SIZE;
+		if (channel == null) {
+			return ByteBuffer.allocateDirect((int) chunkBytes).order(ByteOrder.nativeOrder());
+		}
+		try {
+			return channel.map(FileChannel.MapMode.READ_WRITE, index * chunkBytes, chunkBytes)
+				.order(ByteOrder.nativeOrder());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot grow booking store", e);
+		}
+	}
+
+	private static IntBuffer allocateTable(int tableSize) {
+		return ByteBuffer.allocateDirect(tableSize * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+
+	private static int hash(int id) {
+		int hash = id * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
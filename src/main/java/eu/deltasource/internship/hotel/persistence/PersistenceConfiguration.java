@@ -0,0 +1,82 @@
+package eu.deltasource.internship.hotel.persistence;
+
+import eu.deltasource.internship.hotel.repository.BookingLog;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.repository.BookingStore;
+import eu.deltasource.internship.hotel.repository.BookingStoreFactory;
+import eu.deltasource.internship.hotel.repository.ColumnarBookingStore;
+import eu.deltasource.internship.hotel.repository.GuestRepository;
+import eu.deltasource.internship.hotel.repository.HeapBookingStore;
+import eu.deltasource.internship.hotel.repository.RoomRepository;
+import eu.deltasource.internship.hotel.repository.SnapshotStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * Wires the durable storage of the repositories
+ */
+@Configuration
+public class PersistenceConfiguration {
+
+	/**
+	 * Write-ahead log of the booking repository,
+	 * or no log at all if it is disabled
+	 */
+	@Bean
+	public BookingLog bookingLog(@Value("${hotel.booking.wal.enabled:false}") boolean enabled,
+								 @Value("${hotel.booking.wal.path:data/bookings.wal}") String path) {
+		return enabled ? new WriteAheadBookingLog(Paths.get(path)) : BookingLog.NONE;
+	}
+
+	/**
+	 * Snapshots of the repositories,
+	 * or no snapshots if they are disabled
+	 */
+	@Bean
+	public SnapshotStore snapshotStore(@Value("${hotel.snapshot.enabled:false}") boolean enabled,
+									   @Value("${hotel.snapshot.directory:data}") String directory) {
+		return enabled ? new FileSnapshotStore(Paths.get(directory)) : SnapshotStore.NONE;
+	}
+
+	/**
+	 * Storage engine of the booking repository shards - booking objects
+	 * on the heap, primitive columns, or records off the heap. Every
+	 * shard after the first maps its own file, suffixed with its index.
+	 */
+	@Bean
+	public BookingStoreFactory bookingStores(@Value("${hotel.booking.storage:heap}") String storage,
+											 @Value("${hotel.booking.offheap.path:}") String offHeapPath) {
+		return shard -> bookingStore(storage,
+			offHeapPath.isEmpty() || shard == 0 ? offHeapPath : offHeapPath + "." + shard);
+	}
+
+	/**
+	 * A single storage engine, as for the hotel.booking.storage property
+	 */
+	public BookingStore bookingStore(String storage, String offHeapPath) {
+		switch (storage) {
+			case "heap":
+				return new HeapBookingStore();
+			case "columnar":
+				return new ColumnarBookingStore();
+			case "offheap":
+				return offHeapPath.isEmpty() ? new OffHeapBookingStore() : new OffHeapBookingStore(Paths.get(offHeapPath));
+			default:
+				throw new IllegalArgumentException("Unknown booking storage " + storage + "!");
+		}
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "hotel.snapshot.enabled", havingValue = "true")
+	public SnapshotScheduler snapshotScheduler(SnapshotStore snapshotStore, GuestRepository guestRepository,
+											   RoomRepository roomRepository, BookingRepository bookingRepository,
+											   BookingLog bookingLog,
+											   @Value("${hotel.snapshot.interval-seconds:300}") long intervalSeconds) {
+		return new SnapshotScheduler(snapshotStore, guestRepository, roomRepository, bookingRepository,
+			bookingLog, intervalSeconds);
+	}
+}
@@ -0,0 +1,80 @@
+package eu.deltasource.internship.hotel.persistence;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.repository.BookingLog;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.repository.GuestRepository;
+import eu.deltasource.internship.hotel.repository.RepositorySnapshot;
+import eu.deltasource.internship.hotel.repository.RoomRepository;
+import eu.deltasource.internship.hotel.repository.SnapshotStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes snapshots of all repositories
+ * on a background thread.
+ * <p>
+ * Once the bookings snapshot is stored, the write-ahead log
+ * records it contains are no longer needed and are discarded,
+ * which keeps the replay on startup short.
+ */
+public class SnapshotScheduler implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotScheduler.class);
+
+	private final SnapshotStore snapshotStore;
+	private final GuestRepository guestRepository;
+	private final RoomRepository roomRepository;
+	private final BookingRepository bookingRepository;
+	private final BookingLog bookingLog;
+	private final ScheduledExecutorService executor;
+
+	public SnapshotScheduler(SnapshotStore snapshotStore, GuestRepository guestRepository,
+							 RoomRepository roomRepository, BookingRepository bookingRepository,
+							 BookingLog bookingLog, long intervalSeconds) {
+		this.snapshotStore = snapshotStore;
+		this.guestRepository = guestRepository;
+		this.roomRepository = roomRepository;
+		this.bookingRepository = bookingRepository;
+		this.bookingLog = bookingLog;
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "repository-snapshots");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::takeSnapshotsSafely, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Writes a snapshot of every repository.
+	 */
+	public void takeSnapshots() {
+		snapshotStore.saveGuests(guestRepository.snapshot());
+		snapshotStore.saveRooms(roomRepository.snapshot());
+		RepositorySnapshot<Booking> bookings = bookingRepository.snapshot();
+		snapshotStore.saveBookings(bookings);
+		bookingLog.discardUpTo(bookings.getLogSequence());
+	}
+
+	/**
+	 * Stops the schedule and takes a last snapshot.
+	 */
+	@Override
+	public void close() throws InterruptedException {
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+		takeSnapshotsSafely();
+	}
+
+	private void takeSnapshotsSafely() {
+		try {
+			takeSnapshots();
+		} catch (RuntimeException e) {
+			LOGGER.error("Taking repository snapshots failed", e);
+		}
+	}
+}
@@ -0,0 +1,407 @@
+package eu.deltasource.internship.hotel.persistence;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.repository.BookingLog;
+import eu.deltasource.internship.hotel.repository.BookingLogRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, binary write-ahead log for bookings.
+ * <p>
+ * Records are written by a single writer thread. Whatever piled up
+ * while the previous batch was being forced to disk is written as
+ * the next batch and made durable with one fsync (group commit), so
+ * concurrent writers share the cost of a sync.
+ * <p>
+ * The file starts with a header holding the sequence of the records
+ * discarded so far, followed by records framed as
+ * [length][type][payload][crc32]. A torn or corrupt tail, left by a
+ * crash in the middle of a write, is cut off when the log is opened.
+ * <p>
+ * Discarding records rewrites the short tail of the log into a new
+ * file, which atomically replaces the old one.
+ * <p>
+ * A failed write cuts the log back to its last complete batch, and
+ * the log then fails all pending and later appends, so that no record
+ * ever follows a torn one.
+ */
+public class WriteAheadBookingLog implements BookingLog, AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(WriteAheadBookingLog.class);
+
+	private static final int FILE_MAGIC = 0x484C5741;
+	private static final int FILE_HEADER_SIZE = Integer.BYTES + Long.BYTES;
+	private static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES;
+	private static final int CHECKSUM_SIZE = Integer.BYTES;
+	private static final int BOOKING_PAYLOAD_SIZE = 7 * Integer.BYTES;
+	private static final int MAX_RECORD_SIZE = HEADER_SIZE + BOOKING_PAYLOAD_SIZE + CHECKSUM_SIZE;
+	private static final int MAX_BATCH_SIZE = 4096;
+
+	private final Path path;
+	private FileChannel channel;
+	private long baseSequence;
+	private long writtenSequence;
+	private long writtenLength;
+	private final AtomicLong lastSequence = new AtomicLong();
+	private volatile long discardRequest;
+	private final BlockingQueue<PendingRecord> pending = new LinkedBlockingQueue<>();
+	private final ByteBuffer batchBuffer = ByteBuffer.allocateDirect(MAX_BATCH_SIZE * MAX_RECORD_SIZE);
+	private final Thread writer;
+	private final Object appendLock = new Object();
+	private volatile boolean running = true;
+	private IOException failure;
+
+	/**
+	 * Opens the log at the given path, creating it if needed,
+	 * and cuts off a torn tail from a previous crash.
+	 */
+	public WriteAheadBookingLog(Path path) {
+		this.path = path;
+		try {
+			Path parent = path.toAbsolutePath().getParent();
+			if (parent != null) {
+				Files.createDirectories(parent);
+			}
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+			if (channel.size() < FILE_HEADER_SIZE) {
+				writeFileHeader(channel, 0);
+			}
+			baseSequence = readFileHeader();
+			long[] recordCount = new long[1];
+			long validLength = scan(FILE_HEADER_SIZE, record -> recordCount[0]++);
+			if (validLength < channel.size()) {
+				LOGGER.warn("Truncating torn tail of {} at {} bytes", path, validLength);
+				channel.truncate(validLength);
+			}
+			channel.position(validLength);
+			writtenLength = validLength;
+			writtenSequence = baseSequence + recordCount[0];
+			lastSequence.set(writtenSequence);
+			discardRequest = baseSequence;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot open booking log " + path, e);
+		}
+		writer = new Thread(this::writeLoop, "booking-wal-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@Override
+	public CompletableFuture<Void> append(BookingLogRecord record) {
+		PendingRecord pendingRecord = new PendingRecord(record);
+		synchronized (appendLock) {
+			if (failure != null) {
+				pendingRecord.commit.completeExceptionally(new UncheckedIOException("The booking log failed!", failure));
+			} else if (!running) {
+				pendingRecord.commit.completeExceptionally(new IllegalStateException("The booking log is closed!"));
+			} else {
+				pending.add(pendingRecord);
+				lastSequence.incrementAndGet();
+			}
+		}
+		return pendingRecord.commit;
+	}
+
+	@Override
+	public long lastSequence() {
+		return lastSequence.get();
+	}
+
+	/**
+	 * Must not run concurrently with appends, as the
+	 * repository only replays while it is being constructed.
+	 */
+	@Override
+	public void replay(long afterSequence, Consumer<BookingLogRecord> consumer) {
+		long[] sequence = {baseSequence};
+		try {
+			scan(FILE_HEADER_SIZE, record -> {
+				if (++sequence[0] > afterSequence) {
+					consumer.accept(record);
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot replay booking log " + path, e);
+		}
+	}
+
+	/**
+	 * The records are dropped later by the writer thread.
+	 */
+	@Override
+	public synchronized void discardUpTo(long sequence) {
+		discardRequest = Math.max(discardRequest, sequence);
+	}
+
+	/**
+	 * Flushes the pending records and closes the log.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (appendLock) {
+			running = false;
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		failPending(new IllegalStateException("The booking log is closed!"));
+		channel.close();
+	}
+
+	private void writeLoop() {
+		List<PendingRecord> batch = new ArrayList<>();
+		while (running || !pending.isEmpty()) {
+			try {
+				PendingRecord first = pending.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					discardRecords();
+					continue;
+				}
+				batch.add(first);
+				pending.drainTo(batch, MAX_BATCH_SIZE - 1);
+				writeBatch(batch);
+				writtenSequence += batch.size();
+				writtenLength = channel.position();
+				batch.forEach(record -> record.commit.complete(null));
+				discardRecords();
+			} catch (IOException e) {
+				LOGGER.error("Writing to booking log {} failed, it accepts no more records", path, e);
+				batch.forEach(record -> record.commit.completeExceptionally(e));
+				fail(e);
+				return;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Cuts the log back to its last complete batch and fails the
+	 * pending records, as well as all later appends.
+	 */
+	private void fail(IOException error) {
+		synchronized (appendLock) {
+			failure = error;
+			lastSequence.set(writtenSequence);
+		}
+		try {
+			channel.truncate(writtenLength);
+			channel.position(writtenLength);
+		} catch (IOException e) {
+			LOGGER.warn("Cannot truncate booking log {} to {} bytes", path, writtenLength, e);
+		}
+		failPending(new UncheckedIOException("The booking log failed!", error));
+	}
+
+	private void failPending(RuntimeException error) {
+		for (PendingRecord record = pending.poll(); record != null; record = pending.poll()) {
+			record.commit.completeExceptionally(error);
+		}
+	}
+
+	/**
+	 * Rewrites the records following the discarded ones into a new file,
+	 * which replaces the log. Runs on the writer thread between batches.
+	 * <p>
+	 * If the new file can not be written or moved, the old one is
+	 * kept as it is, and the records are discarded later.
+	 */
+	private void discardRecords() throws IOException {
+		long discardUpTo = Math.min(discardRequest, writtenSequence);
+		if (discardUpTo <= baseSequence) {
+			return;
+		}
+		Path compacted = path.resolveSibling(path.getFileName() + ".compacting");
+		try {
+			long keptFrom = offsetAfter(discardUpTo - baseSequence);
+			try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				writeFileHeader(target, discardUpTo);
+				target.position(FILE_HEADER_SIZE);
+				long position = keptFrom;
+				long end = channel.size();
+				while (position < end) {
+					position += channel.transferTo(position, end - position, target);
+				}
+				target.force(true);
+			}
+			Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOGGER.warn("Cannot discard the records of booking log {}", path, e);
+			Files.deleteIfExists(compacted);
+			return;
+		}
+		// the old file is replaced now, so failing to reopen the log fails it
+		FileChannel replaced = channel;
+		channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		replaced.close();
+		writtenLength = channel.size();
+		channel.position(writtenLength);
+		baseSequence = discardUpTo;
+	}
+
+	/**
+	 * Returns the file offset following the given number of records.
+	 */
+	private long offsetAfter(long records) throws IOException {
+		long offset = FILE_HEADER_SIZE;
+		ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+		for (long record = 0; record < records; record++) {
+			length.clear();
+			channel.read(length, offset);
+			offset += HEADER_SIZE + length.getInt(0) + CHECKSUM_SIZE;
+		}
+		return offset;
+	}
+
+	private long readFileHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+		channel.read(header, 0);
+		if (header.getInt(0) != FILE_MAGIC) {
+			throw new IOException(path + " is not a booking log!");
+		}
+		return header.getLong(Integer.BYTES);
+	}
+
+	private static void writeFileHeader(FileChannel target, long sequence) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+		header.putInt(FILE_MAGIC).putLong(sequence).flip();
+		target.write(header, 0);
+		target.force(true);
+	}
+
+	private void writeBatch(List<PendingRecord> batch) throws IOException {
+		batchBuffer.clear();
+		for (PendingRecord pendingRecord : batch) {
+			encode(pendingRecord.record, batchBuffer);
+		}
+		batchBuffer.flip();
+		while (batchBuffer.hasRemaining()) {
+			channel.write(batchBuffer);
+		}
+		channel.force(false);
+	}
+
+	private static void encode(BookingLogRecord record, ByteBuffer buffer) {
+		int start = buffer.position();
+		boolean hasBooking = record.getBooking() != null;
+		int payloadSize = hasBooking ? BOOKING_PAYLOAD_SIZE
+			: record.getType() == BookingLogRecord.Type.DELETE ? Integer.BYTES : 0;
+		buffer.putInt(payloadSize);
+		buffer.put(record.getType().getCode());
+		if (hasBooking) {
+			Booking booking = record.getBooking();
+			buffer.putInt(booking.getBookingId());
+			buffer.putInt(booking.getGuestId());
+			buffer.putInt(booking.getRoomId());
+			buffer.putInt(booking.getNumberOfPeople());
+			buffer.putInt(Math.toIntExact(booking.getFrom().toEpochDay()));
+			buffer.putInt(Math.toIntExact(booking.getTo().toEpochDay()));
+			buffer.putInt(booking.getVersion());
+		} else if (payloadSize > 0) {
+			buffer.putInt(record.getBookingId());
+		}
+		buffer.putInt(checksum(buffer, start, HEADER_SIZE + payloadSize));
+	}
+
+	/**
+	 * Reads the log from the given offset, passing every valid record
+	 * to the consumer.
+	 *
+	 * @return the length of the valid prefix of the log
+	 */
+	private long scan(long offset, Consumer<BookingLogRecord> consumer) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		long position = offset;
+		long validLength = offset;
+		while (true) {
+			int read = channel.read(buffer, position);
+			if (read <= 0) {
+				return validLength;
+			}
+			position += read;
+			buffer.flip();
+			while (buffer.remaining() >= HEADER_SIZE) {
+				int start = buffer.position();
+				int payloadSize = buffer.getInt(start);
+				if (payloadSize < 0 || payloadSize > BOOKING_PAYLOAD_SIZE) {
+					return validLength;
+				}
+				int recordSize = HEADER_SIZE + payloadSize + CHECKSUM_SIZE;
+				if (buffer.remaining() < recordSize) {
+					break;
+				}
+				if (checksum(buffer, start, HEADER_SIZE + payloadSize) != buffer.getInt(start + recordSize - CHECKSUM_SIZE)) {
+					return validLength;
+				}
+				consumer.accept(decode(buffer, start, payloadSize));
+				buffer.position(start + recordSize);
+				validLength += recordSize;
+			}
+			buffer.compact();
+		}
+	}
+
+	private static BookingLogRecord decode(ByteBuffer buffer, int start, int payloadSize) {
+		BookingLogRecord.Type type = BookingLogRecord.Type.fromCode(buffer.get(start + Integer.BYTES));
+		int offset = start + HEADER_SIZE;
+		switch (type) {
+			case SAVE:
+			case UPDATE:
+				if (payloadSize != BOOKING_PAYLOAD_SIZE) {
+					throw new IllegalStateException("Corrupt booking record at " + start);
+				}
+				Booking booking = new Booking(buffer.getInt(offset), buffer.getInt(offset + 4),
+					buffer.getInt(offset + 8), buffer.getInt(offset + 12),
+					LocalDate.ofEpochDay(buffer.getInt(offset + 16)), LocalDate.ofEpochDay(buffer.getInt(offset + 20)),
+					buffer.getInt(offset + 24));
+				return type == BookingLogRecord.Type.SAVE ? BookingLogRecord.saved(booking) : BookingLogRecord.updated(booking);
+			case DELETE:
+				return BookingLogRecord.deleted(buffer.getInt(offset));
+			default:
+				return BookingLogRecord.deletedAll();
+		}
+	}
+
+	private static int checksum(ByteBuffer buffer, int start, int length) {
+		CRC32 crc = new CRC32();
+		ByteBuffer view = buffer.duplicate();
+		view.limit(start + length).position(start);
+		crc.update(view);
+		return (int) crc.getValue();
+	}
+
+	private static final class PendingRecord {
+		private final BookingLogRecord record;
+		private final CompletableFuture<Void> commit = new CompletableFuture<>();
+
+		PendingRecord(BookingLogRecord record) {
+			this.record = record;
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package eu.deltasource.internship.hotel.repository;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+
+/**
+ * Gets notified about every change of the booking repository,
+ * so that derived structures can be kept up to date incrementally.
+ * <p>
+ * Notifications are delivered while the write lock of the changed shard
+ * is held, in the order the changes are applied. Changes of different
+ * shards are delivered concurrently, so listeners must be thread safe.
+ * They must be fast and must not call back into the repository's write
+ * methods.
+ */
+public interface BookingChangeListener {
+
+	void onSaved(Booking booking);
+
+	void onReplaced(Booking previous, Booking current);
+
+	void onDeleted(Booking booking);
+
+	void onCleared();
+}
@@ -0,0 +1,78 @@
+package eu.deltasource.internship.hotel.repository;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.utility.IntObjectHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Secondary index from guests to the ids of their bookings.
+ * <p>
+ * A guest has few bookings, so they are kept in a small unsorted
+ * primitive array, which is searched linearly on removal.
+ */
+final class BookingGuestIndex {
+
+	private static final int[] NO_BOOKINGS = new int[0];
+	private static final int INITIAL_GUEST_CAPACITY = 4;
+
+	private final IntObjectHashMap<GuestBookings> guests = new IntObjectHashMap<>();
+
+	void add(Booking booking) {
+		GuestBookings bookings = guests.get(booking.getGuestId());
+		if (bookings == null) {
+			bookings = new GuestBookings();
+			guests.put(booking.getGuestId(), bookings);
+		}
+		bookings.add(booking.getBookingId());
+	}
+
+	void remove(Booking booking) {
+		GuestBookings bookings = guests.get(booking.getGuestId());
+		if (bookings == null) {
+			return;
+		}
+		bookings.remove(booking.getBookingId());
+		if (bookings.size == 0) {
+			guests.remove(booking.getGuestId());
+		}
+	}
+
+	/**
+	 * Returns a new array with the ids of the guest's bookings.
+	 */
+	int[] bookingIdsOf(int guestId) {
+		GuestBookings bookings = guests.get(guestId);
+		return bookings == null ? NO_BOOKINGS : Arrays.copyOf(bookings.ids, bookings.size);
+	}
+
+	boolean hasBookings(int guestId) {
+		return guests.containsKey(guestId);
+	}
+
+	void clear() {
+		guests.clear();
+	}
+
+	private static final class GuestBookings {
+
+		private int[] ids = new int[INITIAL_GUEST_CAPACITY];
+		private int size;
+
+		void add(int bookingId) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size << 1);
+			}
+			ids[size++] = bookingId;
+		}
+
+		void remove(int bookingId) {
+			for (int i = 0; i < size; i++) {
+				if (ids[i] == bookingId) {
+					ids[i] = ids[--size];
+					return;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package eu.deltasource.internship.hotel.repository;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.utility.IntObjectHashMap;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Per-room index of booking intervals.
+ * <p>
+ * For every room the bookings are kept in primitive arrays
+ * sorted by their starting epoch day, so an overlap check
+ * only touches the neighbouring intervals of the target room.
+ * <p>
+ * The index relies on the invariant, that bookings for the same room
+ * never overlap. The service layer keeps it for new bookings, and the
+ * repository for updated ones, checking them under the shard lock.
+ */
+final class BookingIntervalIndex {
+
+	private static final int INITIAL_ROOM_CAPACITY = 8;
+
+	private final IntObjectHashMap<RoomIntervals> rooms = new IntObjectHashMap<>();
+
+	/**
+	 * Adds the interval of the given booking to its room.
+	 */
+	void add(Booking booking) {
+		RoomIntervals intervals = rooms.get(booking.getRoomId());
+		if (intervals == null) {
+			intervals = new RoomIntervals();
+			rooms.put(booking.getRoomId(), intervals);
+		}
+		intervals.add(toDay(booking.getFrom()), toDay(booking.getTo()), booking.getBookingId());
+	}
+
+	/**
+	 * Removes the interval of the given booking from its room.
+	 */
+	void remove(Booking booking) {
+		RoomIntervals intervals = rooms.get(booking.getRoomId());
+		if (intervals == null) {
+			return;
+		}
+		intervals.remove(toDay(booking.getFrom()), booking.getBookingId());
+		if (intervals.size == 0) {
+			rooms.remove(booking.getRoomId());
+		}
+	}
+
+	/**
+	 * Checks whether [from, to) overlaps any booking of the room,
+	 * other than the one with the ignored id.
+	 *
+	 * @return the number of intervals looked at, negated if one of them overlaps
+	 */
+	int check(int roomId, LocalDate from, LocalDate to, int ignoredBookingId) {
+		RoomIntervals intervals = rooms.get(roomId);
+		return intervals == null ? 0 : intervals.check(toDay(from), toDay(to), ignoredBookingId);
+	}
+
+	void clear() {
+		rooms.clear();
+	}
+
+	static int toDay(LocalDate date) {
+		return Math.toIntExact(date.toEpochDay());
+	}
+
+	/**
+	 * Intervals of a single room, sorted by (from, bookingId).
+	 */
+	private static final class RoomIntervals {
+
+		private int[] from = new int[INITIAL_ROOM_CAPACITY];
+		private int[] to = new int[INITIAL_ROOM_CAPACITY];
+		private int[] ids = new int[INITIAL_ROOM_CAPACITY];
+		private int size;
+
+		void add(int fromDay, int toDay, int bookingId) {
+			if (size == ids.length) {
+				int capacity = size << 1;
+				from = Arrays.copyOf(from, capacity);
+				to = Arrays.copyOf(to, capacity);
+				ids = Arrays.copyOf(ids, capacity);
+			}
+			int position = upperBound(fromDay);
+			while (position > 0 && from[position - 1] == fromDay && ids[position - 1] > bookingId) {
+				position--;
+			}
+			int moved = size - position;
+			System.arraycopy(from, position, from, position + 1, moved);
+			System.arraycopy(to, position, to, position + 1, moved);
+			System.arraycopy(ids, position, ids, position + 1, moved);
+			from[position] = fromDay;
+			to[position] = toDay;
+			ids[position] = bookingId;
+			size++;
+		}
+
+		void remove(int fromDay, int bookingId) {
+			for (int i = lowerBound(fromDay); i < size && from[i] == fromDay; i++) {
+				if (ids[i] == bookingId) {
+					int moved = size - i - 1;
+					System.arraycopy(from, i + 1, from, i, moved);
+					System.arraycopy(to, i + 1, to, i, moved);
+					System.arraycopy(ids, i + 1, ids, i, moved);
+					size--;
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Only intervals starting before toDay can overlap. Since they do not
+		 * overlap each other, their ends grow with their starts, so walking back
+		 * from the last candidate stops at the first interval ending before fromDay.
+		 */
+		int check(int fromDay, int toDay, int ignoredBookingId) {
+			int last = lowerBound(toDay) - 1;
+			for (int i = last; i >= 0; i--) {
+				if (ids[i] == ignoredBookingId) {
+					continue;
+				}
+				int visited = last - i + 1;
+				return to[i] > fromDay ? -visited : visited;
+			}
+			return last + 1;
+		}
+
+		/**
+		 * Index of the first interval starting at or after the given day.
+		 */
+		private int lowerBound(int day) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (from[middle] < day) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * Index of the first interval starting after the given day.
+		 */
+		private int upperBound(int day) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (from[middle] <= day) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+	}
+}
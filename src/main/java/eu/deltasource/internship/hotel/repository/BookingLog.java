@@ -0,0 +1,66 @@
+package eu.deltasource.internship.hotel.repository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Durable log of the changes made to the booking repository.
+ * <p>
+ * The repository appends every change while holding its write lock,
+ * so records are logged in the order they were applied, and waits
+ * for the returned future only after releasing the lock.
+ * <p>
+ * Records are numbered by a sequence, starting from 1, which lets
+ * a snapshot tell which records it already contains.
+ */
+public interface BookingLog {
+
+	/**
+	 * Log, which keeps nothing. Used when persistence is disabled.
+	 */
+	BookingLog NONE = new BookingLog() {
+		private final CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+
+		@Override
+		public CompletableFuture<Void> append(BookingLogRecord record) {
+			return done;
+		}
+
+		@Override
+		public long lastSequence() {
+			return 0;
+		}
+
+		@Override
+		public void replay(long afterSequence, Consumer<BookingLogRecord> consumer) {
+		}
+
+		@Override
+		public void discardUpTo(long sequence) {
+		}
+	};
+
+	/**
+	 * Appends the record to the log.
+	 *
+	 * @return future, completed once the record is durable
+	 */
+	CompletableFuture<Void> append(BookingLogRecord record);
+
+	/**
+	 * Returns the sequence of the last appended record.
+	 */
+	long lastSequence();
+
+	/**
+	 * Passes the records following the given sequence
+	 * to the consumer, in the order they were appended.
+	 */
+	void replay(long afterSequence, Consumer<BookingLogRecord> consumer);
+
+	/**
+	 * Allows the log to drop the records up to the given sequence,
+	 * once they are safely stored elsewhere.
+	 */
+	void discardUpTo(long sequence);
+}
@@ -0,0 +1,62 @@
+package eu.deltasource.internship.hotel.repository;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import lombok.Getter;
+
+/**
+ * Represents a single change of the booking repository,
+ * as it is recorded in a {@link BookingLog}
+ */
+@Getter
+public class BookingLogRecord {
+
+	/**
+	 * Kinds of changes. The codes are part of the
+	 * persisted format and must not change.
+	 */
+	public enum Type {
+		SAVE(1), UPDATE(2), DELETE(3), DELETE_ALL(4);
+
+		@Getter
+		private final byte code;
+
+		Type(int code) {
+			this.code = (byte) code;
+		}
+
+		public static Type fromCode(byte code) {
+			for (Type type : values()) {
+				if (type.code == code) {
+					return type;
+				}
+			}
+			throw new IllegalArgumentException("Unknown record type: " + code);
+		}
+	}
+
+	private final Type type;
+	private final Booking booking;
+	private final int bookingId;
+
+	private BookingLogRecord(Type type, Booking booking, int bookingId) {
+		this.type = type;
+		this.booking = booking;
+		this.bookingId = bookingId;
+	}
+
+	public static BookingLogRecord saved(Booking booking) {
+		return new BookingLogRecord(Type.SAVE, booking, booking.getBookingId());
+	}
+
+	public static BookingLogRecord updated(Booking booking) {
+		return new BookingLogRecord(Type.UPDATE, booking, booking.getBookingId());
+	}
+
+	public static BookingLogRecord deleted(int bookingId) {
+		return new BookingLogRecord(Type.DELETE, null, bookingId);
+	}
+
+	public static BookingLogRecord deletedAll() {
+		return new BookingLogRecord(Type.DELETE_ALL, null, 0);
+	}
+}
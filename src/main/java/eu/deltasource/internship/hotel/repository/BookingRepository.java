@@ -1,36 +1,270 @@
 package eu.deltasource.internship.hotel.repository;
 
 import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.exception.BookingOverlappingException;
 import eu.deltasource.internship.hotel.exception.ItemNotFoundException;
+import eu.deltasource.internship.hotel.exception.VersionConflictException;
+import eu.deltasource.internship.hotel.utility.IdAllocator;
+import eu.deltasource.internship.hotel.utility.IdAllocatorFactory;
+import eu.deltasource.internship.hotel.utility.SequentialIdAllocator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 /**
  * Represents repository for bookings
+ * <p>
+ * Safe for concurrent use: reads do not lock and writes are
+ * serialized. Stored bookings are never changed in place,
+ * updates replace them with new instances under the next
+ * {@link Versions version}, keeping their id.
+ * <p>
+ * Every change is appended to a {@link BookingLog}. On construction the
+ * repository is loaded from the latest snapshot, if there is one, and the
+ * log records following it are replayed. A change returns once the log
+ * reports it durable.
+ * <p>
+ * The bookings themselves are kept by a {@link BookingStore}, the
+ * indexes and the locking stay the same for every storage engine.
+ * <p>
+ * The bookings can be split by room into shards, each with its own
+ * store, indexes and lock. Bookings of different rooms never conflict,
+ * so writes to different shards run in parallel, while queries over
+ * all bookings read the shards in parallel and merge the results.
  */
 @Repository
-public class BookingRepository {
+public class BookingRepository implements AutoCloseable {
 
-	private final List<Booking> repository;
+	private final BookingShard[] shards;
+	private final ShardDirectory directory = new ShardDirectory();
+	private final IdAllocator idAllocator;
+	private final BookingLog bookingLog;
+	private final List<BookingChangeListener> listeners = new CopyOnWriteArrayList<>();
+	private volatile IntConsumer overlapChecks = visitedIntervals -> {
+	};
 
 	/**
 	 * Default constructor, which initializes the repository
-	 * as an empty ArrayList.
+	 * as an empty map, keyed by id and kept in insertion order.
 	 */
 	public BookingRepository() {
-		repository = new ArrayList<>();
+		this(new SequentialIdAllocator());
 	}
 
 	/**
-	 * Returns an unmodifiable list of all items
-	 * currently in the repository.
+	 * Initializes an empty repository, which takes
+	 * the ids of new items from the given allocator.
+	 */
+	public BookingRepository(IdAllocator idAllocator) {
+		this(idAllocator, BookingLog.NONE, SnapshotStore.NONE);
+	}
+
+	/**
+	 * Initializes the repository from the given log,
+	 * which then records all further changes.
+	 */
+	public BookingRepository(BookingLog bookingLog) {
+		this(new SequentialIdAllocator(), bookingLog, SnapshotStore.NONE);
+	}
+
+	/**
+	 * Initializes the repository from the latest snapshot
+	 * and the log records written after it.
+	 */
+	public BookingRepository(BookingLog bookingLog, SnapshotStore snapshotStore) {
+		this(new SequentialIdAllocator(), bookingLog, snapshotStore);
+	}
+
+	/**
+	 * Initializes the repository like the log and snapshot constructor,
+	 * keeping the bookings in the given storage engine.
+	 */
+	public BookingRepository(BookingLog bookingLog, SnapshotStore snapshotStore, BookingStore store) {
+		this(new SequentialIdAllocator(), bookingLog, snapshotStore, store);
+	}
+
+	/**
+	 * Initializes the repository like the log and snapshot constructor,
+	 * split into shards, each with a storage engine of its own.
+	 *
+	 * @param shards number of shards, one per core if not positive
+	 */
+	@Autowired
+	public BookingRepository(IdAllocatorFactory idAllocators, BookingLog bookingLog, SnapshotStore snapshotStore,
+							 BookingStoreFactory stores, @Value("${hotel.booking.shards:1}") int shards) {
+		this(idAllocators.create(), bookingLog, snapshotStore, stores,
+			shards > 0 ? shards : Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Initializes an empty repository, which keeps
+	 * the bookings in the given storage engine.
+	 */
+	public BookingRepository(BookingStore store) {
+		this(new SequentialIdAllocator(), BookingLog.NONE, SnapshotStore.NONE, store);
+	}
+
+	public BookingRepository(IdAllocator idAllocator, BookingLog bookingLog, SnapshotStore snapshotStore) {
+		this(idAllocator, bookingLog, snapshotStore, new HeapBookingStore());
+	}
+
+	public BookingRepository(IdAllocator idAllocator, BookingLog bookingLog, SnapshotStore snapshotStore,
+							 BookingStore store) {
+		this(idAllocator, bookingLog, snapshotStore, shard -> store, 1);
+	}
+
+	public BookingRepository(IdAllocator idAllocator, BookingLog bookingLog, SnapshotStore snapshotStore,
+							 BookingStoreFactory stores, int shards) {
+		if (shards < 1 || shards > ShardDirectory.MAX_SHARDS) {
+			throw new IllegalArgumentException("Invalid number of shards " + shards + "!");
+		}
+		this.idAllocator = idAllocator;
+		this.bookingLog = bookingLog;
+		this.shards = new BookingShard[shards];
+		for (int i = 0; i < shards; i++) {
+			this.shards[i] = new BookingShard(stores.create(i));
+		}
+		writeAll(() -> {
+			long replayFrom = snapshotStore.loadBookings().map(this::restore).orElse(0L);
+			bookingLog.replay(replayFrom, this::apply);
+			return null;
+		});
+	}
+
+	/**
+	 * Returns the number of shards the bookings are split into.
+	 */
+	public int shardCount() {
+		return shards.length;
+	}
+
+	/**
+	 * Returns the index of the shard holding the bookings of the room.
+	 */
+	public int shardOf(int roomId) {
+		return Math.floorMod(roomId, shards.length);
+	}
+
+	/**
+	 * Returns an unmodifiable list of all items currently in the
+	 * repository, in insertion order if there is only one shard,
+	 * in id order otherwise.
 	 */
 	public List<Booking> findAll() {
-		return Collections.unmodifiableList(repository);
+		if (shards.length == 1) {
+			return Collections.unmodifiableList(shards[0].lock.read(shards[0].store::values));
+		}
+		return Collections.unmodifiableList(Arrays.stream(shards)
+			.parallel()
+			.flatMap(shard -> shard.lock.read(shard.store::values).stream())
+			.sorted(Comparator.comparingInt(Booking::getBookingId))
+			.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Returns an unmodifiable list of at most limit items
+	 * with ids greater than afterId, in ascending id order.
+	 * <p>
+	 * Every shard seeks to afterId in its ordered ids and hands
+	 * out at most limit of them, which are merged by id.
+	 */
+	public List<Booking> findPage(int afterId, int limit) {
+		return Collections.unmodifiableList(readAll(() -> {
+			List<Booking> page = new ArrayList<>();
+			for (BookingShard shard : shards) {
+				for (int id : shard.ids.after(afterId, limit)) {
+					page.add(shard.store.get(id));
+				}
+			}
+			if (shards.length > 1) {
+				page.sort(Comparator.comparingInt(Booking::getBookingId));
+			}
+			return page.size() > limit ? new ArrayList<>(page.subList(0, limit)) : page;
+		}));
+	}
+
+	/**
+	 * Returns an unmodifiable list of the guest's bookings,
+	 * ordered by their starting date.
+	 */
+	public List<Booking> findByGuestId(int guestId) {
+		List<Booking> bookings = new ArrayList<>();
+		for (BookingShard shard : shards) {
+			bookings.addAll(shard.lock.read(() -> {
+				int[] ids = shard.guestIndex.bookingIdsOf(guestId);
+				List<Booking> found = new ArrayList<>(ids.length);
+				for (int id : ids) {
+					found.add(shard.store.get(id));
+				}
+				return found;
+			}));
+		}
+		bookings.sort(Comparator.comparing(Booking::getFrom).thenComparingInt(Booking::getBookingId));
+		return Collections.unmodifiableList(bookings);
+	}
+
+	/**
+	 * Checks if the guest has any bookings.
+	 */
+	public boolean existsByGuestId(int guestId) {
+		for (BookingShard shard : shards) {
+			if (shard.lock.read(() -> shard.guestIndex.hasBookings(guestId))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Registers a listener for all further changes. The bookings already
+	 * in the repository are passed to it as saved, before any other change.
+	 */
+	public void addListener(BookingChangeListener listener) {
+		writeAll(() -> {
+			listeners.add(listener);
+			for (BookingShard shard : shards) {
+				shard.store.values().forEach(listener::onSaved);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Stops notifying the listener about changes.
+	 */
+	public void removeListener(BookingChangeListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Returns a consistent copy of the repository, together with the
+	 * sequence of the last log record it contains. Writers are held
+	 * back only while the references are copied.
+	 */
+	public RepositorySnapshot<Booking> snapshot() {
+		return readAll(() -> {
+			List<Booking> items = new ArrayList<>();
+			for (BookingShard shard : shards) {
+				items.addAll(shard.store.values());
+			}
+			return new RepositorySnapshot<>(items, idAllocator.highestIssuedId(), bookingLog.lastSequence());
+		});
 	}
 
 	/**
@@ -40,43 +274,103 @@ public class BookingRepository {
 	 * Check this always, before using operations with id's.
 	 */
 	public boolean existsById(int id) {
-		for (Booking item : repository) {
-			if (item.getBookingId() == id)
-				return true;
-		}
-		return false;
+		return readBooking(id, false, store -> store.contains(id));
 	}
 
 	/**
-	 * Returns an item from the repository
+	 * Returns the read-only item from the repository
+	 * with the given Id.
 	 */
 	public Booking findById(int id) {
-		for (Booking item : repository) {
-			if (item.getBookingId() == id)
-				return new Booking(item);
+		Booking item = readBooking(id, null, store -> store.get(id));
+		if (item == null) {
+			throw new ItemNotFoundException("A booking with id: " + id + " was not found!");
 		}
-		throw new ItemNotFoundException("A booking with id: " + id + " was not found!");
+		return item;
 	}
 
-	private int idGenerator() {
-		if (count() == 0) {
-			return count() + 1;
-		}
-		return repository.get(count() - 1).getBookingId() + 1;
+	/**
+	 * Checks if the room is free for the period [from, to),
+	 * looking only at the neighbouring bookings of that room.
+	 */
+	public boolean isRoomAvailable(int roomId, LocalDate from, LocalDate to) {
+		return isRoomAvailable(roomId, from, to, 0);
 	}
 
-	public void save(Booking item) {
-		Booking newBooking = new Booking(idGenerator(), item.getGuestId(), item.getRoomId(),
-			item.getNumberOfPeople(), item.getFrom(), item.getTo());
-		repository.add(newBooking);
+	/**
+	 * Checks if the room is free for the period [from, to),
+	 * ignoring the booking with the given id.
+	 * <p>
+	 * Use this when a booking is moved within or to the room.
+	 */
+	public boolean isRoomAvailable(int roomId, LocalDate from, LocalDate to, int ignoredBookingId) {
+		BookingShard shard = shards[shardOf(roomId)];
+		return !overlaps(shard.lock.read(() -> shard.intervalIndex.check(roomId, from, to, ignoredBookingId)));
 	}
 
 	/**
-	 * Saves the list of items in the repository
+	 * Records the result of an overlap check, once it is no longer retried.
+	 */
+	private boolean overlaps(int check) {
+		overlapChecks.accept(Math.abs(check));
+		return check < 0;
+	}
+
+	/**
+	 * Saves a copy of the item under a newly allocated id.
+	 *
+	 * @return the saved read-only item
+	 */
+	public Booking save(Booking item) {
+		return saving(item).awaitDurable();
+	}
+
+	/**
+	 * Saves like {@link #save(Booking)}, without waiting for the log.
+	 *
+	 * @return the saved read-only item, once it is durable
+	 */
+	public CompletableFuture<Booking> saveAsync(Booking item) {
+		return saving(item).whenDurable();
+	}
+
+	private Change<Booking> saving(Booking item) {
+		return shards[shardOf(item.getRoomId())].lock.write(() -> {
+			Booking saved = insert(item, idAllocator.nextId(), Versions.FIRST);
+			return new Change<>(saved, bookingLog.append(BookingLogRecord.saved(saved)));
+		});
+	}
+
+	/**
+	 * Must be called under the lock of the shard of the item's room.
+	 */
+	private Booking insert(Booking item, int id, int version) {
+		Booking newBooking = new Booking(id, item.getGuestId(), item.getRoomId(),
+			item.getNumberOfPeople(), item.getFrom(), item.getTo(), version).makeReadOnly();
+		int shard = shardOf(newBooking.getRoomId());
+		shards[shard].add(newBooking);
+		if (shards.length > 1) {
+			directory.put(id, shard);
+		}
+		for (BookingChangeListener listener : listeners) {
+			listener.onSaved(newBooking);
+		}
+		return newBooking;
+	}
+
+	/**
+	 * Saves the list of items in the repository, all of them at once
 	 */
 	public void saveAll(List<Booking> items) {
-		items.forEach(
-			this::save);
+		Change<Void> change = writeAll(() -> {
+			CompletableFuture<Void> lastCommit = null;
+			for (Booking item : items) {
+				Booking saved = insert(item, idAllocator.nextId(), Versions.FIRST);
+				lastCommit = bookingLog.append(BookingLogRecord.saved(saved));
+			}
+			return new Change<Void>(null, lastCommit);
+		});
+		change.awaitDurable();
 	}
 
 	/**
@@ -86,14 +380,121 @@ public class BookingRepository {
 		saveAll(Arrays.asList(items));
 	}
 
+	/**
+	 * Moves the booking with the id of the item to the dates of the item.
+	 *
+	 * @return the updated read-only item
+	 */
 	public Booking updateDates(Booking item) {
-		for (Booking booking : repository) {
-			if (booking.getBookingId() == item.getBookingId()) {
-				booking.setBookingDates(item.getFrom(), item.getTo());
-				return new Booking(booking);
+		return updateDates(item, Versions.ANY);
+	}
+
+	/**
+	 * Moves the booking like {@link #updateDates(Booking)},
+	 * if it still has the expected version.
+	 *
+	 * @param expectedVersion version the update is based on, or {@link Versions#ANY}
+	 * @return the updated read-only item
+	 * @throws VersionConflictException if the booking was changed since
+	 */
+	public Booking updateDates(Booking item, int expectedVersion) {
+		return updatingDates(item, expectedVersion).awaitDurable();
+	}
+
+	/**
+	 * Updates like {@link #updateDates(Booking)}, without waiting for the log.
+	 *
+	 * @return the updated read-only item, once it is durable
+	 */
+	public CompletableFuture<Booking> updateDatesAsync(Booking item) {
+		return updateDatesAsync(item, Versions.ANY);
+	}
+
+	/**
+	 * Updates like {@link #updateDates(Booking, int)}, without waiting for the log.
+	 *
+	 * @return the updated read-only item, once it is durable
+	 */
+	public CompletableFuture<Booking> updateDatesAsync(Booking item, int expectedVersion) {
+		return updatingDates(item, expectedVersion).whenDurable();
+	}
+
+	private Change<Booking> updatingDates(Booking item, int expectedVersion) {
+		return updating(item, expectedVersion, false, current -> current.withDates(item.getFrom(), item.getTo()));
+	}
+
+	/**
+	 * Changes the room, the number of people and the dates of the booking
+	 * with the id of the item in place, if it still has the expected
+	 * version. The booking keeps its id and its guest.
+	 * <p>
+	 * The new period is checked against the other bookings of the new
+	 * room while its shard is locked, so the check and the change are
+	 * atomic and only the index entries of the booking are replaced.
+	 *
+	 * @param expectedVersion version the update is based on, or {@link Versions#ANY}
+	 * @return the updated read-only item
+	 * @throws VersionConflictException    if the booking was changed since
+	 * @throws BookingOverlappingException if the new period overlaps another booking of the room
+	 */
+	public Booking update(Booking item, int expectedVersion) {
+		return updating(item, expectedVersion).awaitDurable();
+	}
+
+	/**
+	 * Updates like {@link #update(Booking, int)}, without waiting for the log.
+	 *
+	 * @return the updated read-only item, once it is durable
+	 */
+	public CompletableFuture<Booking> updateAsync(Booking item, int expectedVersion) {
+		return updating(item, expectedVersion).whenDurable();
+	}
+
+	private Change<Booking> updating(Booking item, int expectedVersion) {
+		return updating(item, expectedVersion, true, current -> new Booking(current.getBookingId(),
+			current.getGuestId(), item.getRoomId(), item.getNumberOfPeople(), item.getFrom(), item.getTo()));
+	}
+
+	/**
+	 * Replaces the booking with the id of the item by its changed copy,
+	 * holding the locks of the shards of its current room and of the
+	 * item's room. The booking is looked up again if it was moved to
+	 * another shard before the locks were taken.
+	 *
+	 * @param checkOverlaps whether the changed booking must not overlap another one of its room
+	 */
+	private Change<Booking> updating(Booking item, int expectedVersion, boolean checkOverlaps,
+									 UnaryOperator<Booking> change) {
+		int id = item.getBookingId();
+		int target = shardOf(item.getRoomId());
+		while (true) {
+			int source = shardIndexOfBooking(id);
+			if (source < 0) {
+				throw new ItemNotFoundException("Booking not found in repository!");
+			}
+			Change<Booking> updated = writeBoth(source, target, () -> {
+				Booking current = shards[source].store.get(id);
+				if (current == null) {
+					return null;
+				}
+				Versions.check(expectedVersion, current.getVersion());
+				Booking changed = change.apply(current);
+				if (checkOverlaps && overlaps(shards[shardOf(changed.getRoomId())].intervalIndex.check(
+					changed.getRoomId(), changed.getFrom(), changed.getTo(), id))) {
+					throw new BookingOverlappingException("The room is already booked for this period!");
+				}
+				Booking replacement = new Booking(id, changed.getGuestId(), changed.getRoomId(),
+					changed.getNumberOfPeople(), changed.getFrom(), changed.getTo(), current.getVersion() + 1)
+					.makeReadOnly();
+				replace(source, current, replacement);
+				return new Change<>(replacement, bookingLog.append(BookingLogRecord.updated(replacement)));
+			});
+			if (updated != null) {
+				return updated;
+			} else if (shardIndexOfBooking(id) == source) {
+				throw new ItemNotFoundException("Booking not found in repository!");
 			}
 		}
-		throw new ItemNotFoundException("Booking not found in repository!");
 	}
 
 	/**
@@ -104,29 +505,309 @@ public class BookingRepository {
 	 * returns false if there's no match and the list is unchanged.
 	 */
 	public boolean delete(Booking item) {
-		return repository.remove(item);
+		return item != null && deleteById(item.getBookingId());
 	}
 
 	public boolean deleteById(int id) {
-		for (Booking booking : repository) {
-			if (booking.getBookingId() == id) {
-				return delete(booking);
+		return deletingById(id).awaitDurable();
+	}
+
+	/**
+	 * Deletes like {@link #deleteById(int)}, without waiting for the log.
+	 */
+	public CompletableFuture<Boolean> deleteByIdAsync(int id) {
+		return deletingById(id).whenDurable();
+	}
+
+	private Change<Boolean> deletingById(int id) {
+		while (true) {
+			int index = shardIndexOfBooking(id);
+			if (index < 0) {
+				return new Change<>(false, null);
+			}
+			BookingShard shard = shards[index];
+			Change<Boolean> deleted = shard.lock.write(() -> {
+				if (!remove(shard, id)) {
+					return new Change<>(false, null);
+				}
+				return new Change<>(true, bookingLog.append(BookingLogRecord.deleted(id)));
+			});
+			if (deleted.result || shardIndexOfBooking(id) == index) {
+				return deleted;
 			}
 		}
-		return false;
 	}
 
 	/**
-	 * Deletes all items in the repository
+	 * Deletes all bookings of the guest, at once within each shard.
+	 *
+	 * @return the number of deleted bookings
+	 */
+	public int deleteByGuestId(int guestId) {
+		int deleted = 0;
+		List<CompletableFuture<Void>> commits = new ArrayList<>();
+		for (BookingShard shard : shards) {
+			Change<Integer> change = shard.lock.write(() -> {
+				int[] ids = shard.guestIndex.bookingIdsOf(guestId);
+				CompletableFuture<Void> lastCommit = null;
+				for (int id : ids) {
+					remove(shard, id);
+					lastCommit = bookingLog.append(BookingLogRecord.deleted(id));
+				}
+				return new Change<>(ids.length, lastCommit);
+			});
+			deleted += change.result;
+			if (change.commit != null) {
+				commits.add(change.commit);
+			}
+		}
+		return new Change<>(deleted, CompletableFuture.allOf(commits.toArray(new CompletableFuture<?>[0])))
+			.awaitDurable();
+	}
+
+	/**
+	 * Deletes all items in the repository,
+	 * their ids are not handed out again
 	 */
 	public void deleteAll() {
-		repository.clear();
+		Change<Void> change = writeAll(() -> {
+			clear();
+			return new Change<Void>(null, bookingLog.append(BookingLogRecord.deletedAll()));
+		});
+		change.awaitDurable();
 	}
 
 	/**
 	 * Returns the number of items left in the repository
 	 */
 	public int count() {
-		return repository.size();
+		int count = 0;
+		for (BookingShard shard : shards) {
+			count += shard.lock.read(shard.store::size);
+		}
+		return count;
+	}
+
+	/**
+	 * Sets the consumer of the number of booking intervals
+	 * looked at by each overlap check
+	 */
+	public void onOverlapChecks(IntConsumer visitedIntervals) {
+		overlapChecks = visitedIntervals;
+	}
+
+	/**
+	 * Closes the storage engines, which hold resources outside the heap
+	 */
+	@Override
+	public void close() throws Exception {
+		for (BookingShard shard : shards) {
+			if (shard.store instanceof AutoCloseable) {
+				((AutoCloseable) shard.store).close();
+			}
+		}
+	}
+
+	/**
+	 * Returns the shard holding the booking with the given id, or null
+	 */
+	private BookingShard shardOfBooking(int id) {
+		int shard = shardIndexOfBooking(id);
+		return shard < 0 ? null : shards[shard];
+	}
+
+	/**
+	 * Reads the booking from the shard the directory points to, and
+	 * looks again if it was moved to another shard in the meantime.
+	 *
+	 * @param missing the result if there is no such booking
+	 */
+	private <T> T readBooking(int id, T missing, Function<BookingStore, T> reader) {
+		while (true) {
+			int index = shardIndexOfBooking(id);
+			if (index < 0) {
+				return missing;
+			}
+			BookingShard shard = shards[index];
+			T result = shard.lock.read(() -> reader.apply(shard.store));
+			if (!Objects.equals(result, missing) || shardIndexOfBooking(id) == index) {
+				return result;
+			}
+		}
+	}
+
+	private int shardIndexOfBooking(int id) {
+		if (shards.length == 1) {
+			return 0;
+		}
+		return id > 0 ? directory.shardOf(id) : -1;
+	}
+
+	/**
+	 * Must be called under the locks of the shard holding the
+	 * current booking and of the shard of the replacement's room.
+	 */
+	private void replace(int shard, Booking current, Booking replacement) {
+		int target = shardOf(replacement.getRoomId());
+		if (target == shard) {
+			shards[shard].replace(current, replacement);
+		} else {
+			shards[shard].remove(current.getBookingId());
+			shards[target].add(replacement);
+			directory.put(replacement.getBookingId(), target);
+		}
+		for (BookingChangeListener listener : listeners) {
+			listener.onReplaced(current, replacement);
+		}
+	}
+
+	private boolean remove(BookingShard shard, int id) {
+		Booking booking = shard.remove(id);
+		if (booking == null) {
+			return false;
+		}
+		if (shards.length > 1) {
+			directory.remove(id);
+		}
+		for (BookingChangeListener listener : listeners) {
+			listener.onDeleted(booking);
+		}
+		return true;
+	}
+
+	/**
+	 * Must be called while all shards are locked.
+	 */
+	private void clear() {
+		for (BookingShard shard : shards) {
+			shard.clear();
+		}
+		if (shards.length > 1) {
+			directory.clear();
+		}
+		for (BookingChangeListener listener : listeners) {
+			listener.onCleared();
+		}
+	}
+
+	/**
+	 * Runs the writer while holding the locks of both shards,
+	 * taken in index order.
+	 */
+	private <T> T writeBoth(int shard, int other, Supplier<T> writer) {
+		if (shard == other) {
+			return shards[shard].lock.write(writer);
+		}
+		BookingShard first = shards[Math.min(shard, other)];
+		BookingShard second = shards[Math.max(shard, other)];
+		return first.lock.write(() -> second.lock.write(writer));
+	}
+
+	/**
+	 * Runs the writer while holding the locks of all shards,
+	 * taken in index order.
+	 */
+	private <T> T writeAll(Supplier<T> writer) {
+		return writeFrom(0, writer);
+	}
+
+	private <T> T writeFrom(int shard, Supplier<T> writer) {
+		if (shard == shards.length) {
+			return writer.get();
+		}
+		return shards[shard].lock.write(() -> writeFrom(shard + 1, writer));
+	}
+
+	/**
+	 * Runs the reader over a consistent state of all shards.
+	 * The optimistic reads are nested, so the result is valid
+	 * if no shard changed while the innermost one was read.
+	 */
+	private <T> T readAll(Supplier<T> reader) {
+		return readFrom(0, reader);
+	}
+
+	private <T> T readFrom(int shard, Supplier<T> reader) {
+		if (shard == shards.length) {
+			return reader.get();
+		}
+		return shards[shard].lock.read(() -> readFrom(shard + 1, reader));
+	}
+
+	/**
+	 * Loads the snapshot into the empty repository.
+	 *
+	 * @return the log sequence the snapshot was taken at
+	 */
+	private long restore(RepositorySnapshot<Booking> snapshot) {
+		for (Booking booking : snapshot.getItems()) {
+			insert(booking, booking.getBookingId(), booking.getVersion());
+		}
+		idAllocator.advanceTo(snapshot.getHighestIssuedId());
+		return snapshot.getLogSequence();
+	}
+
+	/**
+	 * Applies a logged change, without logging it again.
+	 */
+	private void apply(BookingLogRecord record) {
+		switch (record.getType()) {
+			case SAVE:
+				insert(record.getBooking(), record.getBookingId(), record.getBooking().getVersion());
+				idAllocator.advanceTo(record.getBookingId());
+				break;
+			case UPDATE:
+				int source = shardIndexOfBooking(record.getBookingId());
+				Booking current = source < 0 ? null : shards[source].store.get(record.getBookingId());
+				if (current != null) {
+					replace(source, current, record.getBooking().makeReadOnly());
+				}
+				break;
+			case DELETE:
+				BookingShard shard = shardOfBooking(record.getBookingId());
+				if (shard != null) {
+					remove(shard, record.getBookingId());
+				}
+				break;
+			case DELETE_ALL:
+				clear();
+				break;
+		}
+	}
+
+	/**
+	 * Result of a change together with the commit of its log record.
+	 */
+	private static final class Change<T> {
+		private final T result;
+		private final CompletableFuture<Void> commit;
+
+		Change(T result, CompletableFuture<Void> commit) {
+			this.result = result;
+			this.commit = commit;
+		}
+
+		T awaitDurable() {
+			if (commit != null) {
+				try {
+					commit.join();
+				} catch (CompletionException e) {
+					throw new IllegalStateException("The change could not be persisted!", e.getCause());
+				}
+			}
+			return result;
+		}
+
+		CompletableFuture<T> whenDurable() {
+			if (commit == null) {
+				return CompletableFuture.completedFuture(result);
+			}
+			return commit.handle((ignored, error) -> {
+				if (error != null) {
+					throw new IllegalStateException("The change could not be persisted!", error);
+				}
+				return result;
+			});
+		}
 	}
 }
@@ -0,0 +1,75 @@
+package eu.deltasource.internship.hotel.repository;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.utility.SortedIntSet;
+
+/**
+ * The bookings of a part of the rooms, with their own storage,
+ * indexes and lock, so that writes to different shards do not
+ * wait for each other.
+ * <p>
+ * All methods changing the shard must be called under its write lock.
+ */
+final class BookingShard {
+
+	final RepositoryLock lock = new RepositoryLock();
+	final BookingStore store;
+	final BookingIntervalIndex intervalIndex = new BookingIntervalIndex();
+	final BookingGuestIndex guestIndex = new BookingGuestIndex();
+	// the ids of the bookings, in order, so pages seek to their first id
+	final SortedIntSet ids = new SortedIntSet();
+
+	BookingShard(BookingStore store) {
+		this.store = store;
+	}
+
+	void add(Booking booking) {
+		store.put(booking);
+		ids.add(booking.getBookingId());
+		intervalIndex.add(booking);
+		guestIndex.add(booking);
+	}
+
+	/**
+	 * Replaces the booking in place, touching only
+	 * the index entries which change with it.
+	 */
+	void replace(Booking current, Booking replacement) {
+		boolean moved = current.getRoomId() != replacement.getRoomId()
+			|| !current.getFrom().equals(replacement.getFrom()) || !current.getTo().equals(replacement.getTo());
+		boolean guestChanged = current.getGuestId() != replacement.getGuestId();
+		if (moved) {
+			intervalIndex.remove(current);
+		}
+		if (guestChanged) {
+			guestIndex.remove(current);
+		}
+		store.put(replacement);
+		if (moved) {
+			intervalIndex.add(replacement);
+		}
+		if (guestChanged) {
+			guestIndex.add(replacement);
+		}
+	}
+
+	/**
+	 * @return the removed booking or null
+	 */
+	Booking remove(int id) {
+		Booking booking = store.remove(id);
+		if (booking != null) {
+			ids.remove(id);
+			intervalIndex.remove(booking);
+			guestIndex.remove(booking);
+		}
+		return booking;
+	}
+
+	void clear() {
+		store.clear();
+		ids.clear();
+		intervalIndex.clear();
+		guestIndex.clear();
+	}
+}
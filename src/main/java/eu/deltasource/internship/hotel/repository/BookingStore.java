@@ -0,0 +1,48 @@
+package eu.deltasource.internship.hotel.repository;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+
+import java.util.List;
+
+/**
+ * Storage engine of the booking repository, which keeps
+ * the bookings keyed by id and in insertion order.
+ * <p>
+ * Implementations are not thread safe. The repository serializes
+ * all writes to a store and runs reads optimistically, so a read racing with a
+ * write may fail or return garbage, which is then discarded, but it
+ * must never block or loop forever.
+ * <p>
+ * The bookings handed out are read-only, so callers may share them.
+ */
+public interface BookingStore {
+
+	/**
+	 * Returns the booking with the given id or null.
+	 */
+	Booking get(int id);
+
+	boolean contains(int id);
+
+	/**
+	 * Stores the booking under its id, replacing
+	 * a stored booking with the same id in place.
+	 */
+	void put(Booking booking);
+
+	/**
+	 * Removes the booking with the given id.
+	 *
+	 * @return the removed booking or null
+	 */
+	Booking remove(int id);
+
+	void clear();
+
+	int size();
+
+	/**
+	 * Returns a new list of all bookings in insertion order.
+	 */
+	List<Booking> values();
+}
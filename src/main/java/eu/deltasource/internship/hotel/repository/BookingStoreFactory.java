@@ -0,0 +1,13 @@
+package eu.deltasource.internship.hotel.repository;
+
+/**
+ * Creates the storage engine of each shard of the booking repository.
+ */
+@FunctionalInterface
+public interface BookingStoreFactory {
+
+	/**
+	 * @param shard index of the shard, starting from 0
+	 */
+	BookingStore create(int shard);
+}
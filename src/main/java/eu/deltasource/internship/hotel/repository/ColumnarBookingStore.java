@@ -0,0 +1,277 @@
+package eu.deltasource.internship.hotel.repository;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the bookings in parallel primitive arrays, one per field,
+ * with the dates as epoch days. Booking objects are only created
+ * when they are handed out.
+ * <p>
+ * Rows are appended in insertion order. A removed row is marked by
+ * the id 0 and stays as a hole, until the columns are compacted on
+ * growth. An open addressing table maps every id to its row.
+ * <p>
+ * The columns hold three rows for every four slots of the table,
+ * so a row takes 26 bytes of columns and 16/3 bytes of the table,
+ * about 31.3 bytes in all. That is the cost of a booking only while
+ * the rows are all used: right after the columns doubled, or once half
+ * of the rows are holes, a booking takes twice as much, 62.7 bytes.
+ * <p>
+ * The store is not all a booking costs in the repository. Each shard
+ * also keeps, per booking,
+ * <ul>
+ * <li>its interval in the index of its room, 12 bytes, up to 24 bytes
+ * while the arrays of the room are not full after doubling,
+ * and about 100 bytes for every room with bookings,</li>
+ * <li>its id in the index of its guest, 4 bytes, up to 8 bytes,
+ * and about 70 bytes for every guest with bookings,</li>
+ * <li>its id in the ordered ids of the shard, 4 bytes when ids are
+ * appended, up to 8 bytes when chunks were split,</li>
+ * </ul>
+ * and the shard directory takes a byte for every id ever issued.
+ * So a repository of these stores needs 52 bytes per booking at best,
+ * plus the rooms and guests, and about twice that in the worst case.
+ */
+public final class ColumnarBookingStore implements BookingStore {
+
+	private static final int DEFAULT_CAPACITY = 1024;
+	private static final int EMPTY = 0;
+	private static final int REMOVED = 0;
+
+	private int[] ids;
+	private int[] guestIds;
+	private int[] roomIds;
+	private short[] people;
+	private int[] fromDays;
+	private int[] toDays;
+	private int[] versions;
+	private int rowCount;
+	private int size;
+	private int[] table;
+	private int mask;
+
+	public ColumnarBookingStore() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ColumnarBookingStore(int expectedSize) {
+		int tableSize = tableSizeFor(Math.max(DEFAULT_CAPACITY, expectedSize));
+		allocateColumns(rowCapacityOf(tableSize));
+		table = new int[tableSize];
+		mask = tableSize - 1;
+	}
+
+	@Override
+	public Booking get(int id) {
+		int row = rowOf(id);
+		return row < 0 ? null : materialize(row);
+	}
+
+	@Override
+	public boolean contains(int id) {
+		return rowOf(id) >= 0;
+	}
+
+	@Override
+	public void put(Booking booking) {
+		int numberOfPeople = booking.getNumberOfPeople();
+		if (numberOfPeople < 0 || numberOfPeople > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Number of people does not fit the column!");
+		}
+		int id = booking.getBookingId();
+		int slot = slotOf(id);
+		int row;
+		if (table[slot] != EMPTY) {
+			row = table[slot] - 1;
+		} else {
+			if (rowCount == ids.length) {
+				ensureRowCapacity();
+				slot = slotOf(id);
+			}
+			row = rowCount;
+			size++;
+		}
+		guestIds[row] = booking.getGuestId();
+		roomIds[row] = booking.getRoomId();
+		people[row] = (short) numberOfPeople;
+		fromDays[row] = BookingIntervalIndex.toDay(booking.getFrom());
+		toDays[row] = BookingIntervalIndex.toDay(booking.getTo());
+		versions[row] = booking.getVersion();
+		if (row == rowCount) {
+			ids[row] = id;
+			table[slot] = ++rowCount;
+		}
+	}
+
+	@Override
+	public Booking remove(int id) {
+		int slot = slotOf(id);
+		if (table[slot] == EMPTY) {
+			return null;
+		}
+		int row = table[slot] - 1;
+		Booking removed = materialize(row);
+		ids[row] = REMOVED;
+		size--;
+		deleteSlot(slot);
+		return removed;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(table, EMPTY);
+		rowCount = 0;
+		size = 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Scans the columns sequentially, skipping the holes.
+	 */
+	@Override
+	public List<Booking> values() {
+		List<Booking> result = new ArrayList<>(size);
+		int[] currentIds = ids;
+		int count = Math.min(rowCount, currentIds.length);
+		for (int row = 0; row < count; row++) {
+			if (currentIds[row] != REMOVED) {
+				result.add(materialize(row));
+			}
+		}
+		return result;
+	}
+
+	private Booking materialize(int row) {
+		return new Booking(ids[row], guestIds[row], roomIds[row], people[row],
+			LocalDate.ofEpochDay(fromDays[row]), LocalDate.ofEpochDay(toDays[row]), versions[row]).makeReadOnly();
+	}
+
+	private int rowOf(int id) {
+		int entry = table[slotOf(id)];
+		return entry == EMPTY ? -1 : entry - 1;
+	}
+
+	/**
+	 * Returns the slot holding the id, or the empty slot
+	 * where the id would be inserted.
+	 */
+	private int slotOf(int id) {
+		int[] currentTable = table;
+		int currentMask = currentTable.length - 1;
+		int slot = hash(id) & currentMask;
+		while (currentTable[slot] != EMPTY && ids[currentTable[slot] - 1] != id) {
+			slot = (slot + 1) & currentMask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Backward shift deletion, which keeps the probe
+	 * sequences intact without tombstones in the table.
+	 */
+	private void deleteSlot(int slot) {
+		int hole = slot;
+		int next = (hole + 1) & mask;
+		while (table[next] != EMPTY) {
+			int home = hash(ids[table[next] - 1]) & mask;
+			boolean canMove = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+			if (canMove) {
+				table[hole] = table[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		table[hole] = EMPTY;
+	}
+
+	/**
+	 * Doubles the columns if most rows are live, otherwise
+	 * only squeezes out the holes, and rebuilds the id table.
+	 * The new columns are filled before they are published.
+	 */
+	private void ensureRowCapacity() {
+		int tableSize = size * 2 > ids.length ? table.length << 1 : table.length;
+		int capacity = rowCapacityOf(tableSize);
+		int[] newIds = new int[capacity];
+		int[] newGuestIds = new int[capacity];
+		int[] newRoomIds = new int[capacity];
+		short[] newPeople = new short[capacity];
+		int[] newFromDays = new int[capacity];
+		int[] newToDays = new int[capacity];
+		int[] newVersions = new int[capacity];
+		int live = 0;
+		for (int row = 0; row < rowCount; row++) {
+			if (ids[row] != REMOVED) {
+				newIds[live] = ids[row];
+				newGuestIds[live] = guestIds[row];
+				newRoomIds[live] = roomIds[row];
+				newPeople[live] = people[row];
+				newFromDays[live] = fromDays[row];
+				newToDays[live] = toDays[row];
+				newVersions[live] = versions[row];
+				live++;
+			}
+		}
+		int newMask = tableSize - 1;
+		int[] newTable = new int[tableSize];
+		for (int row = 0; row < live; row++) {
+			int slot = hash(newIds[row]) & newMask;
+			while (newTable[slot] != EMPTY) {
+				slot = (slot + 1) & newMask;
+			}
+			newTable[slot] = row + 1;
+		}
+		ids = newIds;
+		guestIds = newGuestIds;
+		roomIds = newRoomIds;
+		people = newPeople;
+		fromDays = newFromDays;
+		toDays = newToDays;
+		versions = newVersions;
+		table = newTable;
+		mask = newMask;
+		rowCount = live;
+	}
+
+	private void allocateColumns(int capacity) {
+		ids = new int[capacity];
+		guestIds = new int[capacity];
+		roomIds = new int[capacity];
+		people = new short[capacity];
+		fromDays = new int[capacity];
+		toDays = new int[capacity];
+		versions = new int[capacity];
+	}
+
+	/**
+	 * Returns the smallest table, which holds the given number of rows.
+	 */
+	private static int tableSizeFor(int rows) {
+		int tableSize = Integer.highestOneBit(rows);
+		while (rowCapacityOf(tableSize) < rows) {
+			tableSize <<= 1;
+		}
+		return tableSize;
+	}
+
+	/**
+	 * Keeps the table at most three quarters full.
+	 */
+	private static int rowCapacityOf(int tableSize) {
+		return tableSize - tableSize / 4;
+	}
+
+	private static int hash(int id) {
+		int hash = id * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
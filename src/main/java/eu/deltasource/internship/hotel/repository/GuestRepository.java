@@ -2,6 +2,13 @@ package eu.deltasource.internship.hotel.repository;
 
 import eu.deltasource.internship.hotel.domain.Guest;
 import eu.deltasource.internship.hotel.exception.ItemNotFoundException;
+import eu.deltasource.internship.hotel.exception.VersionConflictException;
+import eu.deltasource.internship.hotel.utility.IdAllocator;
+import eu.deltasource.internship.hotel.utility.IdAllocatorFactory;
+import eu.deltasource.internship.hotel.utility.IntObjectHashMap;
+import eu.deltasource.internship.hotel.utility.SequentialIdAllocator;
+import eu.deltasource.internship.hotel.utility.SortedIntSet;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
@@ -11,18 +18,62 @@ import java.util.List;
 
 /**
  * Represents repository for guests
+ * <p>
+ * Safe for concurrent use: reads do not lock and writes are
+ * serialized. Stored guests are never changed in place,
+ * updates replace them with new instances.
  */
 @Repository
 public class GuestRepository {
 
-	private final List<Guest> repository;
+	private final IntObjectHashMap<Guest> repository;
+	// the ids of the items, in order, so pages seek to their first id
+	private final SortedIntSet ids = new SortedIntSet();
+	private final RepositoryLock lock = new RepositoryLock();
+	private final IdAllocator idAllocator;
 
 	/**
 	 * Default constructor, which initializes the repository
-	 * as an empty ArrayList.
+	 * as an empty map, keyed by id and kept in insertion order.
 	 */
 	public GuestRepository() {
-		repository = new ArrayList<>();
+		this(new SequentialIdAllocator(), SnapshotStore.NONE);
+	}
+
+	/**
+	 * Initializes the repository from the latest snapshot, if any.
+	 */
+	public GuestRepository(SnapshotStore snapshotStore) {
+		this(new SequentialIdAllocator(), snapshotStore);
+	}
+
+	/**
+	 * Initializes the repository from the latest snapshot, if any,
+	 * taking the ids of new items from an allocator of the factory.
+	 */
+	@Autowired
+	public GuestRepository(IdAllocatorFactory idAllocators, SnapshotStore snapshotStore) {
+		this(idAllocators.create(), snapshotStore);
+	}
+
+	/**
+	 * Initializes an empty repository, which takes
+	 * the ids of new items from the given allocator.
+	 */
+	public GuestRepository(IdAllocator idAllocator) {
+		this(idAllocator, SnapshotStore.NONE);
+	}
+
+	public GuestRepository(IdAllocator idAllocator, SnapshotStore snapshotStore) {
+		this.idAllocator = idAllocator;
+		repository = new IntObjectHashMap<>();
+		snapshotStore.loadGuests().ifPresent(snapshot -> {
+			for (Guest item : snapshot.getItems()) {
+				repository.put(item.getGuestId(), item.makeReadOnly());
+				ids.add(item.getGuestId());
+			}
+			idAllocator.advanceTo(snapshot.getHighestIssuedId());
+		});
 	}
 
 	/**
@@ -30,7 +81,33 @@ public class GuestRepository {
 	 * currently in the repository.
 	 */
 	public List<Guest> findAll() {
-		return Collections.unmodifiableList(repository);
+		return Collections.unmodifiableList(lock.read(repository::values));
+	}
+
+	/**
+	 * Returns an unmodifiable list of at most limit items
+	 * with ids greater than afterId, in ascending id order.
+	 * <p>
+	 * The page seeks to afterId in the ordered ids, so
+	 * deleted items cost nothing.
+	 */
+	public List<Guest> findPage(int afterId, int limit) {
+		return Collections.unmodifiableList(lock.read(() -> {
+			int[] pageIds = ids.after(afterId, limit);
+			List<Guest> page = new ArrayList<>(pageIds.length);
+			for (int id : pageIds) {
+				page.add(repository.get(id));
+			}
+			return page;
+		}));
+	}
+
+	/**
+	 * Returns a consistent copy of the repository.
+	 * Writers are held back only while the references are copied.
+	 */
+	public RepositorySnapshot<Guest> snapshot() {
+		return lock.read(() -> new RepositorySnapshot<>(repository.values(), idAllocator.highestIssuedId(), 0));
 	}
 
 	/**
@@ -40,43 +117,44 @@ public class GuestRepository {
 	 * Check this always, before using operations with id's.
 	 */
 	public boolean existsById(int id) {
-		for (Guest item : repository) {
-			if (item.getGuestId() == id)
-				return true;
-		}
-		return false;
+		return lock.read(() -> repository.containsKey(id));
 	}
 
 	/**
-	 * Returns a copy of the item from the repository
+	 * Returns the read-only item from the repository
 	 * with the given Id.
 	 */
 	public Guest findById(int id) {
-		for (Guest item : repository) {
-			if (item.getGuestId() == id)
-				return new Guest(item);
+		Guest item = lock.read(() -> repository.get(id));
+		if (item == null) {
+			throw new ItemNotFoundException("A Guest with id: " + id + " was not found!");
 		}
-		throw new ItemNotFoundException("A Guest with id: " + id + " was not found!");
+		return item;
 	}
 
-	private int idGenerator() {
-		if (count() == 0) {
-			return count() + 1;
-		}
-		return repository.get(count() - 1).getGuestId() + 1;
+	/**
+	 * Saves a copy of the item under a newly allocated id.
+	 *
+	 * @return the saved read-only item
+	 */
+	public Guest save(Guest item) {
+		return lock.write(() -> insert(item, idAllocator.nextId()));
 	}
 
-	public void save(Guest item) {
-		Guest newGuest = new Guest(idGenerator(), item.getFirstName(), item.getLastName(), item.getGender());
-		repository.add(newGuest);
+	private Guest insert(Guest item, int id) {
+		Guest newGuest = new Guest(id, item.getFirstName(), item.getLastName(), item.getGender(), Versions.FIRST)
+			.makeReadOnly();
+		repository.put(newGuest.getGuestId(), newGuest);
+		ids.add(id);
+		return newGuest;
 	}
 
 	/**
 	 * Saves the list of items in the repository
 	 */
 	public void saveAll(List<Guest> items) {
-		items.forEach(
-			this::save);
+		lock.write(() -> items.forEach(
+			item -> insert(item, idAllocator.nextId())));
 	}
 
 	/**
@@ -88,14 +166,33 @@ public class GuestRepository {
 	}
 
 	public Guest updateGuest(Guest item) {
-		for (Guest guest : repository) {
-			if (guest.getGuestId() == item.getGuestId()) {
-				guest.changeGender(item.getGender());
-				guest.changeFirstAndLastNames(item.getFirstName(), item.getLastName());
-				return new Guest(guest);
+		return updateGuest(item, Versions.ANY);
+	}
+
+	/**
+	 * Replaces the guest with the id of the item, if it still has the
+	 * expected version, under the next version.
+	 *
+	 * @param expectedVersion version the update is based on, or {@link Versions#ANY}
+	 * @return the updated read-only item
+	 * @throws VersionConflictException if the guest was changed since
+	 */
+	public Guest updateGuest(Guest item, int expectedVersion) {
+		Guest updated = lock.write(() -> {
+			Guest current = repository.get(item.getGuestId());
+			if (current == null) {
+				return null;
 			}
+			Versions.check(expectedVersion, current.getVersion());
+			Guest replacement = new Guest(item.getGuestId(), item.getFirstName(), item.getLastName(), item.getGender(),
+				current.getVersion() + 1).makeReadOnly();
+			repository.put(replacement.getGuestId(), replacement);
+			return replacement;
+		});
+		if (updated == null) {
+			throw new ItemNotFoundException("Guest not found in repository!");
 		}
-		throw new ItemNotFoundException("Guest not found in repository!");
+		return updated;
 	}
 
 	/**
@@ -106,29 +203,34 @@ public class GuestRepository {
 	 * returns false if there's no match and the list is unchanged.
 	 */
 	public boolean delete(Guest item) {
-		return repository.remove(item);
+		return item != null && deleteById(item.getGuestId());
 	}
 
 	public boolean deleteById(int id) {
-		for (Guest guest : repository) {
-			if (guest.getGuestId() == id) {
-				return delete(guest);
+		return lock.write(() -> {
+			if (repository.remove(id) == null) {
+				return false;
 			}
-		}
-		return false;
+			ids.remove(id);
+			return true;
+		});
 	}
 
 	/**
-	 * Deletes all items in the repository
+	 * Deletes all items in the repository,
+	 * their ids are not handed out again
 	 */
 	public void deleteAll() {
-		repository.clear();
+		lock.write(() -> {
+			repository.clear();
+			ids.clear();
+		});
 	}
 
 	/**
 	 * Returns the number of items left in the repository
 	 */
 	public int count() {
-		return repository.size();
+		return lock.read(repository::size);
 	}
 }
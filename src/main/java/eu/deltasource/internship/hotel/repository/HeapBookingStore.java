@@ -0,0 +1,50 @@
+package eu.deltasource.internship.hotel.repository;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.utility.IntObjectHashMap;
+
+import java.util.List;
+
+/**
+ * Keeps the booking objects themselves on the heap.
+ * Stored bookings are handed out as they are.
+ */
+public final class HeapBookingStore implements BookingStore {
+
+	private final IntObjectHashMap<Booking> bookings = new IntObjectHashMap<>();
+
+	@Override
+	public Booking get(int id) {
+		return bookings.get(id);
+	}
+
+	@Override
+	public boolean contains(int id) {
+		return bookings.containsKey(id);
+	}
+
+	@Override
+	public void put(Booking booking) {
+		bookings.put(booking.getBookingId(), booking);
+	}
+
+	@Override
+	public Booking remove(int id) {
+		return bookings.remove(id);
+	}
+
+	@Override
+	public void clear() {
+		bookings.clear();
+	}
+
+	@Override
+	public int size() {
+		return bookings.size();
+	}
+
+	@Override
+	public List<Booking> values() {
+		return bookings.values();
+	}
+}
@@ -0,0 +1,55 @@
+package eu.deltasource.internship.hotel.repository;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Guards the in-memory structures of a repository.
+ * <p>
+ * Writers are serialized by an exclusive lock. Readers do not lock:
+ * they run optimistically and are retried under a read lock only if
+ * a write happened in the meantime. Readers should therefore only
+ * look things up and must not have side effects.
+ */
+final class RepositoryLock {
+
+	private final StampedLock lock = new StampedLock();
+
+	<T> T read(Supplier<T> reader) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0L) {
+			try {
+				T result = reader.get();
+				if (lock.validate(stamp)) {
+					return result;
+				}
+			} catch (RuntimeException tornRead) {
+				// the structures were changed while reading, retried below
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return reader.get();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	<T> T write(Supplier<T> writer) {
+		long stamp = lock.writeLock();
+		try {
+			return writer.get();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	void write(Runnable writer) {
+		long stamp = lock.writeLock();
+		try {
+			writer.run();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+}
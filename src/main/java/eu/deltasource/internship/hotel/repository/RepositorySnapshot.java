@@ -0,0 +1,29 @@
+package eu.deltasource.internship.hotel.repository;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Point in time copy of the contents of a repository
+ */
+@Getter
+public class RepositorySnapshot<T> {
+
+	private final List<T> items;
+	private final int highestIssuedId;
+	private final long logSequence;
+
+	/**
+	 * @param items           the items in insertion order
+	 * @param highestIssuedId no id up to this one may be handed out again
+	 * @param logSequence     sequence of the last log record reflected in the items,
+	 *                        0 for repositories without a log
+	 */
+	public RepositorySnapshot(List<T> items, int highestIssuedId, long logSequence) {
+		this.items = Collections.unmodifiableList(items);
+		this.highestIssuedId = highestIssuedId;
+		this.logSequence = logSequence;
+	}
+}
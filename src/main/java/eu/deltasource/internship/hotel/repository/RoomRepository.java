@@ -2,32 +2,123 @@ package eu.deltasource.internship.hotel.repository;
 
 import eu.deltasource.internship.hotel.domain.Room;
 import eu.deltasource.internship.hotel.exception.ItemNotFoundException;
+import eu.deltasource.internship.hotel.exception.VersionConflictException;
+import eu.deltasource.internship.hotel.utility.IdAllocator;
+import eu.deltasource.internship.hotel.utility.IdAllocatorFactory;
+import eu.deltasource.internship.hotel.utility.IntObjectHashMap;
+import eu.deltasource.internship.hotel.utility.SequentialIdAllocator;
+import eu.deltasource.internship.hotel.utility.SortedIntSet;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
 
 /**
  * Represents repository for rooms
+ * <p>
+ * Safe for concurrent use: reads do not lock and writes are
+ * serialized. Stored rooms are never changed in place,
+ * updates replace them with new instances.
  */
 @Repository
 public class RoomRepository {
 
-	private final List<Room> repository;
+	private final IntObjectHashMap<Room> repository;
+	// the ids of the items, in order, so pages seek to their first id
+	private final SortedIntSet ids = new SortedIntSet();
+	private final RepositoryLock lock = new RepositoryLock();
+	private final IdAllocator idAllocator;
+	private volatile long modificationCount;
+	private volatile List<Room> allRooms;
 
 	/**
 	 * Default constructor, which initializes the repository
-	 * as an empty ArrayList.
+	 * as an empty map, keyed by id and kept in insertion order.
 	 */
 	public RoomRepository() {
-		repository = new ArrayList<>();
+		this(new SequentialIdAllocator(), SnapshotStore.NONE);
+	}
+
+	/**
+	 * Initializes the repository from the latest snapshot, if any.
+	 */
+	public RoomRepository(SnapshotStore snapshotStore) {
+		this(new SequentialIdAllocator(), snapshotStore);
+	}
+
+	/**
+	 * Initializes the repository from the latest snapshot, if any,
+	 * taking the ids of new items from an allocator of the factory.
+	 */
+	@Autowired
+	public RoomRepository(IdAllocatorFactory idAllocators, SnapshotStore snapshotStore) {
+		this(idAllocators.create(), snapshotStore);
+	}
+
+	/**
+	 * Initializes an empty repository, which takes
+	 * the ids of new items from the given allocator.
+	 */
+	public RoomRepository(IdAllocator idAllocator) {
+		this(idAllocator, SnapshotStore.NONE);
+	}
+
+	public RoomRepository(IdAllocator idAllocator, SnapshotStore snapshotStore) {
+		this.idAllocator = idAllocator;
+		repository = new IntObjectHashMap<>();
+		snapshotStore.loadRooms().ifPresent(snapshot -> {
+			for (Room item : snapshot.getItems()) {
+				repository.put(item.getRoomId(), item.makeReadOnly());
+				ids.add(item.getRoomId());
+			}
+			idAllocator.advanceTo(snapshot.getHighestIssuedId());
+		});
 	}
 
 	/**
 	 * Returns an unmodifiable list of all items
 	 * currently in the repository.
+	 * <p>
+	 * The list is copied once after every change and
+	 * then shared, as rooms are read far more often.
 	 */
 	public List<Room> findAll() {
-		return Collections.unmodifiableList(repository);
+		List<Room> items = allRooms;
+		if (items == null) {
+			items = lock.write(() -> {
+				if (allRooms == null) {
+					allRooms = Collections.unmodifiableList(repository.values());
+				}
+				return allRooms;
+			});
+		}
+		return items;
+	}
+
+	/**
+	 * Returns an unmodifiable list of at most limit items
+	 * with ids greater than afterId, in ascending id order.
+	 * <p>
+	 * The page seeks to afterId in the ordered ids, so
+	 * deleted items cost nothing.
+	 */
+	public List<Room> findPage(int afterId, int limit) {
+		return Collections.unmodifiableList(lock.read(() -> {
+			int[] pageIds = ids.after(afterId, limit);
+			List<Room> page = new ArrayList<>(pageIds.length);
+			for (int id : pageIds) {
+				page.add(repository.get(id));
+			}
+			return page;
+		}));
+	}
+
+	/**
+	 * Returns a consistent copy of the repository.
+	 * Writers are held back only while the references are copied.
+	 */
+	public RepositorySnapshot<Room> snapshot() {
+		return lock.read(() -> new RepositorySnapshot<>(repository.values(), idAllocator.highestIssuedId(), 0));
 	}
 
 	/**
@@ -37,43 +128,54 @@ public class RoomRepository {
 	 * Check this always, before using operations with id's.
 	 */
 	public boolean existsById(int id) {
-		for (Room item : repository) {
-			if (item.getRoomId() == id)
-				return true;
-		}
-		return false;
+		return lock.read(() -> repository.containsKey(id));
 	}
 
 	/**
-	 * Returns a copy of the item from the repository
+	 * Returns the read-only item from the repository
 	 * with the given Id.
 	 */
 	public Room findById(int id) {
-		for (Room item : repository) {
-			if (item.getRoomId() == id)
-				return new Room(item);
+		Room item = lock.read(() -> repository.get(id));
+		if (item == null) {
+			throw new ItemNotFoundException("A Room with id: " + id + " was not found!");
 		}
-		throw new ItemNotFoundException("A Room with id: " + id + " was not found!");
+		return item;
 	}
 
-	private int idGenerator() {
-		if (count() == 0) {
-			return count() + 1;
-		}
-		return repository.get(count() - 1).getRoomId() + 1;
+	/**
+	 * Returns a counter, which changes every time
+	 * a room is added, updated or removed.
+	 * <p>
+	 * Lets caches built from the rooms know when to refresh.
+	 */
+	public long modificationCount() {
+		return modificationCount;
+	}
+
+	/**
+	 * Saves a copy of the item under a newly allocated id.
+	 *
+	 * @return the saved read-only item
+	 */
+	public Room save(Room item) {
+		return lock.write(() -> insert(item, idAllocator.nextId()));
 	}
 
-	public void save(Room item) {
-		Room newRoom = new Room(idGenerator(), item.getCommodities());
-		repository.add(newRoom);
+	private Room insert(Room item, int id) {
+		Room newRoom = new Room(id, item.getCommodities(), Versions.FIRST).makeReadOnly();
+		repository.put(newRoom.getRoomId(), newRoom);
+		ids.add(id);
+		changed();
+		return newRoom;
 	}
 
 	/**
 	 * Saves the list of items in the repository
 	 */
 	public void saveAll(List<Room> items) {
-		items.forEach(
-			this::save);
+		lock.write(() -> items.forEach(
+			item -> insert(item, idAllocator.nextId())));
 	}
 
 	/**
@@ -84,13 +186,34 @@ public class RoomRepository {
 	}
 
 	public Room updateRoom(Room item) {
-		for (Room room : repository) {
-			if (room.getRoomId() == item.getRoomId()) {
-				room.updateCommodities(item.getCommodities());
-				return new Room(room);
+		return updateRoom(item, Versions.ANY);
+	}
+
+	/**
+	 * Replaces the room with the id of the item, if it still has the
+	 * expected version, under the next version.
+	 *
+	 * @param expectedVersion version the update is based on, or {@link Versions#ANY}
+	 * @return the updated read-only item
+	 * @throws VersionConflictException if the room was changed since
+	 */
+	public Room updateRoom(Room item, int expectedVersion) {
+		Room updated = lock.write(() -> {
+			Room current = repository.get(item.getRoomId());
+			if (current == null) {
+				return null;
 			}
+			Versions.check(expectedVersion, current.getVersion());
+			Room replacement = new Room(item.getRoomId(), item.getCommodities(), current.getVersion() + 1)
+				.makeReadOnly();
+			repository.put(replacement.getRoomId(), replacement);
+			changed();
+			return replacement;
+		});
+		if (updated == null) {
+			throw new ItemNotFoundException("Room not found in repository!");
 		}
-		throw new ItemNotFoundException("Room not found in repository!");
+		return updated;
 	}
 
 	/**
@@ -101,29 +224,44 @@ public class RoomRepository {
 	 * returns false if there's no match and the list is unchanged.
 	 */
 	public boolean delete(Room item) {
-		return repository.remove(item);
+		return item != null && deleteById(item.getRoomId());
 	}
 
 	public boolean deleteById(int id) {
-		for (Room room : repository) {
-			if (room.getRoomId() == id) {
-				return delete(room);
+		return lock.write(() -> {
+			if (repository.remove(id) == null) {
+				return false;
 			}
-		}
-		return false;
+			ids.remove(id);
+			changed();
+			return true;
+		});
 	}
 
 	/**
-	 * Deletes all items in the repository
+	 * Deletes all items in the repository,
+	 * their ids are not handed out again
 	 */
 	public void deleteAll() {
-		repository.clear();
+		lock.write(() -> {
+			repository.clear();
+			ids.clear();
+			changed();
+		});
+	}
+
+	/**
+	 * Must be called under the write lock after every change.
+	 */
+	private void changed() {
+		modificationCount++;
+		allRooms = null;
 	}
 
 	/**
 	 * Returns the number of items left in the repository
 	 */
 	public int count() {
-		return repository.size();
+		return lock.read(repository::size);
 	}
 }
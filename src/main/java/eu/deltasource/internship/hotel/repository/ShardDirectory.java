@@ -0,0 +1,60 @@
+package eu.deltasource.internship.hotel.repository;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Maps booking ids to the shards holding them, one byte per id.
+ * <p>
+ * Ids are dense, so the bytes are kept in chunks, allocated as the
+ * ids grow. An entry is written by the writer of its shard and may
+ * be read without a lock.
+ */
+final class ShardDirectory {
+
+	static final int MAX_SHARDS = Byte.MAX_VALUE;
+	private static final int CHUNK_BITS = 16;
+	private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+	private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+	private final AtomicReferenceArray<byte[]> chunks = new AtomicReferenceArray<>(1 << (Integer.SIZE - 1 - CHUNK_BITS));
+
+	/**
+	 * @return the shard of the booking, or -1 if it is in none
+	 */
+	int shardOf(int id) {
+		byte[] chunk = chunks.get(id >>> CHUNK_BITS);
+		if (chunk == null) {
+			return -1;
+		}
+		return (byte) ENTRIES.getAcquire(chunk, id & CHUNK_MASK) - 1;
+	}
+
+	void put(int id, int shard) {
+		int index = id >>> CHUNK_BITS;
+		byte[] chunk = chunks.get(index);
+		if (chunk == null) {
+			// writers of several shards may allocate the chunk at once, only the first one is kept
+			chunks.compareAndSet(index, null, new byte[CHUNK_MASK + 1]);
+			chunk = chunks.get(index);
+		}
+		ENTRIES.setRelease(chunk, id & CHUNK_MASK, (byte) (shard + 1));
+	}
+
+	void remove(int id) {
+		byte[] chunk = chunks.get(id >>> CHUNK_BITS);
+		if (chunk != null) {
+			ENTRIES.setRelease(chunk, id & CHUNK_MASK, (byte) 0);
+		}
+	}
+
+	/**
+	 * Must be called while all shards are locked.
+	 */
+	void clear() {
+		for (int i = 0; i < chunks.length(); i++) {
+			chunks.set(i, null);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package eu.deltasource.internship.hotel.repository;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.domain.Guest;
+import eu.deltasource.internship.hotel.domain.Room;
+
+import java.util.Optional;
+
+/**
+ * Keeps the snapshots of the repositories,
+ * which they are initialized from on startup
+ */
+public interface SnapshotStore {
+
+	/**
+	 * Store without any snapshots
+	 */
+	SnapshotStore NONE = new SnapshotStore() {
+		@Override
+		public Optional<RepositorySnapshot<Guest>> loadGuests() {
+			return Optional.empty();
+		}
+
+		@Override
+		public Optional<RepositorySnapshot<Room>> loadRooms() {
+			return Optional.empty();
+		}
+
+		@Override
+		public Optional<RepositorySnapshot<Booking>> loadBookings() {
+			return Optional.empty();
+		}
+
+		@Override
+		public void saveGuests(RepositorySnapshot<Guest> snapshot) {
+		}
+
+		@Override
+		public void saveRooms(RepositorySnapshot<Room> snapshot) {
+		}
+
+		@Override
+		public void saveBookings(RepositorySnapshot<Booking> snapshot) {
+		}
+	};
+
+	Optional<RepositorySnapshot<Guest>> loadGuests();
+
+	Optional<RepositorySnapshot<Room>> loadRooms();
+
+	Optional<RepositorySnapshot<Booking>> loadBookings();
+
+	/**
+	 * Stores the snapshot, replacing the previous one
+	 * only once the new one is complete.
+	 */
+	void saveGuests(RepositorySnapshot<Guest> snapshot);
+
+	void saveRooms(RepositorySnapshot<Room> snapshot);
+
+	void saveBookings(RepositorySnapshot<Booking> snapshot);
+}
@@ -0,0 +1,33 @@
+package eu.deltasource.internship.hotel.repository;
+
+import eu.deltasource.internship.hotel.exception.VersionConflictException;
+
+/**
+ * Versions of the stored items, used for optimistic concurrency.
+ * <p>
+ * A saved item gets the version {@value #FIRST} and every update
+ * increments it. A conditional update names the version it is based
+ * on and fails if the item was changed since.
+ */
+public final class Versions {
+
+	/**
+	 * Expected version of an update, which applies to any version
+	 */
+	public static final int ANY = 0;
+
+	public static final int FIRST = 1;
+
+	private Versions() {
+	}
+
+	/**
+	 * @throws VersionConflictException if the expected version is not the current one
+	 */
+	static void check(int expectedVersion, int currentVersion) {
+		if (expectedVersion != ANY && expectedVersion != currentVersion) {
+			throw new VersionConflictException("The item was changed, its version is " + currentVersion
+				+ " instead of " + expectedVersion + "!");
+		}
+	}
+}
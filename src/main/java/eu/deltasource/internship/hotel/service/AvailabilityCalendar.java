@@ -0,0 +1,288 @@
+package eu.deltasource.internship.hotel.service;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.repository.BookingChangeListener;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.utility.IntObjectHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Per-room occupancy bitmaps over a rolling window of days.
+ * <p>
+ * Bit i of a room is set when the room is booked for the night of
+ * window start + i. The calendar listens to the booking repository,
+ * so it follows every save, update and delete incrementally, and
+ * a range check becomes a few masked word operations.
+ * <p>
+ * The calendar is striped like the repository: the rooms of each
+ * shard have their bitmaps, window and lock of their own, so the
+ * changes of different shards, which are delivered concurrently,
+ * never wait for each other.
+ * <p>
+ * The window of a stripe rolls forward by whole words, shifting its
+ * bitmaps under its lock. Bookings which reach past the end of the
+ * window are kept aside, so the days entering it are marked without
+ * going back to the repository.
+ * <p>
+ * Periods outside of the window are answered by the booking repository.
+ */
+@Component
+public class AvailabilityCalendar implements BookingChangeListener {
+
+	static final int HISTORY_DAYS = Long.SIZE;
+	static final int WINDOW_WORDS = 12;
+	static final int WINDOW_DAYS = WINDOW_WORDS * Long.SIZE;
+
+	private final BookingRepository bookingRepository;
+	private final Clock clock;
+	private final Stripe[] stripes;
+
+	@Autowired
+	public AvailabilityCalendar(BookingRepository bookingRepository) {
+		this(bookingRepository, Clock.systemDefaultZone());
+	}
+
+	AvailabilityCalendar(BookingRepository bookingRepository, Clock clock) {
+		this.bookingRepository = bookingRepository;
+		this.clock = clock;
+		stripes = new Stripe[bookingRepository.shardCount()];
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = new Stripe(currentWindowStart());
+		}
+		bookingRepository.addListener(this);
+	}
+
+	/**
+	 * Returns those of the given rooms, which are free for the period [from, to),
+	 * in the order they were given.
+	 */
+	public List<Integer> findAvailableRooms(int[] roomIds, LocalDate from, LocalDate to) {
+		int start = currentWindowStart();
+		int fromDay = toDay(from);
+		int toDay = toDay(to);
+		List<Integer> available = new ArrayList<>();
+		for (int roomId : roomIds) {
+			Stripe stripe = stripeOf(roomId);
+			stripe.rollIfNeeded(start);
+			// null if the period is outside of the window
+			Boolean free = stripe.read(() -> {
+				int fromBit = fromDay - stripe.windowStart;
+				int toBit = toDay - stripe.windowStart;
+				return isInWindow(fromBit, toBit) ? isFree(stripe.rooms.get(roomId), fromBit, toBit) : null;
+			});
+			if (free == null ? bookingRepository.isRoomAvailable(roomId, from, to) : free) {
+				available.add(roomId);
+			}
+		}
+		return available;
+	}
+
+	@Override
+	public void onSaved(Booking booking) {
+		Stripe stripe = stripeOf(booking.getRoomId());
+		stripe.write(() -> stripe.add(booking));
+	}
+
+	@Override
+	public void onReplaced(Booking previous, Booking current) {
+		Stripe source = stripeOf(previous.getRoomId());
+		Stripe target = stripeOf(current.getRoomId());
+		if (source == target) {
+			source.write(() -> {
+				source.remove(previous);
+				source.add(current);
+			});
+		} else {
+			source.write(() -> source.remove(previous));
+			target.write(() -> target.add(current));
+		}
+	}
+
+	@Override
+	public void onDeleted(Booking booking) {
+		Stripe stripe = stripeOf(booking.getRoomId());
+		stripe.write(() -> stripe.remove(booking));
+	}
+
+	@Override
+	public void onCleared() {
+		int start = currentWindowStart();
+		for (Stripe stripe : stripes) {
+			stripe.write(() -> stripe.clear(start));
+		}
+	}
+
+	private Stripe stripeOf(int roomId) {
+		return stripes[bookingRepository.shardOf(roomId)];
+	}
+
+	/**
+	 * ORs the masked words of the range together, so the
+	 * room is free exactly when no bit of the range is set.
+	 */
+	private static boolean isFree(long[] words, int fromBit, int toBit) {
+		if (words == null) {
+			return true;
+		}
+		int first = fromBit >>> 6;
+		int last = (toBit - 1) >>> 6;
+		long firstMask = -1L << fromBit;
+		long lastMask = -1L >>> -toBit;
+		if (first == last) {
+			return (words[first] & firstMask & lastMask) == 0;
+		}
+		long booked = (words[first] & firstMask) | (words[last] & lastMask);
+		for (int i = first + 1; i < last; i++) {
+			booked |= words[i];
+		}
+		return booked == 0;
+	}
+
+	private static boolean isInWindow(int fromBit, int toBit) {
+		return fromBit >= 0 && toBit <= WINDOW_DAYS;
+	}
+
+	private int currentWindowStart() {
+		return toDay(LocalDate.now(clock)) - HISTORY_DAYS;
+	}
+
+	private static int toDay(LocalDate date) {
+		return Math.toIntExact(date.toEpochDay());
+	}
+
+	/**
+	 * Bitmaps and window of the rooms of one shard, guarded by a lock of their own.
+	 */
+	private static final class Stripe {
+
+		private final StampedLock lock = new StampedLock();
+		private final IntObjectHashMap<long[]> rooms = new IntObjectHashMap<>();
+		private final IntObjectHashMap<Booking> beyondWindow = new IntObjectHashMap<>();
+		// written under the write lock only, volatile for the check before rolling
+		private volatile int windowStart;
+
+		Stripe(int windowStart) {
+			this.windowStart = windowStart;
+		}
+
+		void add(Booking booking) {
+			mark(booking, true);
+			keepIfBeyondWindow(booking);
+		}
+
+		void remove(Booking booking) {
+			mark(booking, false);
+			beyondWindow.remove(booking.getBookingId());
+		}
+
+		void clear(int start) {
+			rooms.clear();
+			beyondWindow.clear();
+			windowStart = start;
+		}
+
+		/**
+		 * Moves the window forward once a whole word of it lies in the past.
+		 */
+		void rollIfNeeded(int start) {
+			if (start - windowStart >= Long.SIZE) {
+				write(() -> roll(start));
+			}
+		}
+
+		/**
+		 * Checks once more under the write lock, so that of the readers
+		 * crossing the boundary at the same time only the first one rolls.
+		 */
+		private void roll(int start) {
+			int words = (start - windowStart) / Long.SIZE;
+			if (words <= 0) {
+				return;
+			}
+			int kept = Math.max(WINDOW_WORDS - words, 0);
+			rooms.forEach(bitmap -> {
+				System.arraycopy(bitmap, WINDOW_WORDS - kept, bitmap, 0, kept);
+				Arrays.fill(bitmap, kept, WINDOW_WORDS, 0L);
+			});
+			windowStart += words * Long.SIZE;
+			for (Booking booking : beyondWindow.values()) {
+				mark(booking, true);
+				if (toDay(booking.getTo()) <= windowStart + WINDOW_DAYS) {
+					beyondWindow.remove(booking.getBookingId());
+				}
+			}
+		}
+
+		private void keepIfBeyondWindow(Booking booking) {
+			if (toDay(booking.getTo()) > windowStart + WINDOW_DAYS) {
+				beyondWindow.put(booking.getBookingId(), booking);
+			}
+		}
+
+		private void mark(Booking booking, boolean booked) {
+			int fromBit = Math.max(toDay(booking.getFrom()) - windowStart, 0);
+			int toBit = Math.min(toDay(booking.getTo()) - windowStart, WINDOW_DAYS);
+			if (fromBit >= toBit) {
+				return;
+			}
+			long[] words = rooms.get(booking.getRoomId());
+			if (words == null) {
+				if (!booked) {
+					return;
+				}
+				words = new long[WINDOW_WORDS];
+				rooms.put(booking.getRoomId(), words);
+			}
+			int first = fromBit >>> 6;
+			int last = (toBit - 1) >>> 6;
+			for (int i = first; i <= last; i++) {
+				long mask = -1L;
+				if (i == first) {
+					mask &= -1L << fromBit;
+				}
+				if (i == last) {
+					mask &= -1L >>> -toBit;
+				}
+				words[i] = booked ? words[i] | mask : words[i] & ~mask;
+			}
+		}
+
+		<T> T read(Supplier<T> reader) {
+			long stamp = lock.tryOptimisticRead();
+			if (stamp != 0L) {
+				try {
+					T result = reader.get();
+					if (lock.validate(stamp)) {
+						return result;
+					}
+				} catch (RuntimeException tornRead) {
+					// the bitmaps were changed while reading, retried below
+				}
+			}
+			stamp = lock.readLock();
+			try {
+				return reader.get();
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		void write(Runnable writer) {
+			long stamp = lock.writeLock();
+			try {
+				writer.run();
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package eu.deltasource.internship.hotel.service;
+
+import eu.deltasource.internship.hotel.domain.Room;
+import eu.deltasource.internship.hotel.exception.ArgumentNotValidException;
+import eu.deltasource.internship.hotel.exception.FailedInitializationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service class for availability
+ * questions over all rooms
+ */
+@Service
+public class AvailabilityService {
+
+	private final RoomService roomService;
+	private final AvailabilityCalendar availabilityCalendar;
+
+	@Autowired
+	public AvailabilityService(RoomService roomService, AvailabilityCalendar availabilityCalendar) {
+		this.roomService = roomService;
+		this.availabilityCalendar = availabilityCalendar;
+	}
+
+	/**
+	 * Returns the rooms with capacity of at least
+	 * numberOfPeople, which are free for [from, to)
+	 *
+	 * @param from           first night
+	 * @param to             departure date
+	 * @param numberOfPeople minimum capacity
+	 * @return list of the free rooms
+	 */
+	public List<Room> findAvailableRooms(LocalDate from, LocalDate to, int numberOfPeople) {
+		if (from == null || to == null || !from.isBefore(to)) {
+			throw new FailedInitializationException("Invalid dates!");
+		}
+		if (numberOfPeople <= 0) {
+			throw new ArgumentNotValidException("Invalid number of people!");
+		}
+		List<Room> candidates = new ArrayList<>();
+		for (Room room : roomService.findRooms()) {
+			if (room.getRoomCapacity() >= numberOfPeople) {
+				candidates.add(room);
+			}
+		}
+		int[] roomIds = candidates.stream().mapToInt(Room::getRoomId).toArray();
+		List<Integer> available = availabilityCalendar.findAvailableRooms(roomIds, from, to);
+		List<Room> result = new ArrayList<>(available.size());
+		int next = 0;
+		for (Room room : candidates) {
+			if (next < available.size() && available.get(next) == room.getRoomId()) {
+				result.add(room);
+				next++;
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,198 @@
+package eu.deltasource.internship.hotel.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Applies booking commands one after the other on a single writer thread.
+ * <p>
+ * Callers publish their commands into a bounded ring buffer without taking
+ * a lock, and get a future back. The writer takes the commands out in
+ * batches and applies each one without waiting for the log, so the log
+ * commits all records of a batch with one write, and the future of a
+ * command completes once its record is durable.
+ * <p>
+ * Commands still in the ring buffer once the writer stopped are failed,
+ * either by the writer or by their caller, whichever takes them first.
+ */
+final class BookingCommandPipeline implements AutoCloseable {
+
+	static final int DEFAULT_CAPACITY = 1 << 14;
+	static final int MAX_BATCH_SIZE = 1024;
+	// spinning only pays off while the callers run on other cores
+	private static final int IDLE_SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 1000 : 0;
+
+	private final AtomicReferenceArray<Command<?>> slots;
+	// the position a slot waits to be published at, or that position + 1 once it is published
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong claimed = new AtomicLong();
+	private final Thread writer;
+	private long consumed;
+	private volatile boolean running = true;
+	private volatile boolean parked;
+
+	BookingCommandPipeline() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity number of commands that can wait, rounded up to a power of two
+	 */
+	BookingCommandPipeline(int capacity) {
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		slots = new AtomicReferenceArray<>(size);
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+		mask = size - 1;
+		writer = new Thread(this::write, "booking-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Queues the command, waiting while the ring buffer is full.
+	 *
+	 * @param command changes the bookings on the writer thread and returns
+	 *                its result once the change is durable
+	 * @return the result of the command, or the exception it failed with,
+	 * an {@link IllegalStateException} if the pipeline was closed meanwhile
+	 * @throws IllegalStateException if the pipeline is closed
+	 */
+	<T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> command) {
+		Command<T> pending = new Command<>(command);
+		while (true) {
+			if (!running) {
+				throw closed();
+			}
+			long position = claimed.get();
+			int index = (int) position & mask;
+			long sequence = sequences.get(index);
+			if (sequence == position) {
+				if (claimed.compareAndSet(position, position + 1)) {
+					slots.set(index, pending);
+					sequences.set(index, position + 1);
+					break;
+				}
+			} else if (sequence < position) {
+				// full - the writer frees the slot once it took the command out
+				LockSupport.parkNanos(1000);
+			}
+		}
+		if (!running) {
+			// the writer could have stopped before the command was published
+			pending.fail(closed());
+		} else if (parked) {
+			LockSupport.unpark(writer);
+		}
+		return pending.result;
+	}
+
+	private void write() {
+		int idle = 0;
+		while (running || hasNext()) {
+			int applied = 0;
+			Command<?> command;
+			while (applied < MAX_BATCH_SIZE && (command = next()) != null) {
+				command.apply();
+				applied++;
+			}
+			if (applied > 0) {
+				idle = 0;
+			} else if (idle++ < IDLE_SPINS) {
+				Thread.onSpinWait();
+			} else {
+				parked = true;
+				// checked again after announcing the park, so a command published meanwhile is not missed
+				if (running && !hasNext()) {
+					LockSupport.park(this);
+				}
+				parked = false;
+			}
+		}
+		// commands published after the writer found their slots empty, each claimed slot is published soon
+		for (long last = claimed.get(); consumed < last; last = claimed.get()) {
+			Command<?> command = next();
+			if (command == null) {
+				Thread.onSpinWait();
+			} else {
+				command.fail(closed());
+			}
+		}
+	}
+
+	private boolean hasNext() {
+		return sequences.get((int) consumed & mask) == consumed + 1;
+	}
+
+	private Command<?> next() {
+		if (!hasNext()) {
+			return null;
+		}
+		int index = (int) consumed & mask;
+		Command<?> command = slots.get(index);
+		slots.set(index, null);
+		sequences.set(index, consumed + mask + 1);
+		consumed++;
+		return command;
+	}
+
+	private static IllegalStateException closed() {
+		return new IllegalStateException("The booking pipeline is closed!");
+	}
+
+	/**
+	 * Applies the queued commands and stops the writer.
+	 * Commands published meanwhile are failed.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		LockSupport.unpark(writer);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static final class Command<T> {
+		private final Supplier<CompletableFuture<T>> action;
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+		private final AtomicBoolean taken = new AtomicBoolean();
+
+		Command(Supplier<CompletableFuture<T>> action) {
+			this.action = action;
+		}
+
+		void apply() {
+			if (!taken.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				action.get().whenComplete((value, error) -> {
+					if (error != null) {
+						result.completeExceptionally(error);
+					} else {
+						result.complete(value);
+					}
+				});
+			} catch (RuntimeException e) {
+				result.completeExceptionally(e);
+			}
+		}
+
+		void fail(RuntimeException e) {
+			if (taken.compareAndSet(false, true)) {
+				result.completeExceptionally(e);
+			}
+		}
+	}
+}
@@ -1,35 +1,92 @@
 package eu.deltasource.internship.hotel.service;
 
 import eu.deltasource.internship.hotel.domain.Booking;
-import eu.deltasource.internship.hotel.domain.Room;
+import eu.deltasource.internship.hotel.exception.ArgumentNotValidException;
 import eu.deltasource.internship.hotel.exception.BookingOverlappingException;
 import eu.deltasource.internship.hotel.exception.FailedInitializationException;
 import eu.deltasource.internship.hotel.exception.ItemNotFoundException;
+import eu.deltasource.internship.hotel.exception.VersionConflictException;
 import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.repository.Versions;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.awt.print.Book;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 /**
  * Represents services for bookings
+ * <p>
+ * Writes for the same room are serialized by striped room locks,
+ * so the overlap check and the change of a booking are atomic.
+ * Updates leave that check to the repository, which does it while
+ * changing the booking.
+ * Updates change a booking in place, and only if it still is the
+ * version they were validated against, so that concurrent edits of
+ * the same booking fail instead of overwriting each other.
+ * <p>
+ * In the {@value #PIPELINE} mode, creating, updating and deleting a
+ * booking are commands, validated on the calling thread and applied
+ * in order by a single writer thread. The writer is then the only
+ * thread taking the room locks for them, so they never wait for each
+ * other, and the log commits the commands of a batch at once. Each
+ * shard of the repository has a writer of its own.
  */
 @Service
-public class BookingService {
+public class BookingService implements AutoCloseable {
+
+	public static final String LOCKED = "locked";
+	public static final String PIPELINE = "pipeline";
+
 	private final BookingRepository bookingRepository;
 	private final RoomService roomService;
 	private final GuestService guestService;
+	private final RoomAllocator roomAllocator;
+	private final RoomLocks roomLocks = new RoomLocks();
+	private final BookingCommandPipeline[] pipelines;
 
 	/**
 	 * All arguments constructor
 	 */
-	@Autowired
 	public BookingService(BookingRepository bookingRepository, RoomService roomService, GuestService guestService) {
+		this(bookingRepository, roomService, guestService, LOCKED);
+	}
+
+	/**
+	 * @param commands how the booking commands are applied,
+	 *                 {@value #LOCKED} on the calling thread or {@value #PIPELINE}
+	 */
+	@Autowired
+	public BookingService(BookingRepository bookingRepository, RoomService roomService, GuestService guestService,
+						  @Value("${hotel.booking.commands:" + LOCKED + "}") String commands) {
 		this.bookingRepository = bookingRepository;
 		this.roomService = roomService;
 		this.guestService = guestService;
+		this.roomAllocator = new RoomAllocator(roomService, bookingRepository);
+		switch (commands) {
+			case LOCKED:
+				pipelines = null;
+				break;
+			case PIPELINE:
+				pipelines = new BookingCommandPipeline[bookingRepository.shardCount()];
+				for (int i = 0; i < pipelines.length; i++) {
+					pipelines[i] = new BookingCommandPipeline();
+				}
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown booking command mode " + commands + "!");
+		}
 	}
 
 	/**
@@ -40,6 +97,20 @@ public class BookingService {
 		return bookingRepository.findAll();
 	}
 
+	/**
+	 * Returns a page of at most limit bookings with ids
+	 * greater than afterId, ordered by id - the id of the
+	 * last one is the cursor for the next page
+	 *
+	 * @param afterId id of the last booking of the previous page, 0 for the first page
+	 * @param limit   maximum number of bookings, at most {@value Pages#MAX_PAGE_SIZE}
+	 * @throws ArgumentNotValidException if the cursor or the limit are out of range
+	 */
+	public List<Booking> findPage(int afterId, int limit) {
+		Pages.validate(afterId, limit);
+		return bookingRepository.findPage(afterId, limit);
+	}
+
 	/**
 	 * Gets a booking by its ID
 	 *
@@ -48,9 +119,6 @@ public class BookingService {
 	 * @throws ItemNotFoundException If the Id doesn't exist in the database
 	 */
 	public Booking findById(int id) {
-		if (!bookingRepository.existsById(id)) {
-			throw new ItemNotFoundException("There are no bookings with that ID!");
-		}
 		return bookingRepository.findById(id);
 	}
 
@@ -60,14 +128,32 @@ public class BookingService {
 	 * @param newBooking the new booking
 	 */
 	public void save(Booking newBooking) {
+		await(saveAsync(newBooking));
+	}
+
+	/**
+	 * Creates new booking, without waiting for it
+	 *
+	 * @param newBooking the new booking
+	 * @return the saved booking, or the exception the save failed with
+	 * @throws FailedInitializationException if the booking is invalid
+	 */
+	public CompletableFuture<Booking> saveAsync(Booking newBooking) {
 		validateBooking(newBooking);
-		validateBookingCreationDates(newBooking.getFrom(), newBooking.getTo(), newBooking.getRoomId());
-		bookingRepository.save(newBooking);
+		return execute(newBooking.getRoomId(), () -> insert(newBooking));
+	}
+
+	private CompletableFuture<Booking> insert(Booking newBooking) {
+		return roomLocks.callLocked(newBooking.getRoomId(), () -> guestService.callWithGuest(newBooking.getGuestId(),
+			() -> {
+				validateBookingCreationDates(newBooking.getFrom(), newBooking.getTo(), newBooking.getRoomId());
+				return bookingRepository.saveAsync(newBooking);
+			}));
 	}
 
 	/**
 	 * Saves a list of booking objects
-	 * Checks each one separately beforehand
+	 * - either all of them or none
 	 *
 	 * @param bookings The list we want dto save
 	 */
@@ -76,32 +162,96 @@ public class BookingService {
 	}
 
 	/**
-	 * Creates array of bookings
+	 * Creates array of bookings - either all of them or none
+	 * <p>
+	 * The bookings are validated in the given order, then checked
+	 * against each other in one pass sorted by room and start date,
+	 * and finally against the existing bookings, while the rooms and
+	 * guests of the batch are locked. They are saved in the given order.
 	 *
 	 * @param bookings array of bookings
+	 * @throws BookingOverlappingException if two bookings of the batch overlap,
+	 *                                     or one overlaps an existing booking
 	 */
 	public void saveAll(Booking... bookings) {
-		for (Booking booking : bookings) {
-			save(booking);
+		if (bookings.length == 0) {
+			return;
 		}
+		validateBatch(bookings);
+		Booking[] sorted = bookings.clone();
+		Arrays.sort(sorted, Comparator.comparingInt(Booking::getRoomId).thenComparing(Booking::getFrom));
+		for (int i = 1; i < sorted.length; i++) {
+			Booking previous = sorted[i - 1];
+			if (previous.getRoomId() == sorted[i].getRoomId() && previous.getTo().isAfter(sorted[i].getFrom())) {
+				throw new BookingOverlappingException("The booking can not be created because dates are overlapped!");
+			}
+		}
+		int[] roomIds = Arrays.stream(sorted).mapToInt(Booking::getRoomId).distinct().toArray();
+		int[] guestIds = Arrays.stream(bookings).mapToInt(Booking::getGuestId).distinct().toArray();
+		roomLocks.callLocked(roomIds, () -> guestService.callWithGuests(guestIds, () -> {
+			for (Booking booking : sorted) {
+				validateBookingCreationDates(booking.getFrom(), booking.getTo(), booking.getRoomId());
+			}
+			bookingRepository.saveAll(Arrays.asList(bookings));
+			return null;
+		}));
 	}
 
 	/**
 	 * Updates booking by either room id or number of people
 	 *
 	 * @param updatedBooking the new booking
+	 * @return the updated booking, which keeps its id
 	 * @throws ItemNotFoundException if the booking we wish to update
 	 *                               doesn't match any existing ones
 	 */
-	public void updateBooking(Booking updatedBooking) {
-		if (!bookingRepository.existsById(updatedBooking.getBookingId())) {
-			throw new ItemNotFoundException("Booking with id " + updatedBooking.getBookingId() + " does not exist!");
+	public Booking updateBooking(Booking updatedBooking) {
+		return updateBooking(updatedBooking, Versions.ANY);
+	}
 
+	/**
+	 * Updates booking like {@link #updateBooking(Booking)},
+	 * if it was not changed since the expected version
+	 *
+	 * @param expectedVersion version the update is based on, or {@link Versions#ANY}
+	 * @throws VersionConflictException if the booking was changed since
+	 */
+	public Booking updateBooking(Booking updatedBooking, int expectedVersion) {
+		return await(updateBookingAsync(updatedBooking, expectedVersion));
+	}
+
+	/**
+	 * Updates booking like {@link #updateBooking(Booking)}, without waiting for it
+	 *
+	 * @return the booking updated in place
+	 */
+	public CompletableFuture<Booking> updateBookingAsync(Booking updatedBooking) {
+		return updateBookingAsync(updatedBooking, Versions.ANY);
+	}
+
+	/**
+	 * Updates booking like {@link #updateBooking(Booking, int)}, without waiting for it
+	 * <p>
+	 * The booking is looked up once and, as its guest can not change,
+	 * only the new room is validated. The repository checks the overlaps
+	 * within the new room and changes the booking in place, if it is still
+	 * the version which was validated. The new room stays locked meanwhile,
+	 * as new bookings are checked under the room lock only.
+	 *
+	 * @return the booking updated in place
+	 */
+	public CompletableFuture<Booking> updateBookingAsync(Booking updatedBooking, int expectedVersion) {
+		Booking current = bookingRepository.findById(updatedBooking.getBookingId());
+		if (updatedBooking.getGuestId() != current.getGuestId()) {
+			throw new FailedInitializationException("You are not allowed to change guest id!");
+		}
+		validateDates(updatedBooking.getFrom(), updatedBooking.getTo());
+		if (roomService.getRoomById(updatedBooking.getRoomId()).getRoomCapacity() < updatedBooking.getNumberOfPeople()) {
+			throw new FailedInitializationException("Invalid Booking!");
 		}
-		validateBooking(updatedBooking);
-		validateUpdateBooking(updatedBooking);
-		deleteById(updatedBooking.getBookingId());
-		save(updatedBooking);
+		int version = versionToUpdate(current, expectedVersion);
+		return execute(current.getRoomId(), () -> roomLocks.callLocked(updatedBooking.getRoomId(),
+			() -> bookingRepository.updateAsync(updatedBooking, version)));
 	}
 
 	/**
@@ -114,14 +264,42 @@ public class BookingService {
 	 * @throws BookingOverlappingException if the desired dates are not free
 	 */
 	public Booking updateBookingByDates(int bookingId, LocalDate from, LocalDate to) {
+		return updateBookingByDates(bookingId, from, to, Versions.ANY);
+	}
+
+	/**
+	 * Updates booking by dates, if it was not changed since the expected version
+	 *
+	 * @param expectedVersion version the update is based on, or {@link Versions#ANY}
+	 * @throws VersionConflictException if the booking was changed since
+	 */
+	public Booking updateBookingByDates(int bookingId, LocalDate from, LocalDate to, int expectedVersion) {
+		return await(updateBookingByDatesAsync(bookingId, from, to, expectedVersion));
+	}
+
+	/**
+	 * Updates booking by dates, without waiting for it
+	 *
+	 * @return updated booking, or the exception the update failed with
+	 */
+	public CompletableFuture<Booking> updateBookingByDatesAsync(int bookingId, LocalDate from, LocalDate to) {
+		return updateBookingByDatesAsync(bookingId, from, to, Versions.ANY);
+	}
+
+	/**
+	 * Updates booking by dates like {@link #updateBookingByDates(int, LocalDate, LocalDate, int)},
+	 * without waiting for it
+	 *
+	 * @return updated booking, or the exception the update failed with
+	 */
+	public CompletableFuture<Booking> updateBookingByDatesAsync(int bookingId, LocalDate from, LocalDate to,
+																 int expectedVersion) {
 		validateDates(from, to);
-		Booking booking = findById(bookingId);
+		Booking booking = bookingRepository.findById(bookingId);
+		int version = versionToUpdate(booking, expectedVersion);
 
-		if (validateBookingUpdateDates(from, to, booking.getRoomId(), bookingId)) {
-			booking.setBookingDates(from, to);
-			return bookingRepository.updateDates(booking);
-		}
-		throw new BookingOverlappingException("Overlapping dates!");
+		return execute(booking.getRoomId(), () -> roomLocks.callLocked(booking.getRoomId(),
+			() -> bookingRepository.updateAsync(booking.withDates(from, to), version)));
 	}
 
 	/**
@@ -141,10 +319,17 @@ public class BookingService {
 	 * @param id booking's id
 	 */
 	public boolean deleteById(int id) {
-		if (!bookingRepository.existsById(id)) {
-			throw new ItemNotFoundException("Booking with id " + id + " does not exist!");
-		}
-		return bookingRepository.deleteById(id);
+		return await(deleteByIdAsync(id));
+	}
+
+	/**
+	 * Deletes booking by id, without waiting for it
+	 *
+	 * @param id booking's id
+	 */
+	public CompletableFuture<Boolean> deleteByIdAsync(int id) {
+		int roomId = bookingRepository.findById(id).getRoomId();
+		return execute(roomId, () -> bookingRepository.deleteByIdAsync(id));
 	}
 
 	/**
@@ -155,32 +340,79 @@ public class BookingService {
 		bookingRepository.deleteAll();
 	}
 
-	private void validateUpdateBooking(Booking booking) {
-		if (booking.getGuestId() != findById(booking.getBookingId()).getGuestId()) {
-			throw new FailedInitializationException("You are not allowed to change guest id!");
+	/**
+	 * Stops the writers of the pipeline, after they applied the queued commands
+	 */
+	@Override
+	public void close() {
+		if (pipelines != null) {
+			for (BookingCommandPipeline pipeline : pipelines) {
+				pipeline.close();
+			}
 		}
-		if (!validateBookingUpdateDates(booking.getFrom(), booking.getTo(), booking.getRoomId(), booking.getBookingId())) {
-			throw new BookingOverlappingException("The room is already booked for this period!");
+	}
+
+	/**
+	 * Applies the command on the calling thread, or queues
+	 * it for the writer of the shard of the room
+	 */
+	private <T> CompletableFuture<T> execute(int roomId, Supplier<CompletableFuture<T>> command) {
+		if (pipelines == null) {
+			return command.get();
 		}
+		return pipelines[bookingRepository.shardOf(roomId)].submit(command);
 	}
 
-	private boolean validateBookingUpdateDates(LocalDate from, LocalDate to, int roomId, int bookingId, int... idToIgnore) {
-		for (Booking booking : findAll()) {
-			if (booking.getRoomId() == roomId) {
-				if (idToIgnore.length == 1 && booking.getBookingId() == idToIgnore[0]) {
-					continue;
-				}
-				if (bookingId == booking.getBookingId()) {
-					return (validateBookingUpdateDates(from, to, roomId, bookingId, bookingId));
-				}
-				if (to.isAfter(booking.getFrom()) && from.isBefore(booking.getTo())) {
-					return false;
-				}
+	/**
+	 * Waits for the result, throwing the exception the command failed with
+	 */
+	private static <T> T await(CompletableFuture<T> result) {
+		try {
+			return result.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
 			}
+			throw e;
 		}
-		return true;
 	}
 
+	/**
+	 * Fails early if the booking is not the expected version anymore.
+	 * The repository checks the version once more while updating, so an
+	 * update expecting {@link Versions#ANY} applies to whatever version
+	 * the booking has by then.
+	 */
+	private static int versionToUpdate(Booking current, int expectedVersion) {
+		if (expectedVersion != Versions.ANY && expectedVersion != current.getVersion()) {
+			throw new VersionConflictException("The booking was changed, its version is " + current.getVersion()
+				+ " instead of " + expectedVersion + "!");
+		}
+		return expectedVersion;
+	}
+
+	/**
+	 * Runs the checks of validateBooking for every booking,
+	 * looking up each room and guest only once
+	 */
+	private void validateBatch(Booking[] bookings) {
+		Map<Integer, Integer> roomCapacities = new HashMap<>();
+		Set<Integer> guestIds = new HashSet<>();
+		for (Booking booking : bookings) {
+			if (booking == null) {
+				throw new FailedInitializationException("Invalid Booking!");
+			}
+			validateDates(booking.getFrom(), booking.getTo());
+			int roomCapacity = roomCapacities.computeIfAbsent(booking.getRoomId(),
+				roomId -> roomService.getRoomById(roomId).getRoomCapacity());
+			if (guestIds.add(booking.getGuestId())) {
+				guestService.findById(booking.getGuestId());
+			}
+			if (roomCapacity < booking.getNumberOfPeople()) {
+				throw new FailedInitializationException("Invalid Booking!");
+			}
+		}
+	}
 
 	private void validateBooking(Booking booking) {
 		if (booking == null || !validateBookingFields(booking)) {
@@ -204,11 +436,8 @@ public class BookingService {
 	}
 
 	private void validateBookingCreationDates(LocalDate from, LocalDate to, int roomId) {
-		for (Booking booking : findAll()) {
-			boolean isComparable = booking.getRoomId() == roomId;
-			if (isComparable && to.isAfter(booking.getFrom()) && from.isBefore(booking.getTo())) {
-				throw new BookingOverlappingException("The booking can not be created because dates are overlapped!");
-			}
+		if (!bookingRepository.isRoomAvailable(roomId, from, to)) {
+			throw new BookingOverlappingException("The booking can not be created because dates are overlapped!");
 		}
 	}
 
@@ -227,23 +456,22 @@ public class BookingService {
 		validateDates(newBooking.getFrom(), newBooking.getTo());
 		guestService.findById(newBooking.getGuestId());
 
-		for (Room room : roomService.findRooms()) {
-			boolean isVacant = true;
-			for (Booking booking : findAll()) {
-				boolean isBookingComparable = room.getRoomId() == booking.getRoomId();
-				boolean isCapacityNotEnough = room.getRoomCapacity() < newBooking.getNumberOfPeople();
-				boolean doesOverlap = newBooking.getTo().isAfter(booking.getFrom()) && newBooking.getFrom().isBefore(booking.getTo());
-				if (isBookingComparable && (isCapacityNotEnough || doesOverlap)) {
-					isVacant = false;
-					break;
-				}
+		boolean isBooked = false;
+		while (!isBooked) {
+			int roomId = roomAllocator.findFirstAvailableRoom(newBooking.getNumberOfPeople(),
+				newBooking.getFrom(), newBooking.getTo());
+			if (roomId < 0) {
+				throw new BookingOverlappingException("Cannot create booking for the specified interval");
 			}
-			if (isVacant) {
-				bookingRepository.save(new Booking(1, newBooking.getGuestId(), room.getRoomId(),
+			// the room could have been taken since the search, so it is checked again under its lock
+			isBooked = roomLocks.callLocked(roomId, () -> guestService.callWithGuest(newBooking.getGuestId(), () -> {
+				if (!bookingRepository.isRoomAvailable(roomId, newBooking.getFrom(), newBooking.getTo())) {
+					return false;
+				}
+				bookingRepository.save(new Booking(1, newBooking.getGuestId(), roomId,
 					newBooking.getNumberOfPeople(), newBooking.getFrom(), newBooking.getTo()));
-				return;
-			}
+				return true;
+			}));
 		}
-		throw new BookingOverlappingException("Cannot create booking for the specified interval");
 	}
 }
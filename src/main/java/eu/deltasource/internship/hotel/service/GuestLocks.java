@@ -0,0 +1,86 @@
+package eu.deltasource.internship.hotel.service;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped read-write locks for guests.
+ * <p>
+ * Bookings of a guest are inserted under the read lock of the guest,
+ * so they proceed in parallel, while deleting the guest together with
+ * its bookings holds the write lock and shuts them out. Guest locks are
+ * taken before the locks of the booking repository, never after.
+ */
+class GuestLocks {
+
+	private final ReentrantReadWriteLock[] stripes;
+	private final int mask;
+
+	GuestLocks() {
+		this(Runtime.getRuntime().availableProcessors() * 16);
+	}
+
+	GuestLocks(int minimumStripes) {
+		int count = Integer.highestOneBit(Math.max(1, minimumStripes - 1)) << 1;
+		stripes = new ReentrantReadWriteLock[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new ReentrantReadWriteLock();
+		}
+		mask = count - 1;
+	}
+
+	/**
+	 * Runs the action while holding the read lock of the guest.
+	 */
+	<T> T callReadLocked(int guestId, Supplier<T> action) {
+		return callLocked(stripes[stripeOf(guestId)].readLock(), action);
+	}
+
+	/**
+	 * Runs the action while holding the read locks of all given guests.
+	 * Stripes are always taken in index order, which rules out deadlocks.
+	 */
+	<T> T callReadLocked(int[] guestIds, Supplier<T> action) {
+		boolean[] needed = new boolean[stripes.length];
+		for (int guestId : guestIds) {
+			needed[stripeOf(guestId)] = true;
+		}
+		int locked = 0;
+		try {
+			for (; locked < stripes.length; locked++) {
+				if (needed[locked]) {
+					stripes[locked].readLock().lock();
+				}
+			}
+			return action.get();
+		} finally {
+			for (int i = locked - 1; i >= 0; i--) {
+				if (needed[i]) {
+					stripes[i].readLock().unlock();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs the action while holding the write lock of the guest.
+	 */
+	<T> T callWriteLocked(int guestId, Supplier<T> action) {
+		return callLocked(stripes[stripeOf(guestId)].writeLock(), action);
+	}
+
+	private static <T> T callLocked(Lock lock, Supplier<T> action) {
+		lock.lock();
+		try {
+			return action.get();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private int stripeOf(int guestId) {
+		int hash = guestId * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+}
@@ -1,16 +1,24 @@
 package eu.deltasource.internship.hotel.service;
 
+import eu.deltasource.internship.hotel.domain.Booking;
 import eu.deltasource.internship.hotel.domain.Guest;
 import eu.deltasource.internship.hotel.exception.ArgumentNotValidException;
 import eu.deltasource.internship.hotel.exception.FailedInitializationException;
 import eu.deltasource.internship.hotel.exception.ItemNotFoundException;
+import eu.deltasource.internship.hotel.exception.VersionConflictException;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
 import eu.deltasource.internship.hotel.repository.GuestRepository;
+import eu.deltasource.internship.hotel.repository.Versions;
 
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Service class for
@@ -22,15 +30,31 @@ import java.util.List;
 public class GuestService {
 
 	private final GuestRepository guestRepository;
+	private final BookingRepository bookingRepository;
+	private final RemoteGuests remoteGuests;
+	private final GuestLocks guestLocks = new GuestLocks();
+
+	/**
+	 * Constructor for a node without peers,
+	 * where all guests are local
+	 */
+	public GuestService(GuestRepository guestRepository, BookingRepository bookingRepository) {
+		this(guestRepository, bookingRepository, RemoteGuests.NONE);
+	}
 
 	/**
 	 * Constructor that takes
-	 * repository object which is annotated as
-	 * Autowired and the repository itself as bean (@Repository)
+	 * repository objects which are annotated as
+	 * Autowired and the repositories themselves as beans (@Repository)
+	 *
+	 * @param remoteGuests the guests owned by the other nodes of the cluster
 	 */
 	@Autowired
-	public GuestService(GuestRepository guestRepository) {
+	public GuestService(GuestRepository guestRepository, BookingRepository bookingRepository,
+						RemoteGuests remoteGuests) {
 		this.guestRepository = guestRepository;
+		this.bookingRepository = bookingRepository;
+		this.remoteGuests = remoteGuests;
 	}
 
 	/**
@@ -43,6 +67,20 @@ public class GuestService {
 		return guestRepository.findAll();
 	}
 
+	/**
+	 * Returns a page of at most limit guests with ids
+	 * greater than afterId, ordered by id - the id of the
+	 * last one is the cursor for the next page
+	 *
+	 * @param afterId id of the last guest of the previous page, 0 for the first page
+	 * @param limit   maximum number of guests, at most {@value Pages#MAX_PAGE_SIZE}
+	 * @throws ArgumentNotValidException if the cursor or the limit are out of range
+	 */
+	public List<Guest> findPage(int afterId, int limit) {
+		Pages.validate(afterId, limit);
+		return guestRepository.findPage(afterId, limit);
+	}
+
 	/**
 	 * Tries to find a guest with given ID
 	 * returns the Guest object if found
@@ -52,10 +90,14 @@ public class GuestService {
 	 * @throws ItemNotFoundException if a guest with the specified ID is not found
 	 **/
 	public Guest findById(int id) {
-		if (!guestRepository.existsById(id)) {
-			throw new ItemNotFoundException("Guest does not exist");
+		if (!remoteGuests.isRemote(id)) {
+			return guestRepository.findById(id);
+		}
+		Guest guest = remoteGuests.findById(id);
+		if (guest == null) {
+			throw new ItemNotFoundException("Guest with id " + id + " does not exist!");
 		}
-		return guestRepository.findById(id);
+		return guest;
 	}
 
 	/**
@@ -100,28 +142,105 @@ public class GuestService {
 	 * @return the updated guest
 	 */
 	public Guest updateGuest(Guest guest) {
+		return updateGuest(guest, Versions.ANY);
+	}
+
+	/**
+	 * Updates an existing guest, if it was not changed since the expected version
+	 *
+	 * @param expectedVersion version the update is based on, or {@link Versions#ANY}
+	 * @throws VersionConflictException if the guest was changed since
+	 */
+	public Guest updateGuest(Guest guest, int expectedVersion) {
 		validateGuest(guest);
 		if(!guestRepository.existsById(guest.getGuestId())){
 			throw new ItemNotFoundException("Guest cannot be updated - does not exist.");
 		}
-		return guestRepository.updateGuest(guest);
+		return guestRepository.updateGuest(guest, expectedVersion);
 	}
 
 	/**
-	 * Deletes guest by id
+	 * Returns the bookings of a guest, ordered by
+	 * starting date, which overlap the period [from, to)
+	 * <p>
+	 * The owner of the guest gathers the bookings from all nodes,
+	 * any other node returns the bookings of its rooms only
+	 *
+	 * @param id   guest's id
+	 * @param from start of the period, or null for no start
+	 * @param to   end of the period, or null for no end
+	 * @return list of the guest's bookings in the period
+	 * @throws ItemNotFoundException if the guest does not exist
+	 */
+	public List<Booking> findBookings(int id, LocalDate from, LocalDate to) {
+		if (from != null && to != null && !from.isBefore(to)) {
+			throw new FailedInitializationException("Invalid dates!");
+		}
+		boolean remote = remoteGuests.isRemote(id);
+		if (!remote && !guestRepository.existsById(id)) {
+			throw new ItemNotFoundException("Guest with id " + id + " does not exist!");
+		}
+		List<Booking> bookings = new ArrayList<>();
+		for (Booking booking : bookingRepository.findByGuestId(id)) {
+			boolean endsAfterFrom = from == null || booking.getTo().isAfter(from);
+			boolean startsBeforeTo = to == null || booking.getFrom().isBefore(to);
+			if (endsAfterFrom && startsBeforeTo) {
+				bookings.add(booking);
+			}
+		}
+		if (!remote) {
+			bookings.addAll(remoteGuests.findBookings(id, from, to));
+			bookings.sort(Comparator.comparing(Booking::getFrom));
+		}
+		return bookings;
+	}
+
+	/**
+	 * Deletes guest by id, together with all of the guest's bookings,
+	 * while no new bookings can be saved for the guest
+	 * <p>
+	 * The bookings on the other nodes are deleted once the guest is gone
+	 * here, so every booking of the guest saved elsewhere in the meantime
+	 * is deleted with them
 	 *
 	 * @param id guest's id
 	 * @return true if the guest is successfully removed
 	 */
 	public boolean deleteById(int id) {
-		if (!guestRepository.existsById(id)) {
-			throw new ItemNotFoundException("Guest with id " + id + " does not exist!");
+		boolean deleted = guestLocks.callWriteLocked(id, () -> {
+			if (!guestRepository.existsById(id)) {
+				throw new ItemNotFoundException("Guest with id " + id + " does not exist!");
+			}
+			bookingRepository.deleteByGuestId(id);
+			return guestRepository.deleteById(id);
+		});
+		remoteGuests.deleteBookings(id);
+		return deleted;
+	}
+
+	/**
+	 * Deletes all bookings of the guest, while no new bookings can be
+	 * saved for the guest here. The owner of the guest deletes them
+	 * on all nodes, any other node those of its rooms only
+	 *
+	 * @param id guest's id
+	 * @throws ItemNotFoundException if this node owns no such guest
+	 */
+	public void deleteBookings(int id) {
+		boolean remote = remoteGuests.isRemote(id);
+		guestLocks.callWriteLocked(id, () -> {
+			if (!remote && !guestRepository.existsById(id)) {
+				throw new ItemNotFoundException("Guest with id " + id + " does not exist!");
+			}
+			return bookingRepository.deleteByGuestId(id);
+		});
+		if (!remote) {
+			remoteGuests.deleteBookings(id);
 		}
-		return guestRepository.deleteById(id);
 	}
 
 	/**
-	 * Deletes a guest
+	 * Deletes a guest together with the guest's bookings
 	 * if it finds one matching
 	 *
 	 * @param guest the guest that will be removed
@@ -129,10 +248,50 @@ public class GuestService {
 	 */
 	public boolean deleteGuest(Guest guest) {
 		validateGuest(guest);
-		if (!guestRepository.existsById(guest.getGuestId())) {
-			throw new ItemNotFoundException("Guest with id " + guest.getGuestId() + " does not exist!");
+		return deleteById(guest.getGuestId());
+	}
+
+	/**
+	 * Runs the action, which saves bookings of the guest, while the
+	 * guest can not be deleted, once the guest is found to exist
+	 *
+	 * @throws ItemNotFoundException if the guest does not exist
+	 */
+	public <T> T callWithGuest(int guestId, Supplier<T> action) {
+		return guestLocks.callReadLocked(guestId, () -> {
+			requireGuest(guestId);
+			return action.get();
+		});
+	}
+
+	/**
+	 * Runs the action like {@link #callWithGuest(int, Supplier)},
+	 * while none of the guests can be deleted
+	 *
+	 * @throws ItemNotFoundException if one of the guests does not exist
+	 */
+	public <T> T callWithGuests(int[] guestIds, Supplier<T> action) {
+		return guestLocks.callReadLocked(guestIds, () -> {
+			for (int guestId : guestIds) {
+				requireGuest(guestId);
+			}
+			return action.get();
+		});
+	}
+
+	/**
+	 * A remote guest is looked up on its owner. The owner deletes the
+	 * guest before its bookings here, which waits for the read lock
+	 * held meanwhile, so a booking saved for a found guest is deleted
+	 * with the others
+	 */
+	private void requireGuest(int guestId) {
+		boolean exists = remoteGuests.isRemote(guestId)
+			? remoteGuests.findById(guestId) != null
+			: guestRepository.existsById(guestId);
+		if (!exists) {
+			throw new ItemNotFoundException("Guest with id " + guestId + " does not exist!");
 		}
-		return guestRepository.delete(findById(guest.getGuestId()));
 	}
 
 	/**
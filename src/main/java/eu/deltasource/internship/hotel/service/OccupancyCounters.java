@@ -0,0 +1,213 @@
+package eu.deltasource.internship.hotel.service;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.domain.LiveOccupancy;
+import eu.deltasource.internship.hotel.exception.FailedInitializationException;
+import eu.deltasource.internship.hotel.repository.BookingChangeListener;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Booked rooms and beds per day, kept in Fenwick trees over epoch days.
+ * <p>
+ * A booking adds one room and its number of people as beds to every
+ * night of its stay. Each counter is a pair of Fenwick trees, which
+ * support adding to a range of days and summing a range of days, both
+ * in O(log days). The counters listen to the booking repository, so
+ * they follow every save, update and delete without looking at the
+ * bookings again.
+ * <p>
+ * The counters are striped like the repository: the bookings of each
+ * shard are counted in trees and under a lock of their own, so the
+ * changes of different shards, which are delivered concurrently, never
+ * wait for each other. Queries add up the stripes one after the other,
+ * so a booking moving to another shard meanwhile may be missed or
+ * counted twice. Each stripe takes 4 MB.
+ * <p>
+ * Days before 1970-01-01 or after {@link #LAST_DAY} are not counted.
+ */
+@Component
+public class OccupancyCounters implements BookingChangeListener {
+
+	static final int DAYS = 1 << 17;
+	static final LocalDate LAST_DAY = LocalDate.ofEpochDay(DAYS - 1);
+
+	private final BookingRepository bookingRepository;
+	private final Stripe[] stripes;
+
+	@Autowired
+	public OccupancyCounters(BookingRepository bookingRepository) {
+		this.bookingRepository = bookingRepository;
+		stripes = new Stripe[bookingRepository.shardCount()];
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = new Stripe();
+		}
+		bookingRepository.addListener(this);
+	}
+
+	/**
+	 * Returns the booked room-nights and bed-nights for [from, to)
+	 */
+	public LiveOccupancy findOccupancy(LocalDate from, LocalDate to) {
+		if (from == null || to == null || !from.isBefore(to)) {
+			throw new FailedInitializationException("Invalid dates!");
+		}
+		int fromDay = clip(from);
+		int toDay = clip(to);
+		long roomNights = 0;
+		long bedNights = 0;
+		for (Stripe stripe : stripes) {
+			long[] nights = stripe.read(() -> new long[]{stripe.rooms.sum(fromDay, toDay),
+				stripe.beds.sum(fromDay, toDay)});
+			roomNights += nights[0];
+			bedNights += nights[1];
+		}
+		return new LiveOccupancy(from, to, roomNights, bedNights);
+	}
+
+	@Override
+	public void onSaved(Booking booking) {
+		Stripe stripe = stripeOf(booking.getRoomId());
+		stripe.write(() -> stripe.count(booking, 1));
+	}
+
+	@Override
+	public void onReplaced(Booking previous, Booking current) {
+		Stripe source = stripeOf(previous.getRoomId());
+		Stripe target = stripeOf(current.getRoomId());
+		if (source == target) {
+			source.write(() -> {
+				source.count(previous, -1);
+				source.count(current, 1);
+			});
+		} else {
+			source.write(() -> source.count(previous, -1));
+			target.write(() -> target.count(current, 1));
+		}
+	}
+
+	@Override
+	public void onDeleted(Booking booking) {
+		Stripe stripe = stripeOf(booking.getRoomId());
+		stripe.write(() -> stripe.count(booking, -1));
+	}
+
+	@Override
+	public void onCleared() {
+		for (Stripe stripe : stripes) {
+			stripe.write(() -> {
+				stripe.rooms.clear();
+				stripe.beds.clear();
+			});
+		}
+	}
+
+	private Stripe stripeOf(int roomId) {
+		return stripes[bookingRepository.shardOf(roomId)];
+	}
+
+	private static int clip(LocalDate date) {
+		return (int) Math.max(0, Math.min(DAYS, date.toEpochDay()));
+	}
+
+	/**
+	 * Counters of the bookings of one shard, guarded by a lock of their own.
+	 */
+	private static final class Stripe {
+
+		private final StampedLock lock = new StampedLock();
+		private final RangeCounter rooms = new RangeCounter();
+		private final RangeCounter beds = new RangeCounter();
+
+		void count(Booking booking, int sign) {
+			int fromDay = clip(booking.getFrom());
+			int toDay = clip(booking.getTo());
+			if (fromDay < toDay) {
+				rooms.add(fromDay, toDay, sign);
+				beds.add(fromDay, toDay, sign * booking.getNumberOfPeople());
+			}
+		}
+
+		<T> T read(Supplier<T> reader) {
+			long stamp = lock.tryOptimisticRead();
+			if (stamp != 0L) {
+				T result = reader.get();
+				if (lock.validate(stamp)) {
+					return result;
+				}
+			}
+			stamp = lock.readLock();
+			try {
+				return reader.get();
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		void write(Runnable writer) {
+			long stamp = lock.writeLock();
+			try {
+				writer.run();
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+	}
+
+	/**
+	 * Per-day values with range updates and range sums.
+	 * <p>
+	 * With d the differences of neighbouring days, the sum of the
+	 * days before p is p * sum(d[i]) - sum(d[i] * i) over i < p,
+	 * so one tree keeps d[i] and the other one d[i] * i.
+	 */
+	private static final class RangeCounter {
+
+		private final long[] differences = new long[DAYS + 1];
+		private final long[] weighted = new long[DAYS + 1];
+
+		/**
+		 * Adds the value to every day of [from, to)
+		 */
+		void add(int from, int to, long value) {
+			update(from, value);
+			update(to, -value);
+		}
+
+		/**
+		 * Sums the values of the days of [from, to)
+		 */
+		long sum(int from, int to) {
+			return prefixSum(to) - prefixSum(from);
+		}
+
+		void clear() {
+			Arrays.fill(differences, 0);
+			Arrays.fill(weighted, 0);
+		}
+
+		private void update(int day, long value) {
+			long weightedValue = value * day;
+			for (int i = day + 1; i <= DAYS; i += i & -i) {
+				differences[i] += value;
+				weighted[i] += weightedValue;
+			}
+		}
+
+		private long prefixSum(int days) {
+			long sum = 0;
+			long weightedSum = 0;
+			for (int i = days; i > 0; i -= i & -i) {
+				sum += differences[i];
+				weightedSum += weighted[i];
+			}
+			return sum * days - weightedSum;
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package eu.deltasource.internship.hotel.service;
+
+import eu.deltasource.internship.hotel.exception.ArgumentNotValidException;
+
+/**
+ * Limits of the keyset pages served by the services
+ */
+final class Pages {
+
+	static final int MAX_PAGE_SIZE = 1000;
+
+	private Pages() {
+	}
+
+	/**
+	 * Checks the cursor and the size of a requested page
+	 *
+	 * @throws ArgumentNotValidException if any of them is out of range
+	 */
+	static void validate(int afterId, int limit) {
+		if (afterId < 0 || limit <= 0 || limit > MAX_PAGE_SIZE) {
+			throw new ArgumentNotValidException("Invalid page!");
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package eu.deltasource.internship.hotel.service;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.domain.Guest;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reaches the guests owned by the other nodes of a cluster.
+ * <p>
+ * A guest is kept by the node owning its id, while its bookings are
+ * kept by the owners of their rooms, so they can be on any node.
+ */
+public interface RemoteGuests {
+
+	/**
+	 * A node without peers, where all guests are local
+	 */
+	RemoteGuests NONE = new RemoteGuests() {
+		@Override
+		public boolean isRemote(int guestId) {
+			return false;
+		}
+
+		@Override
+		public Guest findById(int guestId) {
+			return null;
+		}
+
+		@Override
+		public List<Booking> findBookings(int guestId, LocalDate from, LocalDate to) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public void deleteBookings(int guestId) {
+		}
+	};
+
+	/**
+	 * @return true if another node owns the guest
+	 */
+	boolean isRemote(int guestId);
+
+	/**
+	 * Asks the owner of the guest for it.
+	 *
+	 * @return the guest, or null if its owner does not have it
+	 */
+	Guest findById(int guestId);
+
+	/**
+	 * Gathers the bookings of the guest, which overlap [from, to),
+	 * from all other nodes
+	 *
+	 * @param from start of the period, or null for no start
+	 * @param to   end of the period, or null for no end
+	 */
+	List<Booking> findBookings(int guestId, LocalDate from, LocalDate to);
+
+	/**
+	 * Deletes the bookings of the guest on all other nodes
+	 */
+	void deleteBookings(int guestId);
+}
@@ -0,0 +1,275 @@
+package eu.deltasource.internship.hotel.service;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.domain.OccupancyReport;
+import eu.deltasource.internship.hotel.domain.Room;
+import eu.deltasource.internship.hotel.domain.commodity.AbstractCommodity;
+import eu.deltasource.internship.hotel.domain.commodity.Bed;
+import eu.deltasource.internship.hotel.domain.commodity.BedType;
+import eu.deltasource.internship.hotel.exception.ArgumentNotValidException;
+import eu.deltasource.internship.hotel.exception.FailedInitializationException;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.utility.IntObjectHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Service class for occupancy reports
+ * <p>
+ * The bookings are bucketed by room in one pass. The rooms are then
+ * split into partitions, which are swept in parallel on the fork/join
+ * pool: every booking adds +1 at its first and -1 past its last night
+ * in a per-group difference array over the days of the period. The
+ * partial arrays are added up and a prefix sum turns them into the
+ * number of booked rooms per day.
+ */
+@Service
+public class ReportService {
+
+	public static final String BY_DAY = "day";
+	public static final String BY_CAPACITY = "capacity";
+	public static final String BY_BED_TYPE = "bedType";
+
+	/**
+	 * The longest period a report may cover, about 100 years
+	 */
+	static final int MAX_DAYS = 36_525;
+
+	private static final int LEAF_BOOKINGS = 1 << 14;
+
+	private final RoomService roomService;
+	private final BookingRepository bookingRepository;
+
+	@Autowired
+	public ReportService(RoomService roomService, BookingRepository bookingRepository) {
+		this.roomService = roomService;
+		this.bookingRepository = bookingRepository;
+	}
+
+	/**
+	 * Returns the occupancy of the rooms for [from, to)
+	 *
+	 * @param from    first night
+	 * @param to      end of the period, exclusive
+	 * @param groupBy day, capacity or bedType
+	 * @return one row per day or per group of rooms
+	 */
+	public OccupancyReport findOccupancy(LocalDate from, LocalDate to, String groupBy) {
+		if (from == null || to == null || !from.isBefore(to)) {
+			throw new FailedInitializationException("Invalid dates!");
+		}
+		long period = to.toEpochDay() - from.toEpochDay();
+		if (period > MAX_DAYS) {
+			throw new ArgumentNotValidException("Invalid report period!");
+		}
+		int days = (int) period;
+		List<Room> rooms = roomService.findRooms();
+		Groups groups = groupRooms(rooms, groupBy);
+		BookedNights booked = bucketByRoom(rooms, bookingRepository.findAll(), from, days);
+		int[][] occupied = ForkJoinPool.commonPool().invoke(new Sweep(booked, groups, days, 0, rooms.size()));
+		for (int[] perDay : occupied) {
+			for (int day = 1; day < days; day++) {
+				perDay[day] += perDay[day - 1];
+			}
+		}
+		List<OccupancyReport.Row> rows = new ArrayList<>();
+		if (BY_DAY.equals(groupBy)) {
+			for (int day = 0; day < days; day++) {
+				rows.add(new OccupancyReport.Row(from.plusDays(day).toString(), rooms.size(), rooms.size(),
+					occupied[0][day]));
+			}
+		} else {
+			for (int group = 0; group < groups.keys.size(); group++) {
+				long bookedNights = 0;
+				for (int day = 0; day < days; day++) {
+					bookedNights += occupied[group][day];
+				}
+				int groupRooms = groups.roomCounts[group];
+				rows.add(new OccupancyReport.Row(groups.keys.get(group), groupRooms, (long) groupRooms * days,
+					bookedNights));
+			}
+		}
+		return new OccupancyReport(from, to, groupBy, rows);
+	}
+
+	private static Groups groupRooms(List<Room> rooms, String groupBy) {
+		int[][] groupsOfRoom = new int[rooms.size()][];
+		List<String> keys = new ArrayList<>();
+		if (BY_DAY.equals(groupBy)) {
+			keys.add("all");
+			for (int room = 0; room < rooms.size(); room++) {
+				groupsOfRoom[room] = new int[]{0};
+			}
+		} else if (BY_CAPACITY.equals(groupBy)) {
+			Map<Integer, Integer> groupOfCapacity = new TreeMap<>();
+			for (Room room : rooms) {
+				groupOfCapacity.put(room.getRoomCapacity(), 0);
+			}
+			for (Map.Entry<Integer, Integer> entry : groupOfCapacity.entrySet()) {
+				entry.setValue(keys.size());
+				keys.add(String.valueOf(entry.getKey()));
+			}
+			for (int room = 0; room < rooms.size(); room++) {
+				groupsOfRoom[room] = new int[]{groupOfCapacity.get(rooms.get(room).getRoomCapacity())};
+			}
+		} else if (BY_BED_TYPE.equals(groupBy)) {
+			// a room with several kinds of beds counts for each of them
+			for (BedType bedType : BedType.values()) {
+				keys.add(bedType.name());
+			}
+			for (int room = 0; room < rooms.size(); room++) {
+				Set<BedType> bedTypes = EnumSet.noneOf(BedType.class);
+				for (AbstractCommodity commodity : rooms.get(room).getCommodities()) {
+					if (commodity instanceof Bed) {
+						bedTypes.add(((Bed) commodity).getBedType());
+					}
+				}
+				groupsOfRoom[room] = bedTypes.stream().mapToInt(BedType::ordinal).toArray();
+			}
+		} else {
+			throw new ArgumentNotValidException("Invalid grouping!");
+		}
+		int[] roomCounts = new int[keys.size()];
+		for (int[] groups : groupsOfRoom) {
+			for (int group : groups) {
+				roomCounts[group]++;
+			}
+		}
+		return new Groups(keys, groupsOfRoom, roomCounts);
+	}
+
+	/**
+	 * Clips the bookings to the period and sorts them
+	 * by the position of their room with a counting sort.
+	 * Bookings of deleted rooms are left out.
+	 */
+	private static BookedNights bucketByRoom(List<Room> rooms, List<Booking> bookings, LocalDate from, int days) {
+		IntObjectHashMap<Integer> positions = new IntObjectHashMap<>(rooms.size());
+		for (int room = 0; room < rooms.size(); room++) {
+			positions.put(rooms.get(room).getRoomId(), room);
+		}
+		long firstDay = from.toEpochDay();
+		int[] positionOf = new int[bookings.size()];
+		int[] starts = new int[rooms.size() + 1];
+		for (int i = 0; i < bookings.size(); i++) {
+			Booking booking = bookings.get(i);
+			Integer position = positions.get(booking.getRoomId());
+			if (position == null || booking.getTo().toEpochDay() <= firstDay
+				|| booking.getFrom().toEpochDay() >= firstDay + days) {
+				positionOf[i] = -1;
+				continue;
+			}
+			positionOf[i] = position;
+			starts[position + 1]++;
+		}
+		for (int room = 0; room < rooms.size(); room++) {
+			starts[room + 1] += starts[room];
+		}
+		int[] firstNights = new int[starts[rooms.size()]];
+		int[] ends = new int[firstNights.length];
+		int[] next = starts.clone();
+		for (int i = 0; i < bookings.size(); i++) {
+			if (positionOf[i] < 0) {
+				continue;
+			}
+			Booking booking = bookings.get(i);
+			int slot = next[positionOf[i]]++;
+			firstNights[slot] = (int) Math.max(0, booking.getFrom().toEpochDay() - firstDay);
+			ends[slot] = (int) Math.min(days, booking.getTo().toEpochDay() - firstDay);
+		}
+		return new BookedNights(starts, firstNights, ends);
+	}
+
+	/**
+	 * Builds the difference arrays of a partition of rooms
+	 */
+	private static final class Sweep extends RecursiveTask<int[][]> {
+
+		private final BookedNights booked;
+		private final Groups groups;
+		private final int days;
+		private final int firstRoom;
+		private final int endRoom;
+
+		Sweep(BookedNights booked, Groups groups, int days, int firstRoom, int endRoom) {
+			this.booked = booked;
+			this.groups = groups;
+			this.days = days;
+			this.firstRoom = firstRoom;
+			this.endRoom = endRoom;
+		}
+
+		@Override
+		protected int[][] compute() {
+			int bookings = booked.starts[endRoom] - booked.starts[firstRoom];
+			if (endRoom - firstRoom <= 1 || bookings <= LEAF_BOOKINGS) {
+				return sweep();
+			}
+			int middle = (firstRoom + endRoom) >>> 1;
+			Sweep right = new Sweep(booked, groups, days, middle, endRoom);
+			right.fork();
+			int[][] sums = new Sweep(booked, groups, days, firstRoom, middle).compute();
+			int[][] other = right.join();
+			for (int group = 0; group < sums.length; group++) {
+				for (int day = 0; day <= days; day++) {
+					sums[group][day] += other[group][day];
+				}
+			}
+			return sums;
+		}
+
+		private int[][] sweep() {
+			int[][] differences = new int[groups.keys.size()][days + 1];
+			for (int room = firstRoom; room < endRoom; room++) {
+				for (int group : groups.groupsOfRoom[room]) {
+					int[] difference = differences[group];
+					for (int i = booked.starts[room]; i < booked.starts[room + 1]; i++) {
+						difference[booked.firstNights[i]]++;
+						difference[booked.ends[i]]--;
+					}
+				}
+			}
+			return differences;
+		}
+	}
+
+	private static final class Groups {
+
+		private final List<String> keys;
+		private final int[][] groupsOfRoom;
+		private final int[] roomCounts;
+
+		Groups(List<String> keys, int[][] groupsOfRoom, int[] roomCounts) {
+			this.keys = keys;
+			this.groupsOfRoom = groupsOfRoom;
+			this.roomCounts = roomCounts;
+		}
+	}
+
+	/**
+	 * Nights of the bookings relative to the start of the period,
+	 * the bookings of the room at position p in [starts[p], starts[p + 1])
+	 */
+	private static final class BookedNights {
+
+		private final int[] starts;
+		private final int[] firstNights;
+		private final int[] ends;
+
+		BookedNights(int[] starts, int[] firstNights, int[] ends) {
+			this.starts = starts;
+			this.firstNights = firstNights;
+			this.ends = ends;
+		}
+	}
+}
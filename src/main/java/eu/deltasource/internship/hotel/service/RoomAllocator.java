@@ -0,0 +1,326 @@
+package eu.deltasource.internship.hotel.service;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.domain.Room;
+import eu.deltasource.internship.hotel.repository.BookingChangeListener;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.utility.IntObjectHashMap;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Finds the first room, which has enough capacity
+ * and is free for a given period.
+ * <p>
+ * Rooms are bucketed by capacity, so rooms that are too small
+ * are never looked at. Each bucket keeps a segment tree over its
+ * rooms in id order. A leaf holds the booked nights of its room as
+ * 64-day words keyed by epoch day / 64, an inner node the nights
+ * booked in all rooms below it. A search skips every subtree in
+ * which one night of the period is booked in all rooms, so a full
+ * bucket costs a look at its root, and the leaves answer exactly,
+ * without going back to the repository.
+ * <p>
+ * The buckets listen to the booking repository. They are built once
+ * the set of rooms changed, seeded with the bookings of the repository
+ * while its shards are locked.
+ */
+class RoomAllocator {
+
+	private static final int NO_ROOM = -1;
+
+	private final RoomService roomService;
+	private final BookingRepository bookingRepository;
+	private volatile CapacityBuckets buckets;
+
+	RoomAllocator(RoomService roomService, BookingRepository bookingRepository) {
+		this.roomService = roomService;
+		this.bookingRepository = bookingRepository;
+	}
+
+	/**
+	 * Returns the id of the first room with capacity of at least
+	 * numberOfPeople, which is free for [from, to),
+	 * or -1 if there's no such room.
+	 */
+	int findFirstAvailableRoom(int numberOfPeople, LocalDate from, LocalDate to) {
+		CapacityBuckets current = currentBuckets();
+		int fromDay = toDay(from);
+		int toDay = toDay(to);
+		int found = NO_ROOM;
+		for (int bucket = current.firstBucketWithCapacity(numberOfPeople); bucket < current.trees.length; bucket++) {
+			// only rooms with a lower id than the one found so far are of interest
+			int roomId = current.trees[bucket].findFirstFreeRoom(fromDay, toDay, found);
+			if (roomId != NO_ROOM) {
+				found = roomId;
+			}
+		}
+		return found;
+	}
+
+	private CapacityBuckets currentBuckets() {
+		long modificationCount = roomService.getRoomsModificationCount();
+		CapacityBuckets current = buckets;
+		if (current != null && current.modificationCount == modificationCount) {
+			return current;
+		}
+		synchronized (this) {
+			current = buckets;
+			if (current == null || current.modificationCount != modificationCount) {
+				CapacityBuckets rebuilt = new CapacityBuckets(modificationCount, roomService.findRooms());
+				bookingRepository.addListener(rebuilt);
+				if (current != null) {
+					bookingRepository.removeListener(current);
+				}
+				buckets = rebuilt;
+				current = rebuilt;
+			}
+		}
+		return current;
+	}
+
+	private static int toDay(LocalDate date) {
+		return Math.toIntExact(date.toEpochDay());
+	}
+
+	/**
+	 * The room ids grouped by capacity, each group sorted by id
+	 * and kept in a tree of its own. Bookings of rooms, which are
+	 * not in any of the groups, are ignored.
+	 */
+	private static final class CapacityBuckets implements BookingChangeListener {
+
+		private final long modificationCount;
+		private final int[] capacities;
+		private final BucketTree[] trees;
+		// the tree and the position in it of every room, not changed once built
+		private final IntObjectHashMap<int[]> slots = new IntObjectHashMap<>();
+
+		CapacityBuckets(long modificationCount, List<Room> rooms) {
+			this.modificationCount = modificationCount;
+			Map<Integer, List<Integer>> byCapacity = new TreeMap<>();
+			for (Room room : rooms) {
+				byCapacity.computeIfAbsent(room.getRoomCapacity(), capacity -> new ArrayList<>()).add(room.getRoomId());
+			}
+			capacities = new int[byCapacity.size()];
+			trees = new BucketTree[byCapacity.size()];
+			int bucket = 0;
+			for (Map.Entry<Integer, List<Integer>> entry : byCapacity.entrySet()) {
+				capacities[bucket] = entry.getKey();
+				int[] roomIds = entry.getValue().stream().mapToInt(Integer::intValue).sorted().toArray();
+				trees[bucket] = new BucketTree(roomIds);
+				for (int position = 0; position < roomIds.length; position++) {
+					slots.put(roomIds[position], new int[]{bucket, position});
+				}
+				bucket++;
+			}
+		}
+
+		int firstBucketWithCapacity(int numberOfPeople) {
+			int position = Arrays.binarySearch(capacities, numberOfPeople);
+			return position >= 0 ? position : -position - 1;
+		}
+
+		@Override
+		public void onSaved(Booking booking) {
+			mark(booking, true);
+		}
+
+		@Override
+		public void onReplaced(Booking previous, Booking current) {
+			mark(previous, false);
+			mark(current, true);
+		}
+
+		@Override
+		public void onDeleted(Booking booking) {
+			mark(booking, false);
+		}
+
+		@Override
+		public void onCleared() {
+			for (BucketTree tree : trees) {
+				tree.clear();
+			}
+		}
+
+		private void mark(Booking booking, boolean booked) {
+			int[] slot = slots.get(booking.getRoomId());
+			if (slot != null) {
+				trees[slot[0]].mark(slot[1], toDay(booking.getFrom()), toDay(booking.getTo()), booked);
+			}
+		}
+	}
+
+	/**
+	 * Segment tree over the rooms of one bucket, in heap order with the
+	 * leaves at the end, guarded by a lock of its own. A node maps the
+	 * index of a 64-day word to the nights of that word which are booked
+	 * in all of its rooms. Words without such nights are left out, and
+	 * nodes without any word are null.
+	 */
+	private static final class BucketTree {
+
+		private final StampedLock lock = new StampedLock();
+		private final int[] roomIds;
+		private final int leaves;
+		private final IntObjectHashMap<Long>[] nodes;
+
+		@SuppressWarnings("unchecked")
+		BucketTree(int[] roomIds) {
+			this.roomIds = roomIds;
+			leaves = Integer.highestOneBit(Math.max(1, roomIds.length - 1)) << 1;
+			nodes = new IntObjectHashMap[leaves << 1];
+		}
+
+		/**
+		 * Returns the id of the first room free for the nights of [fromDay, toDay),
+		 * with an id lower than the given one unless it's -1, or -1 if there's none.
+		 */
+		int findFirstFreeRoom(int fromDay, int toDay, int belowRoomId) {
+			int limit = belowRoomId == NO_ROOM ? roomIds.length : lowerBound(belowRoomId);
+			int position = read(() -> find(1, 0, leaves, limit, fromDay, toDay));
+			return position == NO_ROOM ? NO_ROOM : roomIds[position];
+		}
+
+		void mark(int position, int fromDay, int toDay, boolean booked) {
+			write(() -> {
+				int leaf = leaves + position;
+				for (int word = fromDay >> 6; word <= (toDay - 1) >> 6; word++) {
+					long mask = mask(word, fromDay, toDay);
+					long bits = wordOf(leaf, word);
+					set(leaf, word, booked ? bits | mask : bits & ~mask);
+					for (int node = leaf >>> 1; node > 0; node >>>= 1) {
+						long combined = wordOf(node << 1, word);
+						if (lowestPosition((node << 1) + 1) < roomIds.length) {
+							combined &= wordOf((node << 1) + 1, word);
+						}
+						if (combined == wordOf(node, word)) {
+							// the ancestors do not change either
+							break;
+						}
+						set(node, word, combined);
+					}
+				}
+			});
+		}
+
+		void clear() {
+			write(() -> Arrays.fill(nodes, null));
+		}
+
+		/**
+		 * Searches the positions [low, high) of the node, which are below limit,
+		 * skipping the node if one of the nights is booked in all of its rooms.
+		 */
+		private int find(int node, int low, int high, int limit, int fromDay, int toDay) {
+			if (low >= limit || isBookedThroughout(node, fromDay, toDay)) {
+				return NO_ROOM;
+			}
+			if (node >= leaves) {
+				return low;
+			}
+			int middle = (low + high) >>> 1;
+			int found = find(node << 1, low, middle, limit, fromDay, toDay);
+			return found != NO_ROOM ? found : find((node << 1) + 1, middle, high, limit, fromDay, toDay);
+		}
+
+		private boolean isBookedThroughout(int node, int fromDay, int toDay) {
+			IntObjectHashMap<Long> words = nodes[node];
+			if (words == null) {
+				return false;
+			}
+			for (int word = fromDay >> 6; word <= (toDay - 1) >> 6; word++) {
+				Long bits = words.get(word);
+				if (bits != null && (bits & mask(word, fromDay, toDay)) != 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Bits of the word, which are nights of [fromDay, toDay)
+		 */
+		private static long mask(int word, int fromDay, int toDay) {
+			long mask = -1L;
+			if (word == fromDay >> 6) {
+				mask &= -1L << fromDay;
+			}
+			if (word == (toDay - 1) >> 6) {
+				mask &= -1L >>> -toDay;
+			}
+			return mask;
+		}
+
+		private int lowestPosition(int node) {
+			while (node < leaves) {
+				node <<= 1;
+			}
+			return node - leaves;
+		}
+
+		private long wordOf(int node, int word) {
+			IntObjectHashMap<Long> words = nodes[node];
+			Long bits = words == null ? null : words.get(word);
+			return bits == null ? 0L : bits;
+		}
+
+		private void set(int node, int word, long bits) {
+			IntObjectHashMap<Long> words = nodes[node];
+			if (bits != 0L) {
+				if (words == null) {
+					words = new IntObjectHashMap<>();
+					nodes[node] = words;
+				}
+				words.put(word, bits);
+			} else if (words != null) {
+				words.remove(word);
+				if (words.isEmpty()) {
+					nodes[node] = null;
+				}
+			}
+		}
+
+		private int lowerBound(int roomId) {
+			int position = Arrays.binarySearch(roomIds, roomId);
+			return position >= 0 ? position : -position - 1;
+		}
+
+		private <T> T read(Supplier<T> reader) {
+			long stamp = lock.tryOptimisticRead();
+			if (stamp != 0L) {
+				try {
+					T result = reader.get();
+					if (lock.validate(stamp)) {
+						return result;
+					}
+				} catch (RuntimeException tornRead) {
+					// the tree was changed while reading, retried below
+				}
+			}
+			stamp = lock.readLock();
+			try {
+				return reader.get();
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		private void write(Runnable writer) {
+			long stamp = lock.writeLock();
+			try {
+				writer.run();
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+	}
+}
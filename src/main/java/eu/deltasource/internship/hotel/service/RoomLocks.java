@@ -0,0 +1,103 @@
+package eu.deltasource.internship.hotel.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped write locks for rooms.
+ * <p>
+ * Holding the lock of a room makes the overlap check and the
+ * insert of a booking for that room atomic, while bookings
+ * for rooms in other stripes proceed in parallel.
+ */
+class RoomLocks {
+
+	private final ReentrantLock[] stripes;
+	private final int mask;
+
+	RoomLocks() {
+		this(Runtime.getRuntime().availableProcessors() * 16);
+	}
+
+	RoomLocks(int minimumStripes) {
+		int count = Integer.highestOneBit(Math.max(1, minimumStripes - 1)) << 1;
+		stripes = new ReentrantLock[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new ReentrantLock();
+		}
+		mask = count - 1;
+	}
+
+	/**
+	 * Runs the action while holding the stripes of both rooms.
+	 * Stripes are always taken in index order, which rules out deadlocks.
+	 */
+	<T> T callLocked(int firstRoomId, int secondRoomId, Supplier<T> action) {
+		int first = stripeOf(firstRoomId);
+		int second = stripeOf(secondRoomId);
+		ReentrantLock outer = stripes[Math.min(first, second)];
+		ReentrantLock inner = stripes[Math.max(first, second)];
+		outer.lock();
+		try {
+			inner.lock();
+			try {
+				return action.get();
+			} finally {
+				inner.unlock();
+			}
+		} finally {
+			outer.unlock();
+		}
+	}
+
+	/**
+	 * Runs the action while holding the stripes of all given rooms,
+	 * taken in index order like for two rooms.
+	 */
+	<T> T callLocked(int[] roomIds, Supplier<T> action) {
+		boolean[] needed = new boolean[stripes.length];
+		for (int roomId : roomIds) {
+			needed[stripeOf(roomId)] = true;
+		}
+		int locked = 0;
+		try {
+			for (; locked < stripes.length; locked++) {
+				if (needed[locked]) {
+					stripes[locked].lock();
+				}
+			}
+			return action.get();
+		} finally {
+			for (int i = locked - 1; i >= 0; i--) {
+				if (needed[i]) {
+					stripes[i].unlock();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs the action while holding the stripe of the room.
+	 */
+	<T> T callLocked(int roomId, Supplier<T> action) {
+		ReentrantLock stripe = stripes[stripeOf(roomId)];
+		stripe.lock();
+		try {
+			return action.get();
+		} finally {
+			stripe.unlock();
+		}
+	}
+
+	void runLocked(int roomId, Runnable action) {
+		callLocked(roomId, () -> {
+			action.run();
+			return null;
+		});
+	}
+
+	private int stripeOf(int roomId) {
+		int hash = roomId * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+}
@@ -10,7 +10,9 @@ import eu.deltasource.internship.hotel.dto.BedDTO;
 import eu.deltasource.internship.hotel.dto.ToiletDTO;
 import eu.deltasource.internship.hotel.exception.ArgumentNotValidException;
 import eu.deltasource.internship.hotel.exception.ItemNotFoundException;
+import eu.deltasource.internship.hotel.exception.VersionConflictException;
 import eu.deltasource.internship.hotel.repository.RoomRepository;
+import eu.deltasource.internship.hotel.repository.Versions;
 
 import eu.deltasource.internship.hotel.dto.RoomDTO;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -49,6 +51,28 @@ public class RoomService {
 		return roomRepository.findAll();
 	}
 
+	/**
+	 * Returns a page of at most limit rooms with ids
+	 * greater than afterId, ordered by id - the id of the
+	 * last one is the cursor for the next page
+	 *
+	 * @param afterId id of the last room of the previous page, 0 for the first page
+	 * @param limit   maximum number of rooms, at most {@value Pages#MAX_PAGE_SIZE}
+	 * @throws ArgumentNotValidException if the cursor or the limit are out of range
+	 */
+	public List<Room> findPage(int afterId, int limit) {
+		Pages.validate(afterId, limit);
+		return roomRepository.findPage(afterId, limit);
+	}
+
+	/**
+	 * Returns a counter, which changes
+	 * whenever the set of rooms changes
+	 */
+	public long getRoomsModificationCount() {
+		return roomRepository.modificationCount();
+	}
+
 	/**
 	 * Searches room by id
 	 * and returns one if id is valid
@@ -57,9 +81,6 @@ public class RoomService {
 	 * @return copy of the found room
 	 */
 	public Room getRoomById(int id) {
-		if (!roomRepository.existsById(id)) {
-			throw new ItemNotFoundException("Room with id " + id + " does not exist!");
-		}
 		return roomRepository.findById(id);
 	}
 
@@ -71,8 +92,7 @@ public class RoomService {
 	 */
 	public Room saveRoom(Room room) {
 		validateRoom(room);
-		roomRepository.save(room);
-		return getRoomById(roomRepository.count());
+		return roomRepository.save(room);
 	}
 
 	/**
@@ -104,11 +124,21 @@ public class RoomService {
 	 * @return the updated room
 	 */
 	public Room updateRoom(Room room) {
+		return updateRoom(room, Versions.ANY);
+	}
+
+	/**
+	 * Updates existing room, if it was not changed since the expected version
+	 *
+	 * @param expectedVersion version the update is based on, or {@link Versions#ANY}
+	 * @throws VersionConflictException if the room was changed since
+	 */
+	public Room updateRoom(Room room, int expectedVersion) {
 		validateRoom(room);
 		if (!roomRepository.existsById(room.getRoomId())) {
 			throw new ItemNotFoundException("Room with " + " does not exist!");
 		}
-		return roomRepository.updateRoom(room);
+		return roomRepository.updateRoom(room, expectedVersion);
 	}
 
 	/**
@@ -0,0 +1,69 @@
+package eu.deltasource.internship.hotel.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out ids from blocks reserved per thread.
+ * <p>
+ * Each thread reserves a range of ids from the shared counter and then
+ * allocates from it without touching shared state, so parallel inserts
+ * do not contend. Ids are unique and increase within a thread, but are
+ * not ordered across threads.
+ */
+public class BlockIdAllocator implements IdAllocator {
+
+	private static final int DEFAULT_BLOCK_SIZE = 1024;
+
+	private final AtomicLong reservedUpTo = new AtomicLong();
+	private final int blockSize;
+	private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+	private volatile int generation;
+
+	public BlockIdAllocator() {
+		this(DEFAULT_BLOCK_SIZE);
+	}
+
+	public BlockIdAllocator(int blockSize) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("Block size must be positive!");
+		}
+		this.blockSize = blockSize;
+	}
+
+	@Override
+	public int nextId() {
+		Block block = blocks.get();
+		int currentGeneration = generation;
+		if (block.generation != currentGeneration || block.next > block.last) {
+			long last = reservedUpTo.addAndGet(blockSize);
+			block.next = last - blockSize + 1;
+			block.last = last;
+			block.generation = currentGeneration;
+		}
+		return SequentialIdAllocator.toId(block.next++);
+	}
+
+	/**
+	 * Blocks reserved before the call are given up,
+	 * as they might contain used ids.
+	 */
+	@Override
+	public synchronized void advanceTo(int usedId) {
+		reservedUpTo.accumulateAndGet(usedId, Math::max);
+		generation++;
+	}
+
+	/**
+	 * Ids of blocks, which are reserved but not yet used, count as issued.
+	 */
+	@Override
+	public int highestIssuedId() {
+		return SequentialIdAllocator.toId(reservedUpTo.get());
+	}
+
+	private static final class Block {
+		private long next = 1;
+		private long last;
+		private int generation = -1;
+	}
+}
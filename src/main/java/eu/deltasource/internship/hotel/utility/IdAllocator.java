@@ -0,0 +1,36 @@
+package eu.deltasource.internship.hotel.utility;
+
+/**
+ * Hands out ids for newly created items.
+ * <p>
+ * Implementations must be thread safe and must never
+ * hand out the same id twice.
+ */
+public interface IdAllocator {
+
+	/**
+	 * Returns a new, positive id.
+	 *
+	 * @throws IllegalStateException if the ids are exhausted
+	 */
+	int nextId();
+
+	/**
+	 * Makes sure no id up to the given one is handed out anymore.
+	 * Used after items with known ids are loaded from storage.
+	 */
+	void advanceTo(int usedId);
+
+	/**
+	 * Returns an id, so that no id above it
+	 * was handed out yet.
+	 */
+	int highestIssuedId();
+
+	/**
+	 * Returns the lowest id ever handed out.
+	 */
+	default int firstId() {
+		return 1;
+	}
+}
@@ -0,0 +1,10 @@
+package eu.deltasource.internship.hotel.utility;
+
+/**
+ * Creates the id allocator of each repository.
+ */
+@FunctionalInterface
+public interface IdAllocatorFactory {
+
+	IdAllocator create();
+}
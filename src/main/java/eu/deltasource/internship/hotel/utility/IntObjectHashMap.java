@@ -0,0 +1,227 @@
+package eu.deltasource.internship.hotel.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hash map with primitive int keys, which keeps
+ * its values in insertion order.
+ * <p>
+ * Entries are appended to parallel key/value arrays and an
+ * open addressing table maps every key to its entry, so lookups
+ * and removals are O(1) without boxing the keys. Removed entries
+ * leave a hole, which is compacted away once holes dominate.
+ * <p>
+ * The map is not thread safe.
+ */
+public final class IntObjectHashMap<V> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int EMPTY = 0;
+
+	private int[] table;
+	private int mask;
+	private int[] keys;
+	private Object[] values;
+	private int entryCount;
+	private int size;
+
+	public IntObjectHashMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public IntObjectHashMap(int expectedSize) {
+		int capacity = Math.max(DEFAULT_CAPACITY, expectedSize);
+		keys = new int[capacity];
+		values = new Object[capacity];
+		allocateTable(capacity);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean containsKey(int key) {
+		return entryOf(key) >= 0;
+	}
+
+	/**
+	 * Returns the value mapped to the key or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		int entry = entryOf(key);
+		return entry < 0 ? null : (V) values[entry];
+	}
+
+	/**
+	 * Maps the key to the value. An existing key keeps
+	 * its position in the iteration order.
+	 *
+	 * @return the previous value or null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Null values are not supported!");
+		}
+		int slot = slotOf(key);
+		if (table[slot] != EMPTY) {
+			int entry = table[slot] - 1;
+			V previous = (V) values[entry];
+			values[entry] = value;
+			return previous;
+		}
+		if (entryCount == keys.length) {
+			ensureEntryCapacity();
+			slot = slotOf(key);
+		}
+		keys[entryCount] = key;
+		values[entryCount] = value;
+		table[slot] = ++entryCount;
+		size++;
+		return null;
+	}
+
+	/**
+	 * Removes the mapping for the key.
+	 *
+	 * @return the removed value or null
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		int slot = slotOf(key);
+		if (table[slot] == EMPTY) {
+			return null;
+		}
+		int entry = table[slot] - 1;
+		V previous = (V) values[entry];
+		values[entry] = null;
+		size--;
+		deleteSlot(slot);
+		return previous;
+	}
+
+	public void clear() {
+		Arrays.fill(table, EMPTY);
+		Arrays.fill(values, 0, entryCount, null);
+		entryCount = 0;
+		size = 0;
+	}
+
+	/**
+	 * Returns the key of the most recently inserted
+	 * entry, which is still present.
+	 *
+	 * @throws IllegalStateException if the map is empty
+	 */
+	public int lastKey() {
+		for (int i = entryCount - 1; i >= 0; i--) {
+			if (values[i] != null) {
+				return keys[i];
+			}
+		}
+		throw new IllegalStateException("The map is empty!");
+	}
+
+	/**
+	 * Passes all values to the action in insertion order,
+	 * without copying them.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(Consumer<? super V> action) {
+		for (int i = 0; i < entryCount; i++) {
+			if (values[i] != null) {
+				action.accept((V) values[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns a new list of all values in insertion order.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values() {
+		List<V> result = new ArrayList<>(size);
+		for (int i = 0; i < entryCount; i++) {
+			if (values[i] != null) {
+				result.add((V) values[i]);
+			}
+		}
+		return result;
+	}
+
+	private int entryOf(int key) {
+		int entry = table[slotOf(key)];
+		return entry == EMPTY ? -1 : entry - 1;
+	}
+
+	/**
+	 * Returns the slot holding the key, or the empty slot
+	 * where the key would be inserted.
+	 */
+	private int slotOf(int key) {
+		int slot = hash(key) & mask;
+		while (table[slot] != EMPTY && keys[table[slot] - 1] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Backward shift deletion, which keeps the probe
+	 * sequences intact without tombstones in the table.
+	 */
+	private void deleteSlot(int slot) {
+		int hole = slot;
+		int next = (hole + 1) & mask;
+		while (table[next] != EMPTY) {
+			int home = hash(keys[table[next] - 1]) & mask;
+			boolean canMove = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+			if (canMove) {
+				table[hole] = table[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		table[hole] = EMPTY;
+	}
+
+	private void ensureEntryCapacity() {
+		int capacity = size * 2 > keys.length ? keys.length << 1 : keys.length;
+		int[] newKeys = new int[capacity];
+		Object[] newValues = new Object[capacity];
+		int live = 0;
+		for (int i = 0; i < entryCount; i++) {
+			if (values[i] != null) {
+				newKeys[live] = keys[i];
+				newValues[live] = values[i];
+				live++;
+			}
+		}
+		keys = newKeys;
+		values = newValues;
+		entryCount = live;
+		allocateTable(capacity);
+		for (int i = 0; i < entryCount; i++) {
+			table[slotOf(keys[i])] = i + 1;
+		}
+	}
+
+	private void allocateTable(int entryCapacity) {
+		int tableSize = Integer.highestOneBit(entryCapacity * 2 - 1) << 1;
+		table = new int[tableSize];
+		mask = tableSize - 1;
+	}
+
+	private static int hash(int key) {
+		int hash = key * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,51 @@
+package eu.deltasource.internship.hotel.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out consecutive ids from a fixed range, so that
+ * several allocators never hand out the same id.
+ */
+public class RangeIdAllocator implements IdAllocator {
+
+	private final int firstId;
+	private final int lastId;
+	private final AtomicLong issuedId;
+
+	/**
+	 * @param firstId lowest id of the range
+	 * @param lastId  highest id of the range
+	 */
+	public RangeIdAllocator(int firstId, int lastId) {
+		if (firstId <= 0 || lastId < firstId) {
+			throw new IllegalArgumentException("Invalid id range " + firstId + " - " + lastId + "!");
+		}
+		this.firstId = firstId;
+		this.lastId = lastId;
+		issuedId = new AtomicLong(firstId - 1L);
+	}
+
+	@Override
+	public int nextId() {
+		long id = issuedId.incrementAndGet();
+		if (id > lastId) {
+			throw new IllegalStateException("No more ids are available!");
+		}
+		return (int) id;
+	}
+
+	@Override
+	public void advanceTo(int usedId) {
+		issuedId.accumulateAndGet(usedId, Math::max);
+	}
+
+	@Override
+	public int highestIssuedId() {
+		return (int) Math.min(issuedId.get(), lastId);
+	}
+
+	@Override
+	public int firstId() {
+		return firstId;
+	}
+}
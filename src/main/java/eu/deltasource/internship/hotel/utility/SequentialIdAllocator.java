@@ -0,0 +1,33 @@
+package eu.deltasource.internship.hotel.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out consecutive ids from a single atomic counter.
+ */
+public class SequentialIdAllocator implements IdAllocator {
+
+	private final AtomicLong lastId = new AtomicLong();
+
+	@Override
+	public int nextId() {
+		return toId(lastId.incrementAndGet());
+	}
+
+	@Override
+	public void advanceTo(int usedId) {
+		lastId.accumulateAndGet(usedId, Math::max);
+	}
+
+	@Override
+	public int highestIssuedId() {
+		return toId(lastId.get());
+	}
+
+	static int toId(long id) {
+		if (id > Integer.MAX_VALUE) {
+			throw new IllegalStateException("No more ids are available!");
+		}
+		return (int) id;
+	}
+}
@@ -0,0 +1,177 @@
+package eu.deltasource.internship.hotel.utility;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive ints in ascending order, which
+ * can be read from any value on.
+ * <p>
+ * The values are kept in sorted chunks of at most {@value #CHUNK_SIZE}
+ * ints. A value is found by a binary search over the first values of
+ * the chunks and one within its chunk, and adding or removing it moves
+ * the rest of its chunk only. Values greater than all others, like
+ * newly allocated ids, are appended to the last chunk.
+ * <p>
+ * The set is not thread safe.
+ */
+public final class SortedIntSet {
+
+	static final int CHUNK_SIZE = 512;
+
+	private int[][] chunks = new int[0][];
+	private int[] lengths = new int[0];
+	private int chunkCount;
+	private int size;
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return false if the value was in the set already
+	 */
+	public boolean add(int value) {
+		if (chunkCount == 0 || value > last()) {
+			append(value);
+			return true;
+		}
+		int chunk = Math.max(chunkOf(value), 0);
+		int position = Arrays.binarySearch(chunks[chunk], 0, lengths[chunk], value);
+		if (position >= 0) {
+			return false;
+		}
+		position = -position - 1;
+		if (lengths[chunk] == CHUNK_SIZE) {
+			split(chunk);
+			if (position > CHUNK_SIZE / 2) {
+				chunk++;
+				position -= CHUNK_SIZE / 2;
+			}
+		}
+		int[] values = chunks[chunk];
+		System.arraycopy(values, position, values, position + 1, lengths[chunk] - position);
+		values[position] = value;
+		lengths[chunk]++;
+		size++;
+		return true;
+	}
+
+	/**
+	 * @return false if the value was not in the set
+	 */
+	public boolean remove(int value) {
+		int chunk = chunkOf(value);
+		if (chunk < 0) {
+			return false;
+		}
+		int position = Arrays.binarySearch(chunks[chunk], 0, lengths[chunk], value);
+		if (position < 0) {
+			return false;
+		}
+		int[] values = chunks[chunk];
+		System.arraycopy(values, position + 1, values, position, lengths[chunk] - position - 1);
+		size--;
+		if (--lengths[chunk] == 0) {
+			removeChunk(chunk);
+		}
+		return true;
+	}
+
+	public void clear() {
+		Arrays.fill(chunks, 0, chunkCount, null);
+		chunkCount = 0;
+		size = 0;
+	}
+
+	/**
+	 * Returns at most limit values greater than the given one, in ascending order.
+	 */
+	public int[] after(int value, int limit) {
+		int[] result = new int[Math.min(limit, size)];
+		int count = 0;
+		int chunk = Math.max(chunkOf(value), 0);
+		int position = chunkCount == 0 ? 0 : upperBound(chunk, value);
+		for (; chunk < chunkCount && count < result.length; chunk++, position = 0) {
+			int taken = Math.min(lengths[chunk] - position, result.length - count);
+			System.arraycopy(chunks[chunk], position, result, count, taken);
+			count += taken;
+		}
+		return count == result.length ? result : Arrays.copyOf(result, count);
+	}
+
+	private int last() {
+		return chunks[chunkCount - 1][lengths[chunkCount - 1] - 1];
+	}
+
+	private void append(int value) {
+		if (chunkCount == 0 || lengths[chunkCount - 1] == CHUNK_SIZE) {
+			insertChunk(chunkCount, new int[CHUNK_SIZE], 0);
+		}
+		chunks[chunkCount - 1][lengths[chunkCount - 1]++] = value;
+		size++;
+	}
+
+	/**
+	 * Moves the upper half of the full chunk into a new one after it.
+	 */
+	private void split(int chunk) {
+		int[] upper = new int[CHUNK_SIZE];
+		System.arraycopy(chunks[chunk], CHUNK_SIZE / 2, upper, 0, CHUNK_SIZE / 2);
+		lengths[chunk] = CHUNK_SIZE / 2;
+		insertChunk(chunk + 1, upper, CHUNK_SIZE / 2);
+	}
+
+	private void insertChunk(int chunk, int[] values, int length) {
+		if (chunkCount == chunks.length) {
+			int capacity = Math.max(4, chunkCount << 1);
+			chunks = Arrays.copyOf(chunks, capacity);
+			lengths = Arrays.copyOf(lengths, capacity);
+		}
+		System.arraycopy(chunks, chunk, chunks, chunk + 1, chunkCount - chunk);
+		System.arraycopy(lengths, chunk, lengths, chunk + 1, chunkCount - chunk);
+		chunks[chunk] = values;
+		lengths[chunk] = length;
+		chunkCount++;
+	}
+
+	private void removeChunk(int chunk) {
+		System.arraycopy(chunks, chunk + 1, chunks, chunk, chunkCount - chunk - 1);
+		System.arraycopy(lengths, chunk + 1, lengths, chunk, chunkCount - chunk - 1);
+		chunks[--chunkCount] = null;
+	}
+
+	/**
+	 * Index of the last chunk starting at or before the value, -1 if there's none.
+	 */
+	private int chunkOf(int value) {
+		int low = 0;
+		int high = chunkCount;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (chunks[middle][0] <= value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low - 1;
+	}
+
+	/**
+	 * Index of the first value of the chunk greater than the given one.
+	 */
+	private int upperBound(int chunk, int value) {
+		int low = 0;
+		int high = lengths[chunk];
+		int[] values = chunks[chunk];
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (values[middle] <= value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,137 @@
+package eu.deltasource.internship.hotel.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.deltasource.internship.hotel.HotelApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClusterTest {
+
+	private static final String ROOM = "{\"roomId\":0,\"commodities\":[{\"@type\":\"Bed\",\"bedType\":\"DOUBLE\"}]}";
+	private static final String GUEST = "{\"firstName\":\"John\",\"lastName\":\"Miller\",\"gender\":\"MALE\"}";
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+	private final List<String> urls = new ArrayList<>();
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		for (int i = 0; i < 2; i++) {
+			try (ServerSocket socket = new ServerSocket(0)) {
+				urls.add("http://localhost:" + socket.getLocalPort());
+			}
+		}
+		for (int i = 0; i < urls.size(); i++) {
+			nodes.add(new SpringApplicationBuilder(HotelApplication.class).run(
+				"--server.port=" + URI.create(urls.get(i)).getPort(),
+				"--hotel.cluster.nodes=" + String.join(",", urls),
+				"--hotel.cluster.self=" + i));
+		}
+	}
+
+	@AfterEach
+	public void tearDown() {
+		nodes.forEach(ConfigurableApplicationContext::close);
+	}
+
+	@Test
+	public void bookingsShouldBeKeptByTheOwnerOfTheirRoom() throws Exception {
+		//given
+		int localRoomId = send(0, "POST", "/rooms", ROOM).get("roomId").asInt();
+		int remoteRoomId = send(1, "POST", "/rooms", ROOM).get("roomId").asInt();
+		send(1, "POST", "/guests", GUEST);
+		int remoteGuestId = send(0, "GET", "/guests", null).get(0).get("guestId").asInt();
+
+		//when
+		send(0, "POST", "/bookings", booking(remoteGuestId, remoteRoomId));
+
+		//then
+		JsonNode bookings = send(0, "GET", "/bookings", null);
+		assertEquals(1, bookings.size());
+		int bookingId = bookings.get(0).get("bookingId").asInt();
+		assertEquals(1, new ClusterTopology(List.of(URI.create(urls.get(0)), URI.create(urls.get(1))), 0)
+			.ownerOf(bookingId));
+		assertEquals(remoteRoomId, send(0, "GET", "/bookings/" + bookingId, null).get("roomId").asInt());
+		JsonNode available = send(0, "GET", "/rooms/available?from=2030-01-01&to=2030-01-02", null);
+		assertEquals(1, available.size());
+		assertEquals(localRoomId, available.get(0).get("roomId").asInt());
+		assertEquals(400, status(0, "POST", "/bookings/multiple",
+			"[" + booking(remoteGuestId, localRoomId) + "," + booking(remoteGuestId, remoteRoomId) + "]"));
+		HttpResponse<String> found = client.send(request(0, "GET", "/bookings/" + bookingId, null),
+			HttpResponse.BodyHandlers.ofString());
+		assertEquals("\"1\"", found.headers().firstValue("ETag").orElse(null));
+		String dates = "{\"from\":\"2030-02-01\",\"to\":\"2030-02-03\"}";
+		assertEquals(200, status(0, "PUT", "/bookings/" + bookingId + "/dates", dates, "If-Match", "\"1\""));
+		assertEquals(412, status(0, "PUT", "/bookings/" + bookingId + "/dates", dates, "If-Match", "\"1\""));
+	}
+
+	@Test
+	public void bookingsShouldFollowTheirGuestAcrossNodes() throws Exception {
+		//given
+		int localRoomId = send(0, "POST", "/rooms", ROOM).get("roomId").asInt();
+		int remoteRoomId = send(1, "POST", "/rooms", ROOM).get("roomId").asInt();
+		send(0, "POST", "/guests", GUEST);
+		int guestId = send(1, "GET", "/guests", null).get(0).get("guestId").asInt();
+
+		//when
+		send(1, "POST", "/bookings", booking(guestId, remoteRoomId, "2030-01-01", "2030-01-05"));
+		send(0, "POST", "/bookings", booking(guestId, localRoomId, "2030-01-05", "2030-01-07"));
+		JsonNode bookings = send(1, "GET", "/guests/" + guestId + "/bookings", null);
+		JsonNode bookingsInPeriod = send(1, "GET", "/guests/" + guestId + "/bookings?from=2030-01-05", null);
+		send(1, "DELETE", "/guests/" + guestId, null);
+
+		//then
+		assertEquals(2, bookings.size());
+		assertEquals(remoteRoomId, bookings.get(0).get("roomId").asInt());
+		assertEquals(localRoomId, bookings.get(1).get("roomId").asInt());
+		assertEquals(1, bookingsInPeriod.size());
+		assertEquals(localRoomId, bookingsInPeriod.get(0).get("roomId").asInt());
+		assertEquals(0, send(0, "GET", "/bookings", null).size());
+		assertEquals(404, status(1, "GET", "/guests/" + guestId, null));
+		assertEquals(404, status(0, "POST", "/bookings", booking(guestId, remoteRoomId)));
+	}
+
+	private static String booking(int guestId, int roomId) {
+		return booking(guestId, roomId, "2030-01-01", "2030-01-02");
+	}
+
+	private static String booking(int guestId, int roomId, String from, String to) {
+		return "{\"bookingId\":0,\"guestId\":" + guestId + ",\"roomId\":" + roomId
+			+ ",\"numberOfPeople\":1,\"from\":\"" + from + "\",\"to\":\"" + to + "\"}";
+	}
+
+	private JsonNode send(int node, String method, String path, String json) throws Exception {
+		HttpResponse<String> response = client.send(request(node, method, path, json),
+			HttpResponse.BodyHandlers.ofString());
+		assertEquals(200, response.statusCode(), response.body());
+		return response.body().isEmpty() ? null : objectMapper.readTree(response.body());
+	}
+
+	private int status(int node, String method, String path, String json, String... headers) throws Exception {
+		return client.send(request(node, method, path, json, headers), HttpResponse.BodyHandlers.discarding())
+			.statusCode();
+	}
+
+	private HttpRequest request(int node, String method, String path, String json, String... headers) {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(urls.get(node) + path))
+			.header("Content-Type", "application/json")
+			.method(method, json == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json));
+		return headers.length == 0 ? request.build() : request.headers(headers).build();
+	}
+}
@@ -0,0 +1,48 @@
+package eu.deltasource.internship.hotel.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NdjsonStreamTest {
+
+	@Test
+	public void streamShouldWriteAllItemsAndFlushOncePerPage() throws IOException {
+		//given
+		List<Integer> items = IntStream.rangeClosed(1, 2500).boxed().collect(Collectors.toList());
+		CountingOutputStream output = new CountingOutputStream();
+
+		//when
+		NdjsonStream.of(new ObjectMapper(), (afterId, limit) -> items.stream()
+				.filter(item -> item > afterId)
+				.limit(limit)
+				.collect(Collectors.toList()), Integer::intValue)
+			.getBody()
+			.writeTo(output);
+
+		//then
+		String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(2500, lines.length);
+		assertEquals("1", lines[0]);
+		assertEquals("2500", lines[2499]);
+		// one for each of the three pages, and one on closing
+		assertEquals(4, output.flushes);
+	}
+
+	private static final class CountingOutputStream extends ByteArrayOutputStream {
+		private int flushes;
+
+		@Override
+		public void flush() {
+			flushes++;
+		}
+	}
+}
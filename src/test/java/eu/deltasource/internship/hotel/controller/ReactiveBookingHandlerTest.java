@@ -0,0 +1,107 @@
+package eu.deltasource.internship.hotel.controller;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.domain.Gender;
+import eu.deltasource.internship.hotel.domain.Guest;
+import eu.deltasource.internship.hotel.domain.Room;
+import eu.deltasource.internship.hotel.domain.commodity.*;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.repository.GuestRepository;
+import eu.deltasource.internship.hotel.repository.RoomRepository;
+import eu.deltasource.internship.hotel.service.BookingService;
+import eu.deltasource.internship.hotel.service.GuestService;
+import eu.deltasource.internship.hotel.service.RoomService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.StatusAssertions;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReactiveBookingHandlerTest {
+
+	private static final LocalDate FROM = LocalDate.of(2030, 1, 1);
+
+	private BookingRepository bookingRepository = new BookingRepository();
+	private RoomService roomService = new RoomService(new RoomRepository());
+	private GuestService guestService = new GuestService(new GuestRepository(), bookingRepository);
+	private BookingService bookingService = new BookingService(bookingRepository, roomService, guestService);
+	private RoomWriteLanes lanes = new RoomWriteLanes(2);
+	private WebTestClient client = WebTestClient
+		.bindToRouterFunction(new ReactiveBookingHandler(bookingService, lanes).routes())
+		.build();
+
+	@BeforeEach
+	public void setUp() {
+		guestService.save(new Guest(1, "John", "Miller", Gender.MALE));
+		roomService.saveRoom(new Room(1, new HashSet<>(Arrays.asList(new Bed(BedType.DOUBLE), new Toilet()))));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		lanes.close();
+	}
+
+	@Test
+	public void savedBookingsShouldBeStreamedAcrossPages() {
+		// given
+		int count = ReactiveBookingHandler.PAGE_SIZE + 1;
+		for (int i = 0; i < count; i++) {
+			client.post().uri("/bookings")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(new Booking(0, 1, 1, 1, FROM.plusDays(i), FROM.plusDays(i + 1)))
+				.exchange()
+				.expectStatus().isOk();
+		}
+
+		// when
+		List<Booking> streamed = client.get().uri("/bookings")
+			.accept(MediaType.APPLICATION_NDJSON)
+			.exchange()
+			.expectStatus().isOk()
+			.returnResult(Booking.class)
+			.getResponseBody()
+			.collectList()
+			.block();
+
+		// then
+		List<Integer> ids = streamed.stream().map(Booking::getBookingId).collect(Collectors.toList());
+		assertThat(ids.subList(count - 2, count), contains(count - 1, count));
+		assertEquals(count, ids.size());
+	}
+
+	@Test
+	public void rejectedBookingsShouldBeAnsweredWithClientErrors() {
+		// given
+		client.post().uri("/bookings")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(new Booking(0, 1, 1, 1, FROM, FROM.plusDays(2)))
+			.exchange()
+			.expectStatus().isOk();
+
+		// when and then
+		post(new Booking(0, 1, 1, 1, FROM.plusDays(1), FROM.plusDays(3))).isEqualTo(HttpStatus.CONFLICT);
+		post(new Booking(0, 2, 1, 1, FROM.plusDays(5), FROM.plusDays(6))).isEqualTo(HttpStatus.NOT_FOUND);
+		post(new Booking(0, 1, 1, 5, FROM.plusDays(5), FROM.plusDays(6))).isEqualTo(HttpStatus.BAD_REQUEST);
+		assertEquals(1, bookingService.findAll().size());
+	}
+
+	private StatusAssertions post(Booking booking) {
+		return client.post().uri("/bookings")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(booking)
+			.exchange()
+			.expectStatus();
+	}
+}
@@ -0,0 +1,52 @@
+package eu.deltasource.internship.hotel.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestExecutorTest {
+
+	@Test
+	public void boundedExecutorShouldRejectRequestsWithAFullQueue() throws InterruptedException {
+		//given
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try (RequestExecutor executor = RequestExecutor.of("test", RequestExecutor.BOUNDED, 1, 1)) {
+			CompletableFuture<Void> running = executor.run(() -> {
+				started.countDown();
+				awaitQuietly(release);
+			});
+			started.await();
+			CompletableFuture<String> queued = executor.call(() -> "queued");
+
+			//when
+			ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+				() -> executor.call(() -> "rejected"));
+
+			//then
+			assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+			release.countDown();
+			running.join();
+			assertEquals("queued", queued.join());
+			assertEquals("accepted", executor.call(() -> "accepted").join());
+		}
+	}
+
+	@Test
+	public void unknownModeShouldFail() {
+		assertThrows(IllegalArgumentException.class, () -> RequestExecutor.of("test", "virtual", 1, 1));
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
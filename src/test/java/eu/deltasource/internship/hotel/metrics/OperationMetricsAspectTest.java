@@ -0,0 +1,53 @@
+package eu.deltasource.internship.hotel.metrics;
+
+import eu.deltasource.internship.hotel.domain.Gender;
+import eu.deltasource.internship.hotel.domain.Guest;
+import eu.deltasource.internship.hotel.exception.ItemNotFoundException;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.repository.GuestRepository;
+import eu.deltasource.internship.hotel.service.GuestService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OperationMetricsAspectTest {
+
+	private MeterRegistry registry = new SimpleMeterRegistry();
+	private OperationMetricsAspect aspect = new OperationMetricsAspect(registry);
+	private GuestRepository guestRepository = advised(new GuestRepository());
+	private GuestService guestService = advised(new GuestService(guestRepository, new BookingRepository()));
+
+	@Test
+	public void callsShouldBeTimedAndExceptionsCountedOnce() {
+		// given
+		guestService.save(new Guest(1, "John", "Miller", Gender.MALE));
+
+		// when
+		guestService.findById(1);
+		assertThrows(ItemNotFoundException.class, () -> guestService.findById(2));
+
+		// then
+		assertEquals(1, timer("GuestService", "findById", "none"));
+		assertEquals(1, timer("GuestService", "findById", "ItemNotFoundException"));
+		assertEquals(1, timer("GuestRepository", "findById", "none"));
+		assertEquals(1, timer("GuestRepository", "findById", "ItemNotFoundException"));
+		assertEquals(1, registry.get(OperationMetricsAspect.EXCEPTION_COUNTER)
+			.tag("exception", "ItemNotFoundException").counter().count());
+	}
+
+	private long timer(String className, String method, String exception) {
+		return registry.get(OperationMetricsAspect.OPERATION_TIMER)
+			.tags("class", className, "method", method, "exception", exception)
+			.timer().count();
+	}
+
+	private <T> T advised(T target) {
+		AspectJProxyFactory factory = new AspectJProxyFactory(target);
+		factory.setProxyTargetClass(true);
+		factory.addAspect(aspect);
+		return factory.getProxy();
+	}
+}
@@ -0,0 +1,91 @@
+package eu.deltasource.internship.hotel.persistence;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.domain.Gender;
+import eu.deltasource.internship.hotel.domain.Guest;
+import eu.deltasource.internship.hotel.domain.Room;
+import eu.deltasource.internship.hotel.domain.commodity.AbstractCommodity;
+import eu.deltasource.internship.hotel.domain.commodity.Bed;
+import eu.deltasource.internship.hotel.domain.commodity.BedType;
+import eu.deltasource.internship.hotel.domain.commodity.Toilet;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.repository.GuestRepository;
+import eu.deltasource.internship.hotel.repository.RoomRepository;
+import eu.deltasource.internship.hotel.utility.SequentialIdAllocator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileSnapshotStoreTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void repositoriesShouldBeRestoredFromSnapshotsAndTheLogTail() throws Exception {
+		//given
+		Path logFile = directory.resolve("bookings.wal");
+		FileSnapshotStore store = new FileSnapshotStore(directory);
+		try (WriteAheadBookingLog log = new WriteAheadBookingLog(logFile)) {
+			GuestRepository guests = new GuestRepository(store);
+			RoomRepository rooms = new RoomRepository(store);
+			BookingRepository bookings = new BookingRepository(log, store);
+			guests.save(new Guest(1, "Maria", "Tam", Gender.FEMALE));
+			Set<AbstractCommodity> commodities = new HashSet<>(Arrays.asList(new Bed(BedType.DOUBLE), new Toilet()));
+			rooms.save(new Room(1, commodities));
+			for (int day = 1; day <= 20; day++) {
+				bookings.save(booking(day));
+			}
+			long fullLogSize = waitForLogSize(logFile, 0);
+
+			//when
+			SnapshotScheduler scheduler = new SnapshotScheduler(store, guests, rooms, bookings, log, 3600);
+			scheduler.takeSnapshots();
+			bookings.deleteById(20);
+			bookings.save(booking(25));
+
+			//then
+			assertTrue(waitForLogSize(logFile, fullLogSize) < fullLogSize);
+		}
+
+		try (WriteAheadBookingLog log = new WriteAheadBookingLog(logFile)) {
+			GuestRepository guests = new GuestRepository(store);
+			RoomRepository rooms = new RoomRepository(store);
+			BookingRepository bookings = new BookingRepository(new SequentialIdAllocator(), log, store);
+
+			assertEquals("Maria", guests.findById(1).getFirstName());
+			assertEquals(2, rooms.findById(1).getRoomCapacity());
+			assertEquals(2, rooms.findById(1).getCommodities().size());
+			assertEquals(20, bookings.count());
+			assertFalse(bookings.existsById(20));
+			assertEquals(LocalDate.of(2021, 1, 25), bookings.findById(21).getFrom());
+			assertEquals(22, bookings.save(booking(28)).getBookingId());
+			assertEquals(2, guests.save(new Guest(1, "John", "Miller", Gender.MALE)).getGuestId());
+		}
+	}
+
+	/**
+	 * The log is compacted by its writer thread, so its size is polled
+	 */
+	private static long waitForLogSize(Path logFile, long differentFrom) throws Exception {
+		long size = Files.size(logFile);
+		for (int attempt = 0; attempt < 50 && (size == differentFrom || size == 0); attempt++) {
+			Thread.sleep(100);
+			size = Files.size(logFile);
+		}
+		return size;
+	}
+
+	private static Booking booking(int dayOfJanuary) {
+		LocalDate from = LocalDate.of(2021, 1, dayOfJanuary);
+		return new Booking(1, 1, 1, 1, from, from.plusDays(1));
+	}
+}
@@ -0,0 +1,69 @@
+package eu.deltasource.internship.hotel.persistence;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.repository.BookingStore;
+import eu.deltasource.internship.hotel.repository.HeapBookingStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapBookingStoreTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void directStoreShouldBehaveLikeTheHeapStore() {
+		// small chunks, so that chunks are added and holes compacted
+		try (OffHeapBookingStore store = new OffHeapBookingStore(null, 8)) {
+			assertBehavesLikeHeapStore(store);
+		}
+	}
+
+	@Test
+	public void mappedStoreShouldBehaveLikeTheHeapStore() {
+		try (OffHeapBookingStore store = new OffHeapBookingStore(directory.resolve("bookings.store"), 8)) {
+			assertBehavesLikeHeapStore(store);
+		}
+	}
+
+	private static void assertBehavesLikeHeapStore(BookingStore store) {
+		//given
+		BookingStore heap = new HeapBookingStore();
+		Random random = new Random(11);
+
+		//when
+		for (int i = 0; i < 50000; i++) {
+			int id = random.nextInt(20000) + 1;
+			if (random.nextInt(3) == 0) {
+				assertEquals(heap.remove(id), store.remove(id));
+			} else {
+				LocalDate from = LocalDate.of(2020, 1, 1).plusDays(random.nextInt(700));
+				Booking booking = new Booking(id, random.nextInt(100) + 1, random.nextInt(50) + 1,
+					random.nextInt(4) + 1, from, from.plusDays(random.nextInt(10) + 1));
+				heap.put(booking);
+				store.put(booking);
+			}
+		}
+
+		//then
+		assertEquals(heap.size(), store.size());
+		assertEquals(heap.values(), store.values());
+		for (Booking booking : heap.values()) {
+			Booking stored = store.get(booking.getBookingId());
+			assertEquals(booking.getGuestId(), stored.getGuestId());
+			assertEquals(booking.getRoomId(), stored.getRoomId());
+			assertEquals(booking.getNumberOfPeople(), stored.getNumberOfPeople());
+			assertEquals(booking.getFrom(), stored.getFrom());
+			assertEquals(booking.getTo(), stored.getTo());
+		}
+		store.clear();
+		assertTrue(store.values().isEmpty());
+		assertNull(store.get(1));
+	}
+}
@@ -0,0 +1,116 @@
+package eu.deltasource.internship.hotel.persistence;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.repository.BookingLogRecord;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadBookingLogTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void reopenedRepositoryShouldContainAllLoggedChanges() throws IOException {
+		//given
+		Path logFile = directory.resolve("bookings.wal");
+		try (WriteAheadBookingLog log = new WriteAheadBookingLog(logFile)) {
+			BookingRepository repository = new BookingRepository(log);
+			repository.saveAll(booking(1, 1, 1), booking(2, 2, 5), booking(3, 1, 10));
+			repository.updateDates(new Booking(2, 2, 2, 1,
+				LocalDate.of(2020, 2, 1), LocalDate.of(2020, 2, 3)));
+			repository.deleteById(3);
+		}
+
+		//when
+		try (WriteAheadBookingLog log = new WriteAheadBookingLog(logFile)) {
+			BookingRepository repository = new BookingRepository(log);
+
+			//then
+			assertEquals(2, repository.count());
+			assertEquals(LocalDate.of(2020, 2, 1), repository.findById(2).getFrom());
+			assertEquals(2, repository.findById(2).getVersion());
+			assertFalse(repository.existsById(3));
+			assertFalse(repository.isRoomAvailable(1, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 2)));
+			assertEquals(4, repository.save(booking(1, 3, 20)).getBookingId());
+		}
+	}
+
+	@Test
+	public void tornTailShouldBeCutOffOnOpen() throws IOException {
+		//given
+		Path logFile = directory.resolve("bookings.wal");
+		try (WriteAheadBookingLog log = new WriteAheadBookingLog(logFile)) {
+			new BookingRepository(log).saveAll(booking(1, 1, 1), booking(2, 2, 5));
+		}
+		try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+
+		//when
+		try (WriteAheadBookingLog log = new WriteAheadBookingLog(logFile)) {
+			BookingRepository repository = new BookingRepository(log);
+			repository.save(booking(3, 3, 9));
+		}
+
+		//then
+		try (WriteAheadBookingLog log = new WriteAheadBookingLog(logFile)) {
+			BookingRepository repository = new BookingRepository(log);
+			assertEquals(2, repository.count());
+			assertTrue(repository.existsById(1));
+			assertEquals(3, repository.findById(2).getRoomId());
+		}
+	}
+
+	@Test
+	public void failedDiscardShouldKeepTheLogWritable() throws IOException {
+		//given
+		Path logFile = directory.resolve("bookings.wal");
+		Files.createDirectory(directory.resolve("bookings.wal.compacting"));
+		try (WriteAheadBookingLog log = new WriteAheadBookingLog(logFile)) {
+			log.append(BookingLogRecord.saved(booking(1, 1, 1))).join();
+
+			//when
+			log.discardUpTo(1);
+			log.append(BookingLogRecord.saved(booking(2, 2, 1))).join();
+			log.append(BookingLogRecord.saved(booking(3, 3, 1))).join();
+		}
+
+		//then
+		try (WriteAheadBookingLog log = new WriteAheadBookingLog(logFile)) {
+			assertEquals(3, log.lastSequence());
+		}
+	}
+
+	@Test
+	public void appendShouldFailOnceTheLogIsClosed() throws IOException {
+		//given
+		WriteAheadBookingLog log = new WriteAheadBookingLog(directory.resolve("bookings.wal"));
+		log.close();
+
+		//when
+		CompletableFuture<Void> commit = log.append(BookingLogRecord.deletedAll());
+
+		//then
+		CompletionException error = assertThrows(CompletionException.class, commit::join);
+		assertTrue(error.getCause() instanceof IllegalStateException);
+		assertEquals(0, log.lastSequence());
+	}
+
+	private static Booking booking(int guestId, int roomId, int dayOfJanuary) {
+		LocalDate from = LocalDate.of(2020, 1, dayOfJanuary);
+		return new Booking(1, guestId, roomId, 1, from, from.plusDays(2));
+	}
+}
@@ -0,0 +1,67 @@
+package eu.deltasource.internship.hotel.repository;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarBookingStoreTest {
+
+	@Test
+	public void storeShouldBehaveLikeTheHeapStore() {
+		//given
+		BookingStore columnar = new ColumnarBookingStore();
+		BookingStore heap = new HeapBookingStore();
+		Random random = new Random(7);
+
+		//when
+		for (int i = 0; i < 20000; i++) {
+			int id = random.nextInt(5000) + 1;
+			if (random.nextInt(3) == 0) {
+				assertEquals(heap.remove(id), columnar.remove(id));
+			} else {
+				LocalDate from = LocalDate.of(2020, 1, 1).plusDays(random.nextInt(700));
+				Booking booking = new Booking(id, random.nextInt(100) + 1, random.nextInt(50) + 1,
+					random.nextInt(4) + 1, from, from.plusDays(random.nextInt(10) + 1));
+				heap.put(booking);
+				columnar.put(booking);
+			}
+		}
+
+		//then
+		assertEquals(heap.size(), columnar.size());
+		assertEquals(heap.values(), columnar.values());
+		for (Booking booking : heap.values()) {
+			Booking stored = columnar.get(booking.getBookingId());
+			assertEquals(booking.getGuestId(), stored.getGuestId());
+			assertEquals(booking.getRoomId(), stored.getRoomId());
+			assertEquals(booking.getNumberOfPeople(), stored.getNumberOfPeople());
+			assertEquals(booking.getFrom(), stored.getFrom());
+			assertEquals(booking.getTo(), stored.getTo());
+		}
+	}
+
+	@Test
+	public void repositoryShouldWorkOnTheColumnarStore() {
+		//given
+		BookingRepository repository = new BookingRepository(new ColumnarBookingStore());
+		LocalDate from = LocalDate.of(2020, 5, 1);
+
+		//when
+		repository.saveAll(new Booking(0, 1, 1, 2, from, from.plusDays(3)),
+			new Booking(0, 2, 1, 1, from.plusDays(3), from.plusDays(5)));
+		repository.deleteById(1);
+		Booking second = repository.findById(2);
+		repository.updateDates(second.withDates(from, from.plusDays(2)));
+
+		//then
+		assertThat(repository.findAll(), contains(repository.findById(2)));
+		assertEquals(from, repository.findById(2).getFrom());
+		assertFalse(repository.isRoomAvailable(1, from.plusDays(1), from.plusDays(2)));
+	}
+}
@@ -0,0 +1,182 @@
+package eu.deltasource.internship.hotel.repository;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.exception.BookingOverlappingException;
+import eu.deltasource.internship.hotel.exception.VersionConflictException;
+import eu.deltasource.internship.hotel.utility.SequentialIdAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedBookingRepositoryTest {
+
+	private static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+
+	@Test
+	public void shardedRepositoryShouldBehaveLikeASingleShard() {
+		//given
+		BookingRepository single = new BookingRepository();
+		BookingRepository sharded = new BookingRepository(new SequentialIdAllocator(), BookingLog.NONE,
+			SnapshotStore.NONE, shard -> new HeapBookingStore(), 4);
+		Random random = new Random(11);
+
+		//when
+		for (int i = 0; i < 5000; i++) {
+			int operation = random.nextInt(4);
+			int id = random.nextInt(i + 1) + 1;
+			LocalDate from = FIRST_DAY.plusDays(random.nextInt(300));
+			LocalDate to = from.plusDays(random.nextInt(5) + 1);
+			if (operation == 0 && single.existsById(id)) {
+				assertEquals(single.deleteById(id), sharded.deleteById(id));
+			} else if (operation == 1 && single.existsById(id)) {
+				assertEquals(single.updateDates(single.findById(id).withDates(from, to)),
+					sharded.updateDates(sharded.findById(id).withDates(from, to)));
+			} else {
+				Booking booking = new Booking(0, random.nextInt(20) + 1, random.nextInt(30) + 1, 1, from, to);
+				assertEquals(single.isRoomAvailable(booking.getRoomId(), from, to),
+					sharded.isRoomAvailable(booking.getRoomId(), from, to));
+				assertEquals(single.save(booking), sharded.save(booking));
+			}
+		}
+
+		//then
+		List<Booking> all = single.findAll().stream()
+			.sorted(Comparator.comparingInt(Booking::getBookingId))
+			.collect(Collectors.toList());
+		assertEquals(all, sharded.findAll());
+		assertEquals(single.count(), sharded.count());
+		assertEquals(single.findPage(100, 50), sharded.findPage(100, 50));
+		assertEquals(single.snapshot().getItems().size(), sharded.snapshot().getItems().size());
+		for (int guestId = 1; guestId <= 20; guestId++) {
+			assertEquals(single.findByGuestId(guestId), sharded.findByGuestId(guestId));
+		}
+		assertEquals(single.deleteByGuestId(1), sharded.deleteByGuestId(1));
+		assertFalse(sharded.existsByGuestId(1));
+	}
+
+	@Test
+	public void updateShouldMoveTheBookingToTheShardOfItsNewRoom() {
+		//given
+		BookingRepository sharded = new BookingRepository(new SequentialIdAllocator(), BookingLog.NONE,
+			SnapshotStore.NONE, shard -> new ColumnarBookingStore(), 3);
+		Booking saved = sharded.save(new Booking(0, 7, 1, 1, FIRST_DAY, FIRST_DAY.plusDays(2)));
+
+		//when
+		Booking moved = sharded.update(new Booking(saved.getBookingId(), 7, 2, 2, FIRST_DAY, FIRST_DAY.plusDays(3)),
+			saved.getVersion());
+
+		//then
+		assertNotEquals(sharded.shardOf(1), sharded.shardOf(2));
+		assertEquals(saved.getBookingId(), moved.getBookingId());
+		assertEquals(saved.getVersion() + 1, moved.getVersion());
+		assertEquals(2, sharded.findById(saved.getBookingId()).getRoomId());
+		assertEquals(List.of(moved), sharded.findByGuestId(7));
+		assertTrue(sharded.isRoomAvailable(1, FIRST_DAY, FIRST_DAY.plusDays(2)));
+		assertFalse(sharded.isRoomAvailable(2, FIRST_DAY, FIRST_DAY.plusDays(1)));
+		assertThrows(VersionConflictException.class, () -> sharded.updateDates(saved, saved.getVersion()));
+		assertTrue(sharded.deleteById(saved.getBookingId()));
+		assertEquals(0, sharded.count());
+	}
+
+	@Test
+	public void updateShouldKeepTheBookingIfItOverlapsInItsNewRoom() {
+		//given
+		BookingRepository sharded = new BookingRepository(new SequentialIdAllocator(), BookingLog.NONE,
+			SnapshotStore.NONE, shard -> new ColumnarBookingStore(), 3);
+		Booking saved = sharded.save(new Booking(0, 7, 1, 1, FIRST_DAY, FIRST_DAY.plusDays(2)));
+		sharded.save(new Booking(0, 8, 2, 1, FIRST_DAY.plusDays(1), FIRST_DAY.plusDays(3)));
+
+		//when
+		assertThrows(BookingOverlappingException.class, () -> sharded.update(
+			new Booking(saved.getBookingId(), 7, 2, 1, FIRST_DAY, FIRST_DAY.plusDays(2)), Versions.ANY));
+
+		//then
+		Booking kept = sharded.findById(saved.getBookingId());
+		assertEquals(1, kept.getRoomId());
+		assertEquals(saved.getVersion(), kept.getVersion());
+		assertFalse(sharded.isRoomAvailable(1, FIRST_DAY, FIRST_DAY.plusDays(1)));
+		assertTrue(sharded.isRoomAvailable(2, FIRST_DAY, FIRST_DAY.plusDays(1)));
+		Booking extended = sharded.update(saved.withDates(FIRST_DAY, FIRST_DAY.plusDays(4)), saved.getVersion());
+		assertEquals(FIRST_DAY.plusDays(4), sharded.findById(saved.getBookingId()).getTo());
+		assertEquals(saved.getVersion() + 1, extended.getVersion());
+	}
+
+	@Test
+	public void bookingShouldBeFoundWhileItMovesBetweenShards() throws InterruptedException {
+		//given
+		BookingRepository sharded = new BookingRepository(new SequentialIdAllocator(), BookingLog.NONE,
+			SnapshotStore.NONE, shard -> new HeapBookingStore(), 3);
+		Booking saved = sharded.save(new Booking(0, 7, 1, 1, FIRST_DAY, FIRST_DAY.plusDays(2)));
+		int id = saved.getBookingId();
+		Thread mover = new Thread(() -> {
+			for (int i = 0; i < 20000; i++) {
+				sharded.update(new Booking(id, 7, 1 + i % 2, 1, FIRST_DAY, FIRST_DAY.plusDays(2)), Versions.ANY);
+			}
+		});
+
+		//when
+		mover.start();
+		int lookups = 0;
+		while (mover.isAlive()) {
+			assertTrue(sharded.existsById(id));
+			assertEquals(id, sharded.findById(id).getBookingId());
+			lookups++;
+		}
+		mover.join();
+
+		//then
+		assertTrue(lookups > 0);
+		assertTrue(sharded.deleteById(id));
+		assertFalse(sharded.existsById(id));
+	}
+
+	@Test
+	public void overlapChecksShouldReportTheIntervalsTheyVisited() {
+		//given
+		BookingRepository repository = new BookingRepository();
+		List<Integer> visited = new ArrayList<>();
+		repository.onOverlapChecks(visited::add);
+		for (int day = 0; day < 3; day++) {
+			repository.save(new Booking(1, 1, 1, 1, FIRST_DAY.plusDays(day), FIRST_DAY.plusDays(day + 1)));
+		}
+
+		//when
+		boolean afterTheLast = repository.isRoomAvailable(1, FIRST_DAY.plusDays(3), FIRST_DAY.plusDays(4));
+		boolean overTheSecond = repository.isRoomAvailable(1, FIRST_DAY.plusDays(1), FIRST_DAY.plusDays(2));
+		boolean emptyRoom = repository.isRoomAvailable(2, FIRST_DAY, FIRST_DAY.plusDays(1));
+
+		//then
+		assertTrue(afterTheLast);
+		assertFalse(overTheSecond);
+		assertTrue(emptyRoom);
+		assertEquals(List.of(1, 1, 0), visited);
+	}
+
+	@Test
+	public void deleteAllShouldClearEveryShard() {
+		//given
+		BookingRepository sharded = new BookingRepository(new SequentialIdAllocator(), BookingLog.NONE,
+			SnapshotStore.NONE, shard -> new ColumnarBookingStore(), 3);
+		for (int roomId = 1; roomId <= 6; roomId++) {
+			sharded.save(new Booking(0, 1, roomId, 1, FIRST_DAY, FIRST_DAY.plusDays(1)));
+		}
+
+		//when
+		sharded.deleteAll();
+		Booking saved = sharded.save(new Booking(0, 1, 5, 1, FIRST_DAY, FIRST_DAY.plusDays(1)));
+
+		//then
+		assertEquals(7, saved.getBookingId());
+		assertEquals(1, sharded.count());
+		assertEquals(saved, sharded.findById(7));
+		assertFalse(sharded.existsById(1));
+		assertTrue(sharded.isRoomAvailable(1, FIRST_DAY, FIRST_DAY.plusDays(1)));
+	}
+}
@@ -0,0 +1,163 @@
+package eu.deltasource.internship.hotel.service;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.domain.Gender;
+import eu.deltasource.internship.hotel.domain.Guest;
+import eu.deltasource.internship.hotel.domain.Room;
+import eu.deltasource.internship.hotel.domain.commodity.*;
+import eu.deltasource.internship.hotel.exception.FailedInitializationException;
+import eu.deltasource.internship.hotel.repository.BookingLog;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.repository.GuestRepository;
+import eu.deltasource.internship.hotel.repository.HeapBookingStore;
+import eu.deltasource.internship.hotel.repository.RoomRepository;
+import eu.deltasource.internship.hotel.repository.SnapshotStore;
+import eu.deltasource.internship.hotel.utility.SequentialIdAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AvailabilityServiceTest {
+
+	private static final Clock CLOCK = Clock.fixed(LocalDate.of(2019, 8, 1).atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+
+	private BookingRepository bookingRepository = new BookingRepository();
+	private RoomService roomService = new RoomService(new RoomRepository());
+	private GuestService guestService = new GuestService(new GuestRepository(), bookingRepository);
+	private BookingService bookingService = new BookingService(bookingRepository, roomService, guestService);
+	private AvailabilityCalendar availabilityCalendar = new AvailabilityCalendar(bookingRepository, CLOCK);
+	private AvailabilityService availabilityService = new AvailabilityService(roomService, availabilityCalendar);
+
+	@BeforeEach
+	public void setUp() {
+		guestService.save(new Guest(1, "John", "Miller", Gender.MALE));
+		roomService.saveRooms(
+			new Room(1, new HashSet<>(Arrays.asList(new Bed(BedType.DOUBLE), new Toilet(), new Shower()))),
+			new Room(2, new HashSet<>(Arrays.asList(new Bed(BedType.SINGLE), new Toilet(), new Shower()))),
+			new Room(3, new HashSet<>(Arrays.asList(new Bed(BedType.KING_SIZE), new Toilet(), new Shower()))));
+		bookingService.save(new Booking(1, 1, 1, 2, LocalDate.of(2019, 8, 15), LocalDate.of(2019, 8, 18)));
+	}
+
+	@Test
+	public void findAvailableRoomsShouldFilterBookedAndTooSmallRooms() {
+		// when
+		List<Room> available = availabilityService.findAvailableRooms(LocalDate.of(2019, 8, 17), LocalDate.of(2019, 8, 20), 2);
+
+		// then
+		assertThat(roomIds(available), contains(3));
+	}
+
+	@Test
+	public void calendarShouldFollowUpdatesAndDeletes() {
+		// given
+		LocalDate from = LocalDate.of(2019, 8, 15);
+		LocalDate to = LocalDate.of(2019, 8, 18);
+
+		// when
+		bookingService.updateBookingByDates(1, LocalDate.of(2019, 12, 30), LocalDate.of(2020, 1, 3));
+
+		// then
+		assertTrue(isRoomFree(1, from, to));
+		assertFalse(isRoomFree(1, LocalDate.of(2020, 1, 2), LocalDate.of(2020, 1, 5)));
+		assertTrue(isRoomFree(1, LocalDate.of(2020, 1, 3), LocalDate.of(2020, 1, 5)));
+
+		// when
+		bookingService.deleteById(1);
+
+		// then
+		assertTrue(isRoomFree(1, LocalDate.of(2019, 12, 1), LocalDate.of(2020, 2, 1)));
+	}
+
+	@Test
+	public void periodsOutsideTheWindowShouldBeAnsweredByTheRepository() {
+		// given
+		LocalDate from = LocalDate.of(2025, 1, 1);
+		LocalDate to = LocalDate.of(2025, 1, 10);
+		bookingService.save(new Booking(2, 1, 2, 1, from, to));
+
+		// when
+		List<Room> available = availabilityService.findAvailableRooms(from.minusDays(1), from.plusDays(1), 1);
+
+		// then
+		assertThat(roomIds(available), contains(1, 3));
+	}
+
+	@Test
+	public void rolledWindowShouldKeepTheBookingsReachingIntoIt() {
+		// given
+		AtomicReference<LocalDate> today = new AtomicReference<>(LocalDate.of(2019, 8, 1));
+		AvailabilityCalendar calendar = new AvailabilityCalendar(bookingRepository, new Clock() {
+			@Override
+			public ZoneId getZone() {
+				return ZoneOffset.UTC;
+			}
+
+			@Override
+			public Clock withZone(ZoneId zone) {
+				return this;
+			}
+
+			@Override
+			public Instant instant() {
+				return today.get().atStartOfDay().toInstant(ZoneOffset.UTC);
+			}
+		});
+		bookingService.save(new Booking(2, 1, 2, 1, LocalDate.of(2021, 6, 20), LocalDate.of(2021, 8, 1)));
+		LocalDate from = LocalDate.of(2021, 7, 20);
+		LocalDate to = LocalDate.of(2021, 7, 22);
+
+		// when
+		today.set(LocalDate.of(2019, 11, 1));
+
+		// then
+		assertThat(calendar.findAvailableRooms(new int[]{1, 2, 3}, from, to), contains(1, 3));
+		assertThat(calendar.findAvailableRooms(new int[]{1, 2}, LocalDate.of(2019, 8, 16), LocalDate.of(2019, 8, 17)),
+			contains(2));
+	}
+
+	@Test
+	public void calendarShouldFollowBookingsMovingToAnotherShard() {
+		// given
+		BookingRepository sharded = new BookingRepository(new SequentialIdAllocator(), BookingLog.NONE,
+			SnapshotStore.NONE, shard -> new HeapBookingStore(), 2);
+		AvailabilityCalendar calendar = new AvailabilityCalendar(sharded, CLOCK);
+		LocalDate from = LocalDate.of(2019, 8, 15);
+		LocalDate to = LocalDate.of(2019, 8, 18);
+		Booking booking = sharded.save(new Booking(1, 1, 1, 2, from, to));
+
+		// when
+		sharded.update(new Booking(booking.getBookingId(), 1, 2, 1, from, to), booking.getVersion());
+
+		// then
+		assertNotEquals(sharded.shardOf(1), sharded.shardOf(2));
+		assertThat(calendar.findAvailableRooms(new int[]{1, 2, 3}, from, to), contains(1, 3));
+	}
+
+	@Test
+	public void findAvailableRoomsShouldThrowExceptionIfDatesAreInvalid() {
+		LocalDate date = LocalDate.of(2019, 8, 20);
+		assertThrows(FailedInitializationException.class, () -> availabilityService.findAvailableRooms(date, date, 1));
+	}
+
+	private boolean isRoomFree(int roomId, LocalDate from, LocalDate to) {
+		return !availabilityCalendar.findAvailableRooms(new int[]{roomId}, from, to).isEmpty();
+	}
+
+	private static List<Integer> roomIds(List<Room> rooms) {
+		return rooms.stream().map(Room::getRoomId).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,72 @@
+package eu.deltasource.internship.hotel.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingCommandPipelineTest {
+
+	@Test
+	public void commandsSubmittedWhileClosingShouldBeAppliedOrFailed() throws InterruptedException {
+		//given
+		int threads = 4;
+		BookingCommandPipeline pipeline = new BookingCommandPipeline(64);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch submitting = new CountDownLatch(threads);
+		AtomicInteger applied = new AtomicInteger();
+		List<CompletableFuture<Integer>> results = new CopyOnWriteArrayList<>();
+
+		//when
+		for (int thread = 0; thread < threads; thread++) {
+			executor.execute(() -> {
+				submitting.countDown();
+				try {
+					while (true) {
+						results.add(pipeline.submit(
+							() -> CompletableFuture.completedFuture(applied.incrementAndGet())));
+					}
+				} catch (IllegalStateException closed) {
+					// submitted after the close
+				}
+			});
+		}
+		submitting.await();
+		pipeline.close();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+		//then
+		int succeeded = 0;
+		for (CompletableFuture<Integer> result : results) {
+			try {
+				result.get(30, TimeUnit.SECONDS);
+				succeeded++;
+			} catch (Exception e) {
+				assertInstanceOf(IllegalStateException.class, e.getCause());
+			}
+		}
+		assertEquals(applied.get(), succeeded);
+	}
+
+	@Test
+	public void submitShouldFailOnceThePipelineIsClosed() {
+		//given
+		BookingCommandPipeline pipeline = new BookingCommandPipeline();
+
+		//when
+		pipeline.close();
+
+		//then
+		assertThrows(IllegalStateException.class,
+			() -> pipeline.submit(() -> CompletableFuture.completedFuture(1)));
+	}
+}
@@ -10,6 +10,7 @@ import eu.deltasource.internship.hotel.exception.FailedInitializationException;
 import eu.deltasource.internship.hotel.domain.commodity.Bed;
 import eu.deltasource.internship.hotel.domain.commodity.BedType;
 import eu.deltasource.internship.hotel.exception.ItemNotFoundException;
+import eu.deltasource.internship.hotel.exception.VersionConflictException;
 import eu.deltasource.internship.hotel.repository.BookingRepository;
 import eu.deltasource.internship.hotel.repository.GuestRepository;
 import eu.deltasource.internship.hotel.repository.RoomRepository;
@@ -19,7 +20,13 @@ import org.junit.jupiter.api.Test;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static eu.deltasource.internship.hotel.domain.commodity.BedType.SINGLE;
 import static org.hamcrest.MatcherAssert.*;
@@ -32,7 +39,7 @@ public class BookingServiceTest {
 	private GuestRepository guestRepository = new GuestRepository();
 	private RoomRepository roomRepository = new RoomRepository();
 	private RoomService roomService = new RoomService(roomRepository);
-	private GuestService guestService = new GuestService(guestRepository);
+	private GuestService guestService = new GuestService(guestRepository, bookingRepository);
 	private BookingService bookingService = new BookingService(bookingRepository, roomService, guestService);
 	private Booking firstBooking;
 	private Booking secondBooking;
@@ -174,11 +181,44 @@ public class BookingServiceTest {
 			() -> bookingService.save(null));
 	}
 
+	@Test
+	public void saveShouldAllowBackToBackBookingsButNotEnclosingOnes() {
+		//given
+		// first booking occupies room 1 from 15.08 to 18.08
+		Booking checkInOnCheckOut = new Booking(3, 1, 1, 2,
+			LocalDate.of(2019, 8, 18), LocalDate.of(2019, 8, 20));
+		Booking checkOutOnCheckIn = new Booking(4, 2, 1, 2,
+			LocalDate.of(2019, 8, 10), LocalDate.of(2019, 8, 15));
+		Booking enclosing = new Booking(5, 2, 1, 1,
+			LocalDate.of(2019, 8, 1), LocalDate.of(2019, 8, 30));
+
+		//when
+		bookingService.saveAll(checkInOnCheckOut, checkOutOnCheckIn);
+
+		//then
+		assertEquals(4, bookingService.findAll().size());
+		assertThrows(BookingOverlappingException.class, () -> bookingService.save(enclosing));
+	}
+
+	@Test
+	public void saveShouldSucceedAfterOverlappingBookingIsDeleted() {
+		//given
+		Booking overlapping = new Booking(3, 2, 1, 1,
+			LocalDate.of(2019, 8, 16), LocalDate.of(2019, 8, 17));
+
+		//when
+		bookingService.deleteById(firstBooking.getBookingId());
+		bookingService.save(overlapping);
+
+		//then
+		assertEquals(2, bookingService.findAll().size());
+	}
+
 	@Test
 	public void saveAllShouldWorkIfNoConflicts() {
 		//given
-		// new bookings
-		bookingService.deleteAll();
+		// a fresh repository, which hands out ids from 1 again
+		BookingService bookingService = new BookingService(new BookingRepository(), roomService, guestService);
 		LocalDate firstFrom = LocalDate.of(2019, 12, 3);
 		LocalDate firstTo = LocalDate.of(2019, 12, 6);
 		LocalDate secondFrom = LocalDate.of(2019, 12, 13);
@@ -193,6 +233,8 @@ public class BookingServiceTest {
 		assertEquals(2, bookingService.findAll().size());
 		assertEquals(firstBooking, bookingService.findById(firstBooking.getBookingId()));
 		assertEquals(secondBooking, bookingService.findById(secondBooking.getBookingId()));
+		assertEquals(firstBooking.getFrom(), bookingService.findById(firstBooking.getBookingId()).getFrom());
+		assertEquals(secondBooking.getFrom(), bookingService.findById(secondBooking.getBookingId()).getFrom());
 	}
 
 	@Test
@@ -214,6 +256,57 @@ public class BookingServiceTest {
 			() -> bookingService.saveAll(firstBooking, secondBooking));
 	}
 
+	@Test
+	public void saveAllShouldSaveNothingIfBookingsOfTheBatchOverlap() {
+		//given
+		Booking free = new Booking(3, 1, 3, 1, LocalDate.of(2019, 12, 1), LocalDate.of(2019, 12, 5));
+		Booking first = new Booking(4, 1, 2, 1, LocalDate.of(2019, 12, 10), LocalDate.of(2019, 12, 15));
+		Booking overlapping = new Booking(5, 2, 2, 1, LocalDate.of(2019, 12, 14), LocalDate.of(2019, 12, 16));
+
+		//when and then
+		assertThrows(BookingOverlappingException.class, () -> bookingService.saveAll(overlapping, free, first));
+		assertEquals(2, bookingService.findAll().size());
+	}
+
+	@Test
+	public void saveAllShouldSaveNothingIfOneBookingOverlapsAnExistingOne() {
+		//given
+		Booking free = new Booking(3, 1, 3, 1, LocalDate.of(2019, 12, 1), LocalDate.of(2019, 12, 5));
+		Booking overlapping = new Booking(4, 2, 1, 1, LocalDate.of(2019, 8, 17), LocalDate.of(2019, 8, 19));
+
+		//when and then
+		assertThrows(BookingOverlappingException.class, () -> bookingService.saveAll(free, overlapping));
+		assertEquals(2, bookingService.findAll().size());
+		assertTrue(bookingRepository.isRoomAvailable(3, free.getFrom(), free.getTo()));
+	}
+
+	@Test
+	public void findBookingsOfGuestShouldReturnTheGuestsBookingsInThePeriod() {
+		//given
+		Booking later = new Booking(3, 1, 2, 1, LocalDate.of(2019, 10, 1), LocalDate.of(2019, 10, 4));
+		bookingService.save(later);
+
+		//when
+		List<Booking> all = guestService.findBookings(1, null, null);
+		List<Booking> inOctober = guestService.findBookings(1, LocalDate.of(2019, 10, 1), null);
+
+		//then
+		assertThat(all.stream().map(Booking::getBookingId).toArray(), arrayContaining(1, 3));
+		assertThat(inOctober.stream().map(Booking::getBookingId).toArray(), arrayContaining(3));
+		assertThat(guestService.findBookings(2, LocalDate.of(2019, 9, 21), LocalDate.of(2019, 9, 30)), empty());
+	}
+
+	@Test
+	public void deleteGuestShouldDeleteTheGuestsBookings() {
+		//when
+		guestService.deleteById(1);
+
+		//then
+		assertEquals(1, bookingService.findAll().size());
+		assertFalse(bookingRepository.existsByGuestId(1));
+		assertTrue(bookingRepository.isRoomAvailable(1, firstBooking.getFrom(), firstBooking.getTo()));
+	}
+
 	@Test
 	public void findAllExistingBookings() {
 		assertThat("The repository does not contain expected number of bookings!",
@@ -233,7 +326,7 @@ public class BookingServiceTest {
 
 		//when
 		bookingService.updateBooking(booking);
-		Booking updatedBooking = bookingService.findById(roomRepository.count());
+		Booking updatedBooking = bookingService.findById(booking.getBookingId());
 
 		//then
 		assertEquals(booking.getRoomId(), updatedBooking.getRoomId());
@@ -269,12 +362,35 @@ public class BookingServiceTest {
 
 		//when
 		bookingService.updateBooking(booking);
-		Booking updatedBooking = bookingService.findById(bookingRepository.count());
+		Booking updatedBooking = bookingService.findById(booking.getBookingId());
 
 		//then
 		assertEquals(booking.getNumberOfPeople(), updatedBooking.getNumberOfPeople());
 	}
 
+	@Test
+	public void updateBookingShouldKeepTheIdAndFailIfTheBookingChangedSince() {
+		//given
+		LocalDate from = LocalDate.of(2019, 8, 15);
+		LocalDate to = LocalDate.of(2019, 8, 18);
+		int version = bookingService.findById(1).getVersion();
+
+		//when
+		Booking updated = bookingService.updateBooking(new Booking(1, 1, 3, 2, from, to), version);
+
+		//then
+		assertEquals(1, updated.getBookingId());
+		assertEquals(version + 1, updated.getVersion());
+		assertEquals(3, bookingService.findById(1).getRoomId());
+		assertEquals(2, bookingService.findAll().size());
+		assertThrows(VersionConflictException.class,
+			() -> bookingService.updateBooking(new Booking(1, 1, 1, 1, from, to), version));
+		assertThrows(VersionConflictException.class,
+			() -> bookingService.updateBookingByDates(1, from, to.plusDays(1), version));
+		assertEquals(version + 2,
+			bookingService.updateBookingByDates(1, from, to.plusDays(1), version + 1).getVersion());
+	}
+
 	@Test
 	public void updateBookingByNumOfPeopleShouldFailIfNotEnoughRoom() {
 		//given
@@ -302,6 +418,23 @@ public class BookingServiceTest {
 		assertEquals(updateTo, findBooking.getTo());
 	}
 
+	@Test
+	public void foundBookingsShouldBeSharedAndReadOnly() {
+		// given
+		// two bookings already exist
+		Booking booking = bookingService.findById(firstBooking.getBookingId());
+
+		//when
+		Booking updated = bookingService.updateBookingByDates(booking.getBookingId(),
+			LocalDate.of(2019, 8, 24), LocalDate.of(2019, 8, 28));
+
+		//then
+		assertSame(updated, bookingService.findById(booking.getBookingId()));
+		assertNotEquals(updated.getFrom(), booking.getFrom());
+		assertThrows(IllegalStateException.class,
+			() -> booking.setBookingDates(LocalDate.of(2019, 8, 24), LocalDate.of(2019, 8, 28)));
+	}
+
 	@Test
 	public void updateBookingByDatesShouldThrowExceptionIfOverlapping() {
 		// given
@@ -347,4 +480,120 @@ public class BookingServiceTest {
 		//Then
 		assertThrows(BookingOverlappingException.class, () -> bookingService.findAndBookFirstAvailableRoom(newBooking));
 	}
+
+	@Test
+	public void findAndBookFirstAvailableRoomShouldSkipRoomsWithoutEnoughCapacity() {
+		//Given
+		// room 1 is booked, room 2 is a single room without bookings in that period
+		Booking newBooking = new Booking(3, 2, 2, 2,
+			LocalDate.of(2019, 8, 16), LocalDate.of(2019, 8, 17));
+
+		//When
+		bookingService.findAndBookFirstAvailableRoom(newBooking);
+
+		//Then
+		assertEquals(3, bookingService.findById(3).getRoomId());
+	}
+
+	@Test
+	public void findAndBookFirstAvailableRoomShouldFailIfNoRoomIsBigEnough() {
+		//Given
+		Booking newBooking = new Booking(3, 1, 1, 3,
+			LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 5));
+
+		//When and Then
+		assertThrows(BookingOverlappingException.class, () -> bookingService.findAndBookFirstAvailableRoom(newBooking));
+	}
+
+	@Test
+	public void concurrentSavesForTheSameDatesShouldBookTheRoomOnlyOnce() throws InterruptedException {
+		saveConcurrently(bookingService);
+	}
+
+	@Test
+	public void pipelinedSavesForTheSameDatesShouldBookTheRoomOnlyOnce() throws InterruptedException {
+		try (BookingService pipelined = new BookingService(bookingRepository, roomService, guestService,
+			BookingService.PIPELINE)) {
+			saveConcurrently(pipelined);
+
+			// updates and deletes go through the same writer
+			LocalDate from = LocalDate.of(2030, 1, 1);
+			Booking first = pipelined.saveAsync(new Booking(1, 1, 1, 1, from, from.plusDays(1))).join();
+			Booking second = pipelined.saveAsync(new Booking(1, 1, 1, 1, from.plusDays(1), from.plusDays(2))).join();
+			assertThrows(BookingOverlappingException.class,
+				() -> pipelined.updateBookingByDates(first.getBookingId(), from, from.plusDays(2)));
+			assertTrue(pipelined.deleteByIdAsync(second.getBookingId()).join());
+			assertEquals(from.plusDays(2),
+				pipelined.updateBookingByDatesAsync(first.getBookingId(), from, from.plusDays(2)).join().getTo());
+		}
+	}
+
+	@Test
+	public void bookingsSavedWhileTheirGuestIsDeletedShouldBeDeletedWithTheGuest() throws InterruptedException {
+		//Given
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		CountDownLatch firstSaved = new CountDownLatch(1);
+
+		//When
+		// bookings of the first guest are saved until the guest is gone
+		executor.execute(() -> {
+			LocalDate from = LocalDate.of(2021, 1, 1);
+			try {
+				for (int day = 0; ; day++) {
+					bookingService.save(new Booking(1, 1, 3, 1, from.plusDays(day), from.plusDays(day + 1)));
+					firstSaved.countDown();
+				}
+			} catch (ItemNotFoundException expected) {
+				// the guest was deleted
+			}
+		});
+		assertTrue(firstSaved.await(30, TimeUnit.SECONDS));
+		assertTrue(guestService.deleteById(1));
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+		//Then
+		assertTrue(bookingRepository.findByGuestId(1).isEmpty());
+	}
+
+	private void saveConcurrently(BookingService bookingService) throws InterruptedException {
+		//Given
+		int threads = 8;
+		int attemptsPerThread = 50;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger succeeded = new AtomicInteger();
+
+		//When
+		// every thread tries to book each of the rooms for the same days
+		for (int thread = 0; thread < threads; thread++) {
+			executor.execute(() -> {
+				try {
+					start.await();
+					for (int attempt = 0; attempt < attemptsPerThread; attempt++) {
+						LocalDate from = LocalDate.of(2020, 1, 1).plusDays(attempt);
+						for (int roomId = 1; roomId <= 3; roomId++) {
+							try {
+								bookingService.save(new Booking(1, 1, roomId, 1, from, from.plusDays(1)));
+								succeeded.incrementAndGet();
+							} catch (BookingOverlappingException expected) {
+								// another thread was faster
+							}
+						}
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+		//Then
+		assertEquals(3 * attemptsPerThread, succeeded.get());
+		assertEquals(2 + 3 * attemptsPerThread, bookingService.findAll().size());
+		assertEquals(bookingService.findAll().size(),
+			bookingService.findAll().stream().mapToInt(Booking::getBookingId).distinct().count());
+	}
 }
@@ -3,8 +3,11 @@ package eu.deltasource.internship.hotel.service;
 
 import eu.deltasource.internship.hotel.domain.Gender;
 import eu.deltasource.internship.hotel.domain.Guest;
+import eu.deltasource.internship.hotel.exception.ArgumentNotValidException;
 import eu.deltasource.internship.hotel.exception.FailedInitializationException;
 import eu.deltasource.internship.hotel.exception.ItemNotFoundException;
+import eu.deltasource.internship.hotel.exception.VersionConflictException;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
 import eu.deltasource.internship.hotel.repository.GuestRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,7 +26,7 @@ public class GuestServiceTest {
 	@BeforeEach
 	public void setUp() {
 		GuestRepository repo = new GuestRepository();
-		service = new GuestService(repo);
+		service = new GuestService(repo, new BookingRepository());
 		guest = new Guest(1, "Gergana", "Todorova", Gender.FEMALE);
 		service.save(guest);
 	}
@@ -39,6 +42,29 @@ public class GuestServiceTest {
 		assertEquals(guest, searchedGuest);
 	}
 
+	@Test
+	public void findPageShouldSkipDeletedGuestsAndContinueAfterTheCursor() {
+		//Given
+		service.saveAll(new Guest(2, "Ivan", "Petrov", Gender.MALE),
+			new Guest(3, "Maria", "Tam", Gender.FEMALE),
+			new Guest(4, "John", "Miller", Gender.MALE));
+		service.deleteById(2);
+
+		//When
+		List<Guest> firstPage = service.findPage(0, 2);
+		List<Guest> secondPage = service.findPage(firstPage.get(1).getGuestId(), 2);
+
+		//Then
+		assertThat(firstPage.stream().map(Guest::getGuestId).toArray(), arrayContaining(1, 3));
+		assertThat(secondPage.stream().map(Guest::getGuestId).toArray(), arrayContaining(4));
+	}
+
+	@Test
+	public void findPageShouldThrowExceptionIfLimitIsOutOfRange() {
+		assertThrows(ArgumentNotValidException.class, () -> service.findPage(0, 0));
+		assertThrows(ArgumentNotValidException.class, () -> service.findPage(0, 1001));
+	}
+
 	@Test
 	public void findByIdShouldThrowExceptionIfNoGuestWithSpecifiedId() {
 		assertThrows(ItemNotFoundException.class, () -> service.findById(service.findAll().size() + 1));
@@ -61,6 +87,21 @@ public class GuestServiceTest {
 		assertEquals(Gender.MALE, service.findById(guest.getGuestId()).getGender());
 	}
 
+	@Test
+	public void updateGuestShouldFailIfTheGuestChangedSinceTheExpectedVersion() {
+		//Given
+		int version = service.findById(guest.getGuestId()).getVersion();
+		service.updateGuest(new Guest(guest.getGuestId(), "Petar", "Ivanov", Gender.MALE), version);
+
+		//When
+		Guest staleGuest = new Guest(guest.getGuestId(), "Ivan", "Petrov", Gender.MALE);
+
+		//Then
+		assertThrows(VersionConflictException.class, () -> service.updateGuest(staleGuest, version));
+		assertEquals("Petar", service.findById(guest.getGuestId()).getFirstName());
+		assertEquals(version + 1, service.findById(guest.getGuestId()).getVersion());
+	}
+
 	@Test
 	public void updateGuestShouldThrowExceptionWhenTryingToUpdateNonExistingOrNullGuest() {
 		//Given
@@ -202,4 +243,18 @@ public class GuestServiceTest {
 		assertThrows(FailedInitializationException.class, () -> service.saveAll(
 			new Guest(2, "Georgi", "Tsankov", Gender.MALE), null));
 	}
+
+	@Test
+	public void saveShouldNotReuseTheIdOfADeletedGuest() {
+		//Given
+		service.deleteById(guest.getGuestId());
+
+		//When
+		service.save(new Guest(1, "Petar", "Ivanov", Gender.MALE));
+
+		//Then
+		assertThrows(ItemNotFoundException.class, () -> service.findById(guest.getGuestId()));
+		assertEquals("Petar", service.findAll().get(0).getFirstName());
+		assertNotEquals(guest.getGuestId(), service.findAll().get(0).getGuestId());
+	}
 }
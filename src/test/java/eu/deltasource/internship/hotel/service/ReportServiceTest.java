@@ -0,0 +1,132 @@
+package eu.deltasource.internship.hotel.service;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.domain.Gender;
+import eu.deltasource.internship.hotel.domain.Guest;
+import eu.deltasource.internship.hotel.domain.LiveOccupancy;
+import eu.deltasource.internship.hotel.domain.OccupancyReport;
+import eu.deltasource.internship.hotel.domain.Room;
+import eu.deltasource.internship.hotel.domain.commodity.*;
+import eu.deltasource.internship.hotel.exception.ArgumentNotValidException;
+import eu.deltasource.internship.hotel.repository.BookingLog;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.repository.GuestRepository;
+import eu.deltasource.internship.hotel.repository.HeapBookingStore;
+import eu.deltasource.internship.hotel.repository.RoomRepository;
+import eu.deltasource.internship.hotel.repository.SnapshotStore;
+import eu.deltasource.internship.hotel.utility.SequentialIdAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportServiceTest {
+
+	private static final LocalDate FROM = LocalDate.of(2019, 8, 10);
+
+	private BookingRepository bookingRepository = new BookingRepository();
+	private RoomService roomService = new RoomService(new RoomRepository());
+	private GuestService guestService = new GuestService(new GuestRepository(), bookingRepository);
+	private BookingService bookingService = new BookingService(bookingRepository, roomService, guestService);
+	private ReportService reportService = new ReportService(roomService, bookingRepository);
+	private OccupancyCounters occupancyCounters = new OccupancyCounters(bookingRepository);
+
+	@BeforeEach
+	public void setUp() {
+		guestService.save(new Guest(1, "John", "Miller", Gender.MALE));
+		roomService.saveRooms(
+			new Room(1, new HashSet<>(Arrays.asList(new Bed(BedType.DOUBLE), new Toilet(), new Shower()))),
+			new Room(2, new HashSet<>(Arrays.asList(new Bed(BedType.SINGLE), new Toilet(), new Shower()))),
+			new Room(3, new HashSet<>(Arrays.asList(new Bed(BedType.KING_SIZE), new Toilet(), new Shower()))));
+		// starts before and ends inside the report period
+		bookingService.save(new Booking(1, 1, 1, 2, FROM.minusDays(2), FROM.plusDays(2)));
+		bookingService.save(new Booking(2, 1, 2, 1, FROM.plusDays(1), FROM.plusDays(3)));
+		// ends after the report period
+		bookingService.save(new Booking(3, 1, 3, 2, FROM.plusDays(3), FROM.plusDays(9)));
+	}
+
+	@Test
+	public void occupancyByDayShouldCountBookedRoomsPerDay() {
+		// when
+		OccupancyReport report = reportService.findOccupancy(FROM, FROM.plusDays(5), ReportService.BY_DAY);
+
+		// then
+		List<Long> booked = report.getRows().stream().map(OccupancyReport.Row::getBookedNights).collect(Collectors.toList());
+		assertThat(booked, contains(1L, 2L, 1L, 1L, 1L));
+		assertEquals(FROM.plusDays(1).toString(), report.getRows().get(1).getKey());
+		assertEquals(2.0 / 3, report.getRows().get(1).getOccupancyRate(), 1e-9);
+	}
+
+	@Test
+	public void occupancyByCapacityAndBedTypeShouldSumTheNightsOfTheGroup() {
+		// when
+		OccupancyReport byCapacity = reportService.findOccupancy(FROM, FROM.plusDays(5), ReportService.BY_CAPACITY);
+		OccupancyReport byBedType = reportService.findOccupancy(FROM, FROM.plusDays(5), ReportService.BY_BED_TYPE);
+
+		// then
+		assertThat(keys(byCapacity), contains("1", "2"));
+		assertEquals(5, byCapacity.getRows().get(0).getRoomNights());
+		assertEquals(2, byCapacity.getRows().get(0).getBookedNights());
+		assertEquals(10, byCapacity.getRows().get(1).getRoomNights());
+		assertEquals(4, byCapacity.getRows().get(1).getBookedNights());
+		assertThat(keys(byBedType), contains("SINGLE", "DOUBLE", "KING_SIZE"));
+		assertEquals(2, byBedType.getRows().get(1).getBookedNights());
+		assertEquals(2, byBedType.getRows().get(2).getBookedNights());
+		assertThrows(ArgumentNotValidException.class,
+			() -> reportService.findOccupancy(FROM, FROM.plusDays(5), "revenue"));
+	}
+
+	@Test
+	public void occupancyCountersShouldFollowUpdatesAndDeletes() {
+		// given
+		LocalDate to = FROM.plusDays(5);
+
+		// when
+		LiveOccupancy initial = occupancyCounters.findOccupancy(FROM, to);
+		bookingService.updateBookingByDates(3, FROM.plusDays(20), FROM.plusDays(22));
+		LiveOccupancy updated = occupancyCounters.findOccupancy(FROM, to);
+		bookingService.deleteById(1);
+		LiveOccupancy deleted = occupancyCounters.findOccupancy(FROM, to);
+
+		// then
+		assertEquals(6, initial.getRoomNights());
+		assertEquals(10, initial.getBedNights());
+		assertEquals(4, updated.getRoomNights());
+		assertEquals(6, updated.getBedNights());
+		assertEquals(2, deleted.getRoomNights());
+		assertEquals(2, deleted.getBedNights());
+		assertEquals(2, occupancyCounters.findOccupancy(FROM.plusDays(21), FROM.plusDays(30)).getBedNights());
+	}
+
+	@Test
+	public void occupancyCountersShouldAddUpTheShards() {
+		// given
+		BookingRepository sharded = new BookingRepository(new SequentialIdAllocator(), BookingLog.NONE,
+			SnapshotStore.NONE, shard -> new HeapBookingStore(), 2);
+		OccupancyCounters counters = new OccupancyCounters(sharded);
+		LocalDate to = FROM.plusDays(2);
+		sharded.saveAll(new Booking(1, 1, 1, 2, FROM, to), new Booking(2, 1, 2, 1, FROM, to));
+
+		// when
+		Booking moved = sharded.findById(1);
+		sharded.update(new Booking(moved.getBookingId(), 1, 4, 2, FROM, to.plusDays(1)), moved.getVersion());
+		LiveOccupancy occupancy = counters.findOccupancy(FROM, to.plusDays(1));
+
+		// then
+		assertNotEquals(sharded.shardOf(1), sharded.shardOf(4));
+		assertEquals(5, occupancy.getRoomNights());
+		assertEquals(8, occupancy.getBedNights());
+	}
+
+	private static List<String> keys(OccupancyReport report) {
+		return report.getRows().stream().map(OccupancyReport.Row::getKey).collect(Collectors.toList());
+	}
+}
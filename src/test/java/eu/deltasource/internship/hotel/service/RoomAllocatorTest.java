@@ -0,0 +1,118 @@
+package eu.deltasource.internship.hotel.service;
+
+import eu.deltasource.internship.hotel.domain.Booking;
+import eu.deltasource.internship.hotel.domain.Room;
+import eu.deltasource.internship.hotel.domain.commodity.AbstractCommodity;
+import eu.deltasource.internship.hotel.domain.commodity.Bed;
+import eu.deltasource.internship.hotel.domain.commodity.BedType;
+import eu.deltasource.internship.hotel.domain.commodity.Toilet;
+import eu.deltasource.internship.hotel.repository.BookingRepository;
+import eu.deltasource.internship.hotel.repository.RoomRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoomAllocatorTest {
+
+	private static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+
+	private BookingRepository bookingRepository = new BookingRepository();
+	private RoomService roomService = new RoomService(new RoomRepository());
+	private RoomAllocator roomAllocator = new RoomAllocator(roomService, bookingRepository);
+	private Random random = new Random(5);
+
+	@Test
+	public void firstAvailableRoomShouldBeTheOneALinearSearchFinds() {
+		//given
+		for (int i = 0; i < 37; i++) {
+			roomService.saveRoom(randomRoom());
+		}
+		List<Integer> bookingIds = new ArrayList<>();
+
+		for (int step = 0; step < 3000; step++) {
+			//when
+			int numberOfPeople = random.nextInt(5) + 1;
+			LocalDate from = FIRST_DAY.plusDays(random.nextInt(200));
+			LocalDate to = from.plusDays(random.nextInt(80) + 1);
+			int roomId = roomAllocator.findFirstAvailableRoom(numberOfPeople, from, to);
+
+			//then
+			assertEquals(linearSearch(numberOfPeople, from, to), roomId);
+
+			// books the room found, moves or deletes a booking, or adds a room
+			int operation = random.nextInt(10);
+			if (roomId >= 0 && operation < 6) {
+				bookingIds.add(bookingRepository.save(new Booking(0, 1, roomId, 1, from, to)).getBookingId());
+			} else if (!bookingIds.isEmpty() && operation < 8) {
+				bookingRepository.deleteById(bookingIds.remove(random.nextInt(bookingIds.size())));
+			} else if (!bookingIds.isEmpty() && operation < 9) {
+				Booking booking = bookingRepository.findById(bookingIds.get(random.nextInt(bookingIds.size())));
+				LocalDate movedFrom = booking.getFrom().plusDays(random.nextInt(7) - 3);
+				LocalDate movedTo = movedFrom.plusDays(random.nextInt(3) + 1);
+				if (bookingRepository.isRoomAvailable(booking.getRoomId(), movedFrom, movedTo, booking.getBookingId())) {
+					bookingRepository.updateDates(booking.withDates(movedFrom, movedTo));
+				}
+			} else if (operation == 9 && step % 100 == 9) {
+				roomService.saveRoom(randomRoom());
+			}
+		}
+	}
+
+	@Test
+	public void firstAvailableRoomShouldSkipFullBuckets() {
+		//given
+		for (int i = 0; i < 5; i++) {
+			roomService.saveRoom(room(BedType.SINGLE));
+		}
+		roomService.saveRoom(room(BedType.DOUBLE));
+		LocalDate from = FIRST_DAY;
+		LocalDate to = FIRST_DAY.plusDays(3);
+		for (Room room : roomService.findRooms()) {
+			if (room.getRoomCapacity() == 1) {
+				bookingRepository.save(new Booking(0, 1, room.getRoomId(), 1, FIRST_DAY.plusDays(1), to));
+			}
+		}
+
+		//when
+		int roomId = roomAllocator.findFirstAvailableRoom(1, from, to);
+		int afterBookings = roomAllocator.findFirstAvailableRoom(1, to, to.plusDays(1));
+
+		//then
+		assertEquals(6, roomId);
+		assertEquals(1, afterBookings);
+	}
+
+	private int linearSearch(int numberOfPeople, LocalDate from, LocalDate to) {
+		return roomService.findRooms().stream()
+			.filter(room -> room.getRoomCapacity() >= numberOfPeople)
+			.filter(room -> bookingRepository.isRoomAvailable(room.getRoomId(), from, to))
+			.map(Room::getRoomId)
+			.min(Comparator.naturalOrder())
+			.orElse(-1);
+	}
+
+	private Room randomRoom() {
+		BedType[] beds = new BedType[random.nextInt(2) + 1];
+		for (int i = 0; i < beds.length; i++) {
+			beds[i] = BedType.values()[random.nextInt(BedType.values().length)];
+		}
+		return room(beds);
+	}
+
+	private static Room room(BedType... beds) {
+		Set<AbstractCommodity> commodities = new HashSet<>();
+		for (BedType bed : beds) {
+			commodities.add(new Bed(bed));
+		}
+		commodities.add(new Toilet());
+		return new Room(0, commodities);
+	}
+}
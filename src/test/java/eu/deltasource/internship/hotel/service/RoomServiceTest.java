@@ -176,7 +176,8 @@ public class RoomServiceTest {
 	@Test
 	public void saveRoomsShouldWorkIfPassedProperVarargs(){
 		//Given
-		roomService.deleteAll();
+		// a fresh repository, which hands out ids from 1 again
+		roomService = new RoomService(new RoomRepository());
 
 		//When
 		roomService.saveRooms(singleRoom,kingSizeRoom);
@@ -185,6 +186,8 @@ public class RoomServiceTest {
 		assertTrue(roomService.findRooms().contains(singleRoom));
 		assertTrue(roomService.findRooms().contains(kingSizeRoom));
 		assertEquals(2,roomService.findRooms().size());
+		assertEquals(singleRoom.getCommodities(), roomService.getRoomById(singleRoom.getRoomId()).getCommodities());
+		assertEquals(kingSizeRoom.getCommodities(), roomService.getRoomById(kingSizeRoom.getRoomId()).getCommodities());
 
 	}
 
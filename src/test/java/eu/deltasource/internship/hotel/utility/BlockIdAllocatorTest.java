@@ -0,0 +1,65 @@
+package eu.deltasource.internship.hotel.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockIdAllocatorTest {
+
+	@Test
+	public void parallelThreadsShouldNeverGetTheSameId() throws InterruptedException {
+		//given
+		BlockIdAllocator allocator = new BlockIdAllocator(16);
+		Set<Integer> ids = ConcurrentHashMap.newKeySet();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			threads.add(new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				int last = 0;
+				for (int j = 0; j < 1000; j++) {
+					int id = allocator.nextId();
+					assertTrue(id > last);
+					last = id;
+					ids.add(id);
+				}
+			}));
+		}
+
+		//when
+		threads.forEach(Thread::start);
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		//then
+		assertEquals(4000, ids.size());
+		assertTrue(ids.stream().allMatch(id -> id > 0 && id <= allocator.highestIssuedId()));
+	}
+
+	@Test
+	public void advanceToShouldGiveUpTheReservedBlocks() {
+		//given
+		BlockIdAllocator allocator = new BlockIdAllocator(16);
+		int first = allocator.nextId();
+
+		//when
+		allocator.advanceTo(100);
+
+		//then
+		assertEquals(1, first);
+		assertEquals(101, allocator.nextId());
+		assertEquals(116, allocator.highestIssuedId());
+	}
+}
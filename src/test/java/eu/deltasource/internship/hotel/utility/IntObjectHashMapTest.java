@@ -0,0 +1,121 @@
+package eu.deltasource.internship.hotel.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntObjectHashMapTest {
+
+	@Test
+	public void mapShouldBehaveLikeALinkedHashMap() {
+		//given
+		IntObjectHashMap<String> map = new IntObjectHashMap<>();
+		Map<Integer, String> expected = new LinkedHashMap<>();
+		Random random = new Random(7);
+
+		//when
+		for (int i = 0; i < 20000; i++) {
+			int key = random.nextInt(200) - 20;
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+			}
+
+			//then
+			assertEquals(expected.size(), map.size());
+			assertEquals(expected.get(key), map.get(key));
+			assertEquals(expected.containsKey(key), map.containsKey(key));
+		}
+		assertEquals(new ArrayList<>(expected.values()), map.values());
+		List<String> visited = new ArrayList<>();
+		map.forEach(visited::add);
+		assertEquals(map.values(), visited);
+	}
+
+	@Test
+	public void removeShouldKeepKeysWhichWrappedAroundTheTable() {
+		//given
+		IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+		List<Integer> lastSlotKeys = new ArrayList<>();
+		for (int key = 1; lastSlotKeys.size() < 3; key++) {
+			// the table of a new map has 32 slots
+			if ((homeSlot(key) & 31) == 31) {
+				lastSlotKeys.add(key);
+			}
+		}
+		lastSlotKeys.forEach(key -> map.put(key, key));
+
+		//when
+		map.remove(lastSlotKeys.get(0));
+
+		//then
+		assertNull(map.get(lastSlotKeys.get(0)));
+		assertEquals(lastSlotKeys.get(1), map.get(lastSlotKeys.get(1)));
+		assertEquals(lastSlotKeys.get(2), map.get(lastSlotKeys.get(2)));
+		map.remove(lastSlotKeys.get(1));
+		assertEquals(lastSlotKeys.get(2), map.get(lastSlotKeys.get(2)));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void growingShouldCompactRemovedEntriesAndKeepTheOrder() {
+		//given
+		IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+		for (int key = 0; key < 16; key++) {
+			map.put(key, key);
+		}
+		for (int key = 0; key < 16; key += 2) {
+			map.remove(key);
+		}
+
+		//when
+		for (int key = 100; key < 140; key++) {
+			map.put(key, key);
+		}
+
+		//then
+		assertEquals(48, map.size());
+		List<Integer> values = map.values();
+		assertEquals(List.of(1, 3, 5), values.subList(0, 3));
+		assertEquals(139, map.lastKey());
+		for (int key = 0; key < 16; key++) {
+			assertEquals(key % 2 == 0 ? null : key, map.get(key));
+		}
+		for (int key = 100; key < 140; key++) {
+			assertEquals(key, map.get(key));
+		}
+	}
+
+	@Test
+	public void clearShouldRemoveAllEntries() {
+		//given
+		IntObjectHashMap<String> map = new IntObjectHashMap<>();
+		map.put(1, "one");
+		map.put(2, "two");
+
+		//when
+		map.clear();
+
+		//then
+		assertTrue(map.isEmpty());
+		assertNull(map.get(1));
+		assertThrows(IllegalStateException.class, map::lastKey);
+		assertNull(map.put(1, "again"));
+		assertEquals(List.of("again"), map.values());
+	}
+
+	/**
+	 * Same spreading as the map's own hash
+	 */
+	private static int homeSlot(int key) {
+		int hash = key * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
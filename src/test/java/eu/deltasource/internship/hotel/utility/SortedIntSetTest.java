@@ -0,0 +1,42 @@
+package eu.deltasource.internship.hotel.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortedIntSetTest {
+
+	@Test
+	public void setShouldBehaveLikeATreeSet() {
+		//given
+		SortedIntSet set = new SortedIntSet();
+		TreeSet<Integer> expected = new TreeSet<>();
+		Random random = new Random(3);
+
+		for (int i = 0; i < 50000; i++) {
+			//when
+			// mostly growing values, like allocated ids, with some out of order
+			int value = random.nextInt(4) == 0 ? random.nextInt(i + 1) : i;
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(value), set.remove(value));
+			} else {
+				assertEquals(expected.add(value), set.add(value));
+			}
+
+			//then
+			assertEquals(expected.size(), set.size());
+			if (i % 97 == 0) {
+				int from = random.nextInt(i + 1) - 1;
+				int limit = random.nextInt(2 * SortedIntSet.CHUNK_SIZE) + 1;
+				int[] page = expected.tailSet(from, false).stream().limit(limit).mapToInt(Integer::intValue).toArray();
+				assertArrayEquals(page, set.after(from, limit));
+			}
+		}
+		set.clear();
+		assertEquals(0, set.size());
+		assertEquals(0, set.after(-1, 10).length);
+	}
+}